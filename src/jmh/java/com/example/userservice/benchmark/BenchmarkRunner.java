@@ -0,0 +1,264 @@
+package com.example.userservice.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Запускает JMH-бенчмарки с GC-профайлером и сравнивает результат с сохранённым базовым прогоном.
+ * Результаты пишутся в {@code target/jmh}: result.json (формат JMH, для визуализаторов)
+ * и result.csv (плоские метрики для сравнения). Системные свойства:
+ * <ul>
+ *   <li>{@code benchmark.save=<имя>} — сохранить прогон как базовый, например номер релиза;</li>
+ *   <li>{@code benchmark.baseline=<имя>} — с чем сравнивать, по умолчанию старшая версия в src/jmh/baselines;</li>
+ *   <li>{@code benchmark.threshold} — ухудшение в процентах, которое считается регрессией (10); учитываются
+ *   пропускная способность за пределами погрешности и аллокации, перцентили только печатаются;</li>
+ *   <li>{@code benchmark.failOnRegression=true} — код возврата 1 при регрессии.</li>
+ * </ul>
+ * Базовые прогоны сравнимы только на том же железе и JVM.
+ */
+public final class BenchmarkRunner {
+    private static final String CSV_HEADER = "benchmark,mode,params,metric,score,error,unit";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    // Сравниваются только метрики, не зависящие от длительности прогона
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    // Аллокации ниже этого порога (байт на операцию) — шум профайлера
+    private static final double ALLOCATION_NOISE_BYTES = 16;
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 && !args[0].isBlank() ? args[0] : ".*";
+        Path results = Path.of(System.getProperty("benchmark.results", "target/jmh"));
+        Path baselines = Path.of(System.getProperty("benchmark.baselines", "src/jmh/baselines"));
+        Files.createDirectories(results);
+
+        Options options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackageName() + ".*" + include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.resolve("result.json").toString())
+                .build();
+        Collection<RunResult> runResults = new Runner(options).run();
+
+        Map<String, Metric> current = toMetrics(runResults);
+        Path csv = results.resolve("result.csv");
+        write(csv, current.values());
+        System.out.println("Results: " + csv.toAbsolutePath());
+
+        boolean regression = false;
+        Optional<Path> baseline = findBaseline(baselines, setting("benchmark.baseline"));
+        if (baseline.isPresent()) {
+            regression = compare(read(baseline.get()), current,
+                    Double.parseDouble(System.getProperty("benchmark.threshold", "10")), baseline.get());
+        } else {
+            System.out.println("No baseline in " + baselines.toAbsolutePath() + ", nothing to compare with");
+        }
+
+        String save = setting("benchmark.save");
+        if (save != null) {
+            Files.createDirectories(baselines);
+            Path target = baselines.resolve(save + ".csv");
+            Files.copy(csv, target, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Saved baseline " + target.toAbsolutePath());
+        }
+        if (regression && Boolean.getBoolean("benchmark.failOnRegression")) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Metric> toMetrics(Collection<RunResult> runResults) {
+        Map<String, Metric> metrics = new LinkedHashMap<>();
+        for (RunResult runResult : runResults) {
+            BenchmarkParams params = runResult.getParams();
+            String benchmark = params.getBenchmark().substring(BenchmarkRunner.class.getPackageName().length() + 1);
+            String mode = params.getMode().shortLabel();
+            StringBuilder paramString = new StringBuilder();
+            for (String key : params.getParamsKeys()) {
+                paramString.append(paramString.length() == 0 ? "" : ";").append(key).append('=')
+                        .append(params.getParam(key));
+            }
+            Result<?> primary = runResult.getPrimaryResult();
+            add(metrics, new Metric(benchmark, mode, paramString.toString(), "score",
+                    primary.getScore(), primary.getScoreError(), primary.getScoreUnit()));
+            if ("sample".equals(mode)) {
+                Statistics statistics = primary.getStatistics();
+                for (double percentile : PERCENTILES) {
+                    add(metrics, new Metric(benchmark, mode, paramString.toString(), "p" + percentile,
+                            statistics.getPercentile(percentile), Double.NaN, primary.getScoreUnit()));
+                }
+            }
+            Result<?> allocation = runResult.getSecondaryResults().get(ALLOCATION_METRIC);
+            if (allocation != null) {
+                add(metrics, new Metric(benchmark, mode, paramString.toString(), ALLOCATION_METRIC,
+                        allocation.getScore(), allocation.getScoreError(), allocation.getScoreUnit()));
+            }
+        }
+        return metrics;
+    }
+
+    private static void add(Map<String, Metric> metrics, Metric metric) {
+        metrics.put(metric.key(), metric);
+    }
+
+    // true, если хотя бы одна метрика ухудшилась больше порога
+    private static boolean compare(Map<String, Metric> baseline, Map<String, Metric> current, double threshold,
+                                   Path baselineFile) {
+        System.out.printf("%nCompared with %s (regression threshold %.0f%%):%n", baselineFile.getFileName(), threshold);
+        System.out.printf("%-64s %-22s %14s %14s %9s%n", "Benchmark", "Metric", "Baseline", "Current", "Change");
+        boolean regression = false;
+        for (Metric now : current.values()) {
+            Metric before = baseline.get(now.key());
+            if (before == null) {
+                continue;
+            }
+            // Для пропускной способности больше — лучше, для времени и аллокаций — меньше
+            boolean higherIsBetter = "thrpt".equals(now.mode) && "score".equals(now.metric);
+            double change = before.score == 0 ? 0 : (now.score - before.score) / before.score * 100;
+            double worse = higherIsBetter ? -change : change;
+            boolean regressed = gated(now) && worse > threshold && !withinError(before, now)
+                    && !negligible(before, now);
+            regression |= regressed;
+            String name = now.benchmark + (now.params.isEmpty() ? "" : " [" + now.params + "]");
+            System.out.printf(Locale.ROOT, "%-64s %-22s %14.3f %14.3f %+8.1f%%%s%n",
+                    name, now.mode + " " + now.metric, before.score, now.score, change,
+                    regressed ? "  REGRESSION" : "");
+        }
+        return regression;
+    }
+
+    // Среднее и хвосты режима sample на операциях короче микросекунды — шум таймера,
+    // поэтому они только печатаются; регрессию определяют пропускная способность и аллокации
+    private static boolean gated(Metric metric) {
+        return ALLOCATION_METRIC.equals(metric.metric)
+                || "score".equals(metric.metric) && !"sample".equals(metric.mode);
+    }
+
+    // Доверительные интервалы пересекаются — разница статистически не значима
+    private static boolean withinError(Metric before, Metric now) {
+        return !Double.isNaN(before.error) && !Double.isNaN(now.error)
+                && Math.abs(now.score - before.score) <= before.error + now.error;
+    }
+
+    private static boolean negligible(Metric before, Metric now) {
+        return ALLOCATION_METRIC.equals(now.metric) && Math.max(before.score, now.score) < ALLOCATION_NOISE_BYTES;
+    }
+
+    private static Optional<Path> findBaseline(Path directory, String name) throws IOException {
+        if (name != null) {
+            Path file = directory.resolve(name + ".csv");
+            if (!Files.exists(file)) {
+                throw new IllegalArgumentException("Baseline not found: " + file.toAbsolutePath());
+            }
+            return Optional.of(file);
+        }
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".csv"))
+                    .max(Comparator.comparing(file -> versionOf(file), BenchmarkRunner::compareVersions));
+        }
+    }
+
+    private static String versionOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - ".csv".length());
+    }
+
+    // 1.10 старше 1.9: числовые части сравниваются как числа
+    static int compareVersions(String left, String right) {
+        String[] a = left.split("[.\\-]");
+        String[] b = right.split("[.\\-]");
+        for (int i = 0; i < Math.max(a.length, b.length); i++) {
+            String x = i < a.length ? a[i] : "0";
+            String y = i < b.length ? b[i] : "0";
+            int result = x.matches("\\d+") && y.matches("\\d+")
+                    ? Long.compare(Long.parseLong(x), Long.parseLong(y))
+                    : x.compareTo(y);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static String setting(String key) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static void write(Path file, Collection<Metric> metrics) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (Metric metric : metrics) {
+            lines.add(String.join(",", metric.benchmark, metric.mode, metric.params, metric.metric,
+                    format(metric.score), format(metric.error), metric.unit));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Metric> read(Path file) throws IOException {
+        Map<String, Metric> metrics = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.equals(CSV_HEADER)) {
+                continue;
+            }
+            String[] columns = line.split(",", -1);
+            add(metrics, new Metric(columns[0], columns[1], columns[2], columns[3],
+                    Double.parseDouble(columns[4]), Double.parseDouble(columns[5]), columns[6]));
+        }
+        return metrics;
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "NaN" : String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static final class Metric {
+        private final String benchmark;
+        private final String mode;
+        private final String params;
+        private final String metric;
+        private final double score;
+        private final double error;
+        private final String unit;
+
+        Metric(String benchmark, String mode, String params, String metric, double score, double error, String unit) {
+            this.benchmark = benchmark;
+            this.mode = mode;
+            this.params = params;
+            this.metric = metric;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        String key() {
+            return benchmark + '|' + mode + '|' + params + '|' + metric;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.userservice.benchmark;
+
+import com.example.userservice.dao.InstrumentedUserDao;
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена замеров InstrumentedUserDao: тот же вызов заглушки напрямую и через декоратор.
+ * Разница gc.alloc.rate.norm между парами должна быть нулевой; все ядра пишут в одну гистограмму.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class InstrumentedUserDaoBenchmark {
+
+    private UserDao direct;
+    private InstrumentedUserDao instrumented;
+
+    @Setup
+    public void setUp() {
+        User stored = new User("John Doe", "john.doe@example.com", 30);
+        stored.setId(42L);
+        Optional<User> found = Optional.of(stored);
+        direct = (UserDao) Proxy.newProxyInstance(UserDao.class.getClassLoader(), new Class<?>[]{UserDao.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> found;
+                    case "existsByEmail" -> Boolean.TRUE;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        instrumented = new InstrumentedUserDao(direct);
+    }
+
+    @Benchmark
+    public Optional<User> findByIdDirect() {
+        return direct.findById(42L);
+    }
+
+    @Benchmark
+    public Optional<User> findByIdInstrumented() {
+        return instrumented.findById(42L);
+    }
+
+    @Benchmark
+    public boolean existsByEmailDirect() {
+        return direct.existsByEmail("john.doe@example.com");
+    }
+
+    @Benchmark
+    public boolean existsByEmailInstrumented() {
+        return instrumented.existsByEmail("john.doe@example.com");
+    }
+}
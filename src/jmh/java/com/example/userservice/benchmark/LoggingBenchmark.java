@@ -0,0 +1,69 @@
+package com.example.userservice.benchmark;
+
+import com.example.userservice.benchmark.UserDaoBenchmark.Cursor;
+import com.example.userservice.benchmark.UserDaoBenchmark.Database;
+import com.example.userservice.model.User;
+import com.example.userservice.util.LoggingSettings;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка DAO в зависимости от схемы логирования: log4j2-sync.xml повторяет прежнюю синхронную
+ * конфигурацию, log4j2-prod.xml — асинхронные логгеры; sqlLogging включает логгер org.hibernate.SQL
+ * так же, как это делается на ходу. Логи пишутся в target/jmh/logs.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Duserservice.log.dir=target/jmh/logs")
+public class LoggingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Logging {
+        @Param({"log4j2-sync.xml", "log4j2-prod.xml"})
+        String config;
+
+        @Param({"false", "true"})
+        boolean sqlLogging;
+
+        @Setup(Level.Trial)
+        public void configure() throws URISyntaxException {
+            URL location = LoggingBenchmark.class.getClassLoader().getResource(config);
+            if (location == null) {
+                throw new IllegalStateException("Logging configuration not found: " + config);
+            }
+            ((LoggerContext) LogManager.getContext(false)).setConfigLocation(location.toURI());
+            LoggingSettings.setSqlLoggingEnabled(sqlLogging);
+        }
+    }
+
+    // Запрос к базе на каждый вызов: с включённым SQL-логом по строке в лог
+    @Benchmark
+    public boolean existsByEmail(Logging logging, Database db, Cursor cursor) {
+        return db.dao.existsByEmail("bench-user-" + cursor.next() + "@example.com");
+    }
+
+    // Две транзакции записи: несколько SQL-строк и DEBUG-сообщения DAO
+    @Benchmark
+    public boolean insertAndDelete(Logging logging, Database db, Cursor cursor) {
+        User user = db.dao.insert(new User("Bench New", cursor.newEmail(), 30));
+        return db.dao.delete(user.getId());
+    }
+}
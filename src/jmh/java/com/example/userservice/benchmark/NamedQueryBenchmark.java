@@ -0,0 +1,111 @@
+package com.example.userservice.benchmark;
+
+import com.example.userservice.dao.UserDaoImpl;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.model.User;
+import com.example.userservice.util.HibernateUtil;
+import com.example.userservice.util.SessionFactoryBuilder;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Строковый HQL против именованного запроса (создание и выполнение) и задержка первого запроса
+ * на свежей фабрике с прогревом и без. База — как у {@link UserDaoBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dhibernate.show_sql=false")
+public class NamedQueryBenchmark {
+
+    private static final String INLINE_HQL = "SELECT COUNT(u) FROM User u WHERE u.email = :email";
+    private static final String EMAIL = "bench-missing@example.com";
+
+    @State(Scope.Thread)
+    public static class OpenSession {
+        Session session;
+
+        @Setup(Level.Trial)
+        public void open(UserDaoBenchmark.Database db) {
+            session = HibernateUtil.getSessionFactory().openSession();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            session.close();
+        }
+    }
+
+    // Только создание и привязка параметров, без обращения к базе
+    @Benchmark
+    public Query<Long> createInlineHql(OpenSession state) {
+        return state.session.createQuery(INLINE_HQL, Long.class).setParameter("email", EMAIL);
+    }
+
+    @Benchmark
+    public Query<Long> createNamedQuery(OpenSession state) {
+        return state.session.createNamedQuery(User.COUNT_BY_EMAIL, Long.class).setParameter("email", EMAIL);
+    }
+
+    @Benchmark
+    public Long inlineHql(OpenSession state) {
+        return createInlineHql(state).uniqueResult();
+    }
+
+    @Benchmark
+    public Long namedQuery(OpenSession state) {
+        return createNamedQuery(state).uniqueResult();
+    }
+
+    // Новая фабрика на каждый замер; warmUp — вызвать UserDaoImpl.warmUp() до первого запроса
+    @State(Scope.Thread)
+    public static class FreshFactory {
+        @Param({"false", "true"})
+        public boolean warmUp;
+
+        SessionFactory factory;
+        UserDaoImpl dao;
+
+        @Setup(Level.Invocation)
+        public void build(UserDaoBenchmark.Database db) {
+            String url = (String) HibernateUtil.getSessionFactory().getProperties().get(AvailableSettings.URL);
+            factory = SessionFactoryBuilder.buildStandalone("benchmark-" + (warmUp ? "warm" : "cold"), url);
+            dao = new UserDaoImpl(factory, UserDaoImpl.DEFAULT_BATCH_SIZE);
+            if (warmUp) {
+                dao.warmUp();
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() {
+            factory.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public UserPage firstRequest(FreshFactory state) {
+        return state.dao.findPageAfter(null, 20);
+    }
+}
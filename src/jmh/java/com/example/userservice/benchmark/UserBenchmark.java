@@ -0,0 +1,80 @@
+package com.example.userservice.benchmark;
+
+import com.example.userservice.model.User;
+import com.example.userservice.util.EmailValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Создание, валидация и toString сущности User — без базы и Hibernate
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserBenchmark {
+
+    // Прежняя проверка из User.isValidEmail — точка отсчёта для EmailValidator
+    private static final Pattern EMAIL_REGEX = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("John Doe", "john.doe@example.com", 30);
+        user.setId(42L);
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 30));
+        user.setVersion(3L);
+    }
+
+    @Benchmark
+    public User construct() {
+        return new User("John Doe", "john.doe@example.com", 30);
+    }
+
+    // Путь UserService.updateUser: каждое поле через валидирующий сеттер
+    @Benchmark
+    public User constructWithSetters() {
+        User created = new User();
+        created.setName("  John Doe ");
+        created.setEmail("John.Doe@Example.com");
+        created.setAge(30);
+        return created;
+    }
+
+    @Benchmark
+    public String normalizeEmail(EmailState state) {
+        return EmailValidator.normalize(state.email);
+    }
+
+    @Benchmark
+    public String normalizeEmailRegex(EmailState state) {
+        String email = state.email;
+        return EMAIL_REGEX.matcher(email).matches() ? email.toLowerCase().trim() : null;
+    }
+
+    @Benchmark
+    public String toStringFormat() {
+        return user.toString();
+    }
+
+    // Уже нормализованный, с заглавными буквами и некорректный адрес
+    @State(Scope.Thread)
+    public static class EmailState {
+        @Param({"john.doe@example.com", "John.Doe@Example.COM", "not-an-email"})
+        public String email;
+    }
+}
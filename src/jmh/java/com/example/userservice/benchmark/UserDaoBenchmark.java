@@ -0,0 +1,152 @@
+package com.example.userservice.benchmark;
+
+import com.example.userservice.dao.BatchSaveResult;
+import com.example.userservice.dao.UserDaoImpl;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.model.User;
+import com.example.userservice.util.HibernateUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserDaoImpl на локальном PostgreSQL: по умолчанию встроенный (zonky embedded-postgres,
+ * не запускается от root), либо существующая база из -Dbenchmark.jdbcUrl/-username/-password.
+ * В существующей базе бенчмарк работает только со своими строками bench-user-*.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dhibernate.show_sql=false")
+public class UserDaoBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final String EMAIL_PREFIX = "bench-user-";
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        private EmbeddedPostgres embedded;
+        UserDaoImpl dao;
+        long[] ids;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            String url = System.getProperty("benchmark.jdbcUrl", "");
+            if (url.isBlank()) {
+                embedded = EmbeddedPostgres.builder().start();
+                System.setProperty("hibernate.connection.url", embedded.getJdbcUrl("postgres", "postgres"));
+                System.setProperty("hibernate.connection.username", "postgres");
+                System.setProperty("hibernate.connection.password", "postgres");
+            } else {
+                System.setProperty("hibernate.connection.url", url);
+                System.setProperty("hibernate.connection.username", System.getProperty("benchmark.username"));
+                System.setProperty("hibernate.connection.password", System.getProperty("benchmark.password"));
+            }
+            // Схему создают миграции при старте фабрики
+            HibernateUtil.bootstrap();
+            deleteBenchmarkRows();
+
+            dao = new UserDaoImpl();
+            List<User> users = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                users.add(new User("Bench User " + i, EMAIL_PREFIX + i + "@example.com", 20 + i % 50));
+            }
+            BatchSaveResult saved = dao.saveAll(users);
+            if (saved.hasFailures()) {
+                throw new IllegalStateException("Failed to seed benchmark users: " + saved);
+            }
+            ids = saved.getSaved().stream().mapToLong(User::getId).toArray();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            try {
+                deleteBenchmarkRows();
+                HibernateUtil.shutdown();
+            } finally {
+                if (embedded != null) {
+                    embedded.close();
+                }
+            }
+        }
+
+        private static void deleteBenchmarkRows() {
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                Transaction tx = session.beginTransaction();
+                session.createNativeMutationQuery("DELETE FROM users WHERE email LIKE :prefix")
+                        .setParameter("prefix", EMAIL_PREFIX + "%")
+                        .executeUpdate();
+                tx.commit();
+            }
+        }
+    }
+
+    // Свой обход id у каждого потока; шаг взаимно прост с USERS, поэтому проходятся все строки
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+        private long inserted;
+
+        int next() {
+            position = (position + 7919) % USERS;
+            return position;
+        }
+
+        String newEmail() {
+            return EMAIL_PREFIX + "new-" + Thread.currentThread().getId() + "-" + inserted++ + "@example.com";
+        }
+    }
+
+    // Обычно попадание в second-level cache
+    @Benchmark
+    public Optional<User> findById(Database db, Cursor cursor) {
+        return db.dao.findById(db.ids[cursor.next()]);
+    }
+
+    // Natural-id cache: email -> id, затем сущность из second-level cache
+    @Benchmark
+    public Optional<User> findByEmail(Database db, Cursor cursor) {
+        return db.dao.findByEmail(EMAIL_PREFIX + cursor.next() + "@example.com");
+    }
+
+    @Benchmark
+    public boolean existsByEmail(Database db, Cursor cursor) {
+        return db.dao.existsByEmail(EMAIL_PREFIX + cursor.next() + "@example.com");
+    }
+
+    @Benchmark
+    public UserPage findFirstPage(Database db) {
+        return db.dao.findPageAfter(null, 20);
+    }
+
+    @Benchmark
+    public long count(Database db) {
+        return db.dao.count();
+    }
+
+    // Путь записи: INSERT ... ON CONFLICT и DELETE, по транзакции на каждый
+    @Benchmark
+    public boolean insertAndDelete(Database db, Cursor cursor) {
+        User user = db.dao.insert(new User("Bench New", cursor.newEmail(), 30));
+        return db.dao.delete(user.getId());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.userservice.benchmark;
+
+import com.example.userservice.model.User;
+import com.example.userservice.util.UserIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserIndex} против {@code HashMap<Long, User>} (и пары HashMap с индексом по email):
+ * построение и поиск по id. gc.alloc.rate.norm у build* — память структуры вместе с мусором
+ * от перестроений; удерживаемую память на запись проверяет UserIndexTest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserIndexBenchmark {
+
+    private static final int USERS = 100_000;
+
+    private User[] users;
+    private Map<Long, User> map;
+    private UserIndex index;
+
+    @Setup
+    public void setUp() {
+        users = new User[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = new User("User " + i, "user" + i + "@example.com", 20 + i % 50);
+            users[i].setId(idOf(i));
+        }
+        map = buildHashMap();
+        index = buildIndex();
+    }
+
+    // Id как у шардов: бакет в младших битах
+    private static long idOf(int i) {
+        return (long) i << 10 | 393;
+    }
+
+    // Свой обход id у каждого потока; шаг взаимно прост с USERS, поэтому проходятся все строки
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        long nextId() {
+            position = (position + 7919) % USERS;
+            return idOf(position);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Long, User> buildHashMap() {
+        Map<Long, User> byId = new HashMap<>();
+        for (User user : users) {
+            byId.put(user.getId(), user);
+        }
+        return byId;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object buildHashMapsWithEmail() {
+        Map<Long, User> byId = new HashMap<>();
+        Map<String, User> byEmail = new HashMap<>();
+        for (User user : users) {
+            byId.put(user.getId(), user);
+            byEmail.put(user.getEmail(), user);
+        }
+        return new Object[]{byId, byEmail};
+    }
+
+    // Индекс по id и email сразу
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public UserIndex buildIndex() {
+        UserIndex built = new UserIndex();
+        for (User user : users) {
+            built.put(user);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public User getHashMap(Cursor cursor) {
+        return map.get(cursor.nextId());
+    }
+
+    @Benchmark
+    public User getIndex(Cursor cursor) {
+        return index.get(cursor.nextId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.userservice.benchmark;
+
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.model.User;
+import com.example.userservice.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы UserService (валидация, нормализация, логирование) поверх заглушки DAO.
+ * Заглушка — динамический прокси, а не Mockito: Mockito сопоставляет аргументы на каждом
+ * вызове даже в режиме stubOnly, и его стоимость заслонила бы сам сервис.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserServiceBenchmark {
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        User stored = new User("John Doe", "john.doe@example.com", 30);
+        stored.setId(42L);
+        stored.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 30));
+        stored.setVersion(0L);
+        Optional<User> found = Optional.of(stored);
+
+        UserDao dao = (UserDao) Proxy.newProxyInstance(UserDao.class.getClassLoader(), new Class<?>[]{UserDao.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "insert" -> args[0];
+                    case "findById", "findByEmail", "patch" -> found;
+                    case "existsByEmail" -> Boolean.TRUE;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        userService = new UserService(dao);
+    }
+
+    @Benchmark
+    public User createUser() {
+        return userService.createUser("John Doe", "John.Doe@Example.com", 30);
+    }
+
+    @Benchmark
+    public User getUserById() {
+        return userService.getUserById(42L);
+    }
+
+    @Benchmark
+    public Optional<User> findUserByEmail() {
+        return userService.findUserByEmail("john.doe@example.com");
+    }
+
+    @Benchmark
+    public User updateUser() {
+        return userService.updateUser(42L, "Johnny Doe", "johnny@example.com", 31);
+    }
+
+    @Benchmark
+    public boolean emailExists() {
+        return userService.emailExists("john.doe@example.com");
+    }
+}
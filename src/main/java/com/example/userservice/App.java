@@ -1,24 +1,76 @@
 package com.example.userservice;
 
+import com.example.userservice.dao.BloomFilterUserDao;
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.InstrumentedUserDao;
+import com.example.userservice.dao.UserDaoImpl;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.io.ExportResult;
+import com.example.userservice.io.ImportResult;
+import com.example.userservice.io.UserExporter;
+import com.example.userservice.io.UserImporter;
 import com.example.userservice.model.User;
 import com.example.userservice.service.UserService;
+import com.example.userservice.util.CacheRegionStatistics;
 import com.example.userservice.util.HibernateUtil;
-
+import com.example.userservice.util.LoggingSettings;
+import com.example.userservice.util.OperationStatistics;
+import com.example.userservice.util.PoolStatistics;
+import com.example.userservice.util.QuerySummary;
+import com.example.userservice.util.SlowQuery;
+import com.example.userservice.util.SlowQueryLog;
+import org.hibernate.stat.Statistics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
 public class App {
     private final UserService userService;
+    private final UserImporter userImporter;
+    private final UserExporter userExporter;
+    // null — DAO без замеров, экран задержек недоступен
+    private final InstrumentedUserDao operationMetrics;
+    // null — Bloom-фильтра email нет, перестраивать после импорта нечего
+    private final BloomFilterUserDao emailFilter;
     private final Scanner scanner;
 
     public App() {
-        this.userService = new UserService();
-        this.scanner = new Scanner(System.in);
+        // Bloom-фильтр email загружается при прогреве; до этого проверки идут в базу
+        this(new BloomFilterUserDao(new UserDaoImpl()));
+    }
+
+    private App(BloomFilterUserDao emailFilter) {
+        this(new InstrumentedUserDao(emailFilter), emailFilter);
+    }
+
+    private App(InstrumentedUserDao userDao, BloomFilterUserDao emailFilter) {
+        this(new UserService(userDao), new UserImporter(userDao), new UserExporter(), userDao, emailFilter);
     }
 
     public App(UserService userService) {
+        this(userService, new UserImporter(), new UserExporter());
+    }
+
+    App(UserService userService, UserImporter userImporter, UserExporter userExporter) {
+        this(userService, userImporter, userExporter, null);
+    }
+
+    App(UserService userService, UserImporter userImporter, UserExporter userExporter,
+        InstrumentedUserDao operationMetrics) {
+        this(userService, userImporter, userExporter, operationMetrics, null);
+    }
+
+    App(UserService userService, UserImporter userImporter, UserExporter userExporter,
+        InstrumentedUserDao operationMetrics, BloomFilterUserDao emailFilter) {
         this.userService = userService;
+        this.userImporter = userImporter;
+        this.userExporter = userExporter;
+        this.operationMetrics = operationMetrics;
+        this.emailFilter = emailFilter;
         this.scanner = new Scanner(System.in);
     }
 
@@ -32,6 +84,15 @@ public class App {
                 scanner.close();
             }));
 
+            // Прогрев в фоне: меню доступно сразу, пока собирается SessionFactory и готовятся запросы
+            Thread warmUp = new Thread(userService::warmUp, "user-service-warmup");
+            warmUp.setDaemon(true);
+            warmUp.start();
+
+            if (operationMetrics != null) {
+                operationMetrics.registerMBeans("primary");
+            }
+
             System.out.println("=== User Service ===");
             boolean running = true;
 
@@ -47,6 +108,10 @@ public class App {
                     case "5" -> updateUser();
                     case "6" -> deleteUser();
                     case "7" -> showStatistics();
+                    case "8" -> importUsers();
+                    case "9" -> exportUsers();
+                    case "10" -> showOperationStatistics();
+                    case "11" -> showHibernateStatistics();
                     case "0" -> {
                         running = false;
                         System.out.println("Exiting...");
@@ -58,6 +123,9 @@ public class App {
         } catch (Exception e) {
             System.out.println("Critical error occurred: " + e.getMessage());
         } finally {
+            if (operationMetrics != null) {
+                operationMetrics.unregisterMBeans();
+            }
             HibernateUtil.shutdown();
             scanner.close();
             System.out.println("User Service application stopped");
@@ -65,6 +133,7 @@ public class App {
     }
 
     public static void main(String[] args) {
+        HibernateUtil.bootstrapAsync();
         new App().start();
     }
 
@@ -79,6 +148,10 @@ public class App {
         System.out.println("5. Update user");
         System.out.println("6. Delete user");
         System.out.println("7. Statistics");
+        System.out.println("8. Import users from file");
+        System.out.println("9. Export users to file");
+        System.out.println("10. DAO latency");
+        System.out.println("11. Hibernate statistics and slow queries");
         System.out.println("0. Exit");
         System.out.println("-".repeat(40));
         System.out.print("Your choice: ");
@@ -104,13 +177,12 @@ public class App {
     void listUsers() {
         try {
             System.out.println("\n--- All Users ---");
-            List<User> users = userService.getAllUsers();
+            long count = userService.streamAllUsers(System.out::println);
 
-            if (users.isEmpty()) {
+            if (count == 0) {
                 System.out.println("No users found.");
             } else {
-                System.out.printf("Found %d user(s):\n", users.size());
-                users.forEach(System.out::println);
+                System.out.printf("Found %d user(s)\n", count);
             }
 
         } catch (Exception e) {
@@ -171,10 +243,12 @@ public class App {
             String ageStr = scanner.nextLine().trim();
             Integer age = ageStr.isEmpty() ? null : Integer.parseInt(ageStr);
 
+            // Версия из показанных данных: чужое изменение между чтением и записью не затрётся
             User updatedUser = userService.updateUser(id,
                     name.isEmpty() ? null : name,
                     email.isEmpty() ? null : email,
-                    age);
+                    age,
+                    existingUser.getVersion());
 
             System.out.println("User updated successfully!");
             System.out.println("Updated: " + updatedUser);
@@ -219,13 +293,26 @@ public class App {
     void showStatistics() {
         try {
             System.out.println("\n--- Statistics ---");
-            long userCount = userService.getUserCount();
-            System.out.printf("Total users in database: %d\n", userCount);
+            long userCount = userService.getUserCount(CountMode.ESTIMATED);
+            System.out.printf("Total users in database: ~%d\n", userCount);
+
+            PoolStatistics pool = HibernateUtil.getPoolStatistics();
+            if (pool != null) {
+                System.out.printf("Connections: %d active, %d idle, %d waiting (max %d), avg acquire %.3f ms\n",
+                        pool.getActiveConnections(), pool.getIdleConnections(),
+                        pool.getThreadsAwaitingConnection(), pool.getMaximumPoolSize(),
+                        pool.getAverageAcquireMillis());
+            }
+
+            for (CacheRegionStatistics cache : HibernateUtil.getCacheStatistics()) {
+                System.out.printf("Cache '%s': %d hits, %d misses (%.1f%% hit ratio)\n",
+                        cache.getRegion(), cache.getHits(), cache.getMisses(), cache.getHitRatio() * 100);
+            }
 
             if (userCount > 0) {
-                List<User> recentUsers = userService.getUsersWithPagination(1, 5);
+                UserPage recentUsers = userService.getUsersWithPagination(null, 5);
                 System.out.println("Recent users:");
-                recentUsers.forEach(user -> System.out.println("  - " + user));
+                recentUsers.getUsers().forEach(user -> System.out.println("  - " + user));
             }
 
         } catch (Exception e) {
@@ -233,6 +320,179 @@ public class App {
         }
     }
 
+    void showOperationStatistics() {
+        System.out.println("\n--- DAO Latency ---");
+        if (operationMetrics == null) {
+            System.out.println("DAO metrics are not enabled.");
+            return;
+        }
+
+        List<OperationStatistics> statistics = operationMetrics.getStatistics().stream()
+                .filter(operation -> operation.getCalls() > 0)
+                .toList();
+        if (statistics.isEmpty()) {
+            System.out.println("No DAO calls in the current window.");
+        } else {
+            System.out.printf("%-14s %8s %7s %9s %10s %10s %10s %10s %10s\n",
+                    "Operation", "Calls", "Errors", "Window s", "Mean us", "p50 us", "p99 us", "p99.9 us", "Max us");
+            for (OperationStatistics operation : statistics) {
+                System.out.printf("%-14s %8d %7d %9d %10.1f %10.1f %10.1f %10.1f %10.1f\n",
+                        operation.getOperation(), operation.getCalls(), operation.getErrors(),
+                        operation.getWindow().toSeconds(), operation.getMeanMicros(), operation.getP50Micros(),
+                        operation.getP99Micros(), operation.getP999Micros(), operation.getMaxMicros());
+            }
+        }
+
+        System.out.print("Reset window? (y/N): ");
+        if ("y".equalsIgnoreCase(scanner.nextLine().trim())) {
+            operationMetrics.reset();
+            System.out.println("Window reset.");
+        }
+    }
+
+    void showHibernateStatistics() {
+        try {
+            System.out.println("\n--- Hibernate Statistics ---");
+            Statistics statistics = HibernateUtil.getStatistics();
+            if (statistics == null) {
+                System.out.println("SessionFactory is not started yet.");
+            } else if (!statistics.isStatisticsEnabled()) {
+                System.out.println("Statistics collection is disabled.");
+            } else {
+                System.out.printf("Entities: %d loaded, %d fetched, %d inserted, %d updated, %d deleted\n",
+                        statistics.getEntityLoadCount(), statistics.getEntityFetchCount(),
+                        statistics.getEntityInsertCount(), statistics.getEntityUpdateCount(),
+                        statistics.getEntityDeleteCount());
+                System.out.printf("Queries: %d executed, slowest %d ms\n",
+                        statistics.getQueryExecutionCount(), statistics.getQueryExecutionMaxTime());
+                System.out.printf("Flushes: %d, connections: %d, statements prepared: %d, transactions: %d\n",
+                        statistics.getFlushCount(), statistics.getConnectCount(),
+                        statistics.getPrepareStatementCount(), statistics.getTransactionCount());
+                System.out.printf("Second-level cache: %d hits, %d misses; natural-id cache: %d hits, %d misses\n",
+                        statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                        statistics.getNaturalIdCacheHitCount(), statistics.getNaturalIdCacheMissCount());
+
+                List<QuerySummary> queries = HibernateUtil.getQuerySummaries();
+                if (!queries.isEmpty()) {
+                    System.out.println("Top queries by total time:");
+                    queries.stream().limit(10).forEach(query -> System.out.printf(
+                            "  %6d x  avg %5d ms  max %5d ms  %s\n",
+                            query.getExecutions(), query.getAverageMillis(), query.getMaxMillis(), query.getQuery()));
+                }
+            }
+
+            SlowQueryLog slowQueryLog = HibernateUtil.getSlowQueryLog();
+            if (slowQueryLog.isEnabled()) {
+                System.out.printf("Slow queries over %d ms: %d\n",
+                        slowQueryLog.getThresholdMillis(), slowQueryLog.getSlowQueryCount());
+                List<SlowQuery> recent = slowQueryLog.getRecent();
+                recent.stream().limit(5).forEach(query -> System.out.printf("  %s  %.1f ms  %s %s\n",
+                        query.getExecutedAt(), query.getDurationMillis(), query.getSql(), query.getBinds()));
+            } else {
+                System.out.println("Slow-query log is disabled.");
+            }
+            System.out.println("SQL logging: " + (LoggingSettings.isSqlLoggingEnabled() ? "on" : "off"));
+
+            System.out.print("[t] toggle statistics, [c] clear, [s] slow-query threshold, [l] toggle SQL logging, "
+                    + "Enter to return: ");
+            switch (scanner.nextLine().trim().toLowerCase()) {
+                case "t" -> {
+                    if (statistics == null) {
+                        System.out.println("SessionFactory is not started yet.");
+                    } else {
+                        statistics.setStatisticsEnabled(!statistics.isStatisticsEnabled());
+                        System.out.println("Statistics collection "
+                                + (statistics.isStatisticsEnabled() ? "enabled." : "disabled."));
+                    }
+                }
+                case "c" -> {
+                    if (statistics != null) {
+                        statistics.clear();
+                    }
+                    slowQueryLog.clear();
+                    System.out.println("Statistics cleared.");
+                }
+                case "s" -> {
+                    long threshold = getLongInput("Threshold in ms (0 disables): ");
+                    slowQueryLog.setThresholdMillis(threshold);
+                    System.out.println(threshold > 0 ? "Slow-query threshold set to " + threshold + " ms."
+                            : "Slow-query log disabled.");
+                }
+                case "l" -> {
+                    LoggingSettings.setSqlLoggingEnabled(!LoggingSettings.isSqlLoggingEnabled());
+                    System.out.println("SQL logging " + (LoggingSettings.isSqlLoggingEnabled() ? "enabled." : "disabled."));
+                }
+                default -> {
+                }
+            }
+
+        } catch (RuntimeException e) {
+            System.out.println("Error retrieving Hibernate statistics: " + e.getMessage());
+        }
+    }
+
+    void importUsers() {
+        try {
+            System.out.println("\n--- Import Users ---");
+            Path source = Paths.get(getNonEmptyInput("File (.csv or .jsonl): "));
+            if (!Files.isRegularFile(source)) {
+                System.out.println("File not found: " + source);
+                return;
+            }
+            Path rejectFile = source.resolveSibling(source.getFileName() + ".rejects");
+
+            ImportResult result;
+            try {
+                result = userImporter.importFile(source, rejectFile);
+            } finally {
+                reloadEmailFilter();
+            }
+            System.out.printf("Imported %d of %d row(s) in %.1f s (%.0f rows/s)\n",
+                    result.getImported(), result.getRowsRead(),
+                    result.getElapsed().toMillis() / 1000.0, result.getRowsPerSecond());
+            if (result.getRejected() > 0) {
+                System.out.printf("Rejected %d row(s), see %s\n", result.getRejected(), rejectFile);
+            }
+
+        } catch (RuntimeException e) {
+            System.out.println("Error importing users: " + e.getMessage());
+        }
+    }
+
+    // Импорт пишет в обход DAO, и импортированных email в Bloom-фильтре нет: без перестроения
+    // existsByEmail отвечал бы на них «нет»
+    private void reloadEmailFilter() {
+        if (emailFilter == null || !emailFilter.isLoaded()) {
+            return;
+        }
+        try {
+            emailFilter.load();
+        } catch (RuntimeException e) {
+            System.out.println("Error reloading email filter: " + e.getMessage());
+        }
+    }
+
+    void exportUsers() {
+        try {
+            System.out.println("\n--- Export Users ---");
+            Path target = Paths.get(getNonEmptyInput("File (.csv or .jsonl, optionally .gz): "));
+            System.out.print("Parallel parts (default 1): ");
+            String partsInput = scanner.nextLine().trim();
+            int parts = partsInput.isEmpty() ? 1 : Integer.parseInt(partsInput);
+
+            ExportResult result = userExporter.export(target, parts);
+            System.out.printf("Exported %d row(s) to %d file(s) in %.1f s (%.0f rows/s)\n",
+                    result.getRows(), result.getFiles().size(),
+                    result.getElapsed().toMillis() / 1000.0, result.getRowsPerSecond());
+            result.getFiles().forEach(file -> System.out.println("  - " + file));
+
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number of parts");
+        } catch (RuntimeException e) {
+            System.out.println("Error exporting users: " + e.getMessage());
+        }
+    }
+
     String getNonEmptyInput(String prompt) {
         while (true) {
             System.out.print(prompt);
@@ -0,0 +1,76 @@
+package com.example.userservice.dao;
+
+import com.example.userservice.model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchSaveResult {
+    private final List<User> saved = new ArrayList<>();
+    private final List<Failure> failures = new ArrayList<>();
+
+    void addSaved(User user) {
+        saved.add(user);
+    }
+
+    void addFailure(int index, User user, RuntimeException error) {
+        failures.add(new Failure(index, user, error));
+    }
+
+    public List<User> getSaved() {
+        return Collections.unmodifiableList(saved);
+    }
+
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public int getSavedCount() {
+        return saved.size();
+    }
+
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchSaveResult[saved=%d, failed=%d]", saved.size(), failures.size());
+    }
+
+    public static class Failure {
+        private final int index;
+        private final User user;
+        private final RuntimeException error;
+
+        Failure(int index, User user, RuntimeException error) {
+            this.index = index;
+            this.user = user;
+            this.error = error;
+        }
+
+        // Позиция элемента во входной коллекции
+        public int getIndex() {
+            return index;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public RuntimeException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Failure[index=%d, email='%s', error='%s']",
+                    index, user.getEmail(), error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.userservice.dao;
+
+import com.example.userservice.model.User;
+import com.example.userservice.util.BloomFilter;
+import com.example.userservice.util.EmailValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Отвечает на {@link #existsByEmail(String)} из Bloom-фильтра, когда email гарантированно
+ * отсутствует; в базу уходят только возможные совпадения. Пока фильтр не загружен
+ * ({@link #load()}, вызывается из {@link #warmUp()}), все проверки идут в делегат.
+ * <p>
+ * Email записи добавляется в фильтр и до, и после неё: до — чтобы конкурентная проверка
+ * не получила ложный отрицательный ответ, после — чтобы запись, зафиксированная уже после
+ * снимка, с которого {@link #load()} читает таблицу, попала и в перестроенный фильтр.
+ */
+public class BloomFilterUserDao implements UserDao {
+    private static final Logger logger = LoggerFactory.getLogger(BloomFilterUserDao.class);
+
+    public static final long DEFAULT_EXPECTED_USERS = 1_000_000;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private final UserDao delegate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Пока идёт перестроение, новые email попадают и в старый, и в новый фильтр
+    private volatile BloomFilter rebuilding;
+
+    private final LongAdder definiteNegatives = new LongAdder();
+    private final LongAdder databaseChecks = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder staleEntries = new LongAdder();
+
+    public BloomFilterUserDao(UserDao delegate) {
+        this(delegate, DEFAULT_EXPECTED_USERS, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    public BloomFilterUserDao(UserDao delegate, long expectedUsers, double falsePositiveRate) {
+        this.delegate = delegate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    // Потоково читает users.email и строит фильтр; повторный вызов перестраивает его с нуля
+    public synchronized void load() {
+        long started = System.nanoTime();
+        BloomFilter fresh = new BloomFilter(expectedUsers, falsePositiveRate);
+        rebuilding = fresh;
+        try {
+            long loaded = delegate.streamEmails(email -> fresh.put(normalize(email)));
+            filter = fresh;
+            staleEntries.reset();
+            logger.info("Email Bloom filter loaded: {} emails, {} KiB, expected false positive rate {} in {} ms",
+                    loaded, fresh.getMemoryBytes() / 1024, String.format("%.5f", fresh.getExpectedFalsePositiveRate()),
+                    (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    public boolean isLoaded() {
+        return filter != null;
+    }
+
+    @Override
+    public long deleteAll(Collection<Long> ids) {
+        long deleted = delegate.deleteAll(ids);
+        staleEntries.add(deleted);
+        return deleted;
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(normalize(email))) {
+            definiteNegatives.increment();
+            return false;
+        }
+        databaseChecks.increment();
+        boolean exists = delegate.existsByEmail(email);
+        if (!exists && current != null) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    @Override
+    public User save(User user) {
+        remember(user.getEmail());
+        User saved = delegate.save(user);
+        remember(user.getEmail());
+        return saved;
+    }
+
+    @Override
+    public User insert(User user) {
+        remember(user.getEmail());
+        User inserted = delegate.insert(user);
+        remember(user.getEmail());
+        return inserted;
+    }
+
+    @Override
+    public BatchSaveResult saveAll(Collection<User> users) {
+        users.forEach(user -> remember(user.getEmail()));
+        BatchSaveResult result = delegate.saveAll(users);
+        result.getSaved().forEach(user -> remember(user.getEmail()));
+        return result;
+    }
+
+    @Override
+    public User update(User user) {
+        remember(user.getEmail());
+        User updated = delegate.update(user);
+        remember(user.getEmail());
+        // Старый email из Bloom-фильтра не удалить; он лишь повышает долю ложных срабатываний
+        staleEntries.increment();
+        return updated;
+    }
+
+    @Override
+    public Optional<User> patch(Long id, UserPatch patch) {
+        if (patch.getEmail() == null) {
+            return delegate.patch(id, patch);
+        }
+        remember(patch.getEmail());
+        Optional<User> patched = delegate.patch(id, patch);
+        remember(patch.getEmail());
+        staleEntries.increment();
+        return patched;
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        boolean deleted = delegate.delete(id);
+        if (deleted) {
+            staleEntries.increment();
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    @Deprecated
+    public List<User> findAll(int page, int size) {
+        return delegate.findAll(page, size);
+    }
+
+    @Override
+    public UserPage findPageAfter(UserCursor after, int size) {
+        return delegate.findPageAfter(after, size);
+    }
+
+    @Override
+    public long streamAll(Consumer<User> consumer) {
+        return delegate.streamAll(consumer);
+    }
+
+    @Override
+    public long streamEmails(Consumer<String> consumer) {
+        return delegate.streamEmails(consumer);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long count(CountMode mode) {
+        return delegate.count(mode);
+    }
+
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+        try {
+            load();
+        } catch (RuntimeException e) {
+            // Без фильтра проверки просто идут в базу; повторить можно вызовом load()
+            logger.warn("Email Bloom filter was not loaded: {}", e.getMessage(), e);
+        }
+    }
+
+    private void remember(String email) {
+        if (email == null) {
+            return;
+        }
+        String normalized = normalize(email);
+        // Сначала rebuilding, потом filter: load() публикует новый filter до сброса rebuilding,
+        // поэтому, увидев rebuilding == null после перестроения, мы прочитаем уже новый filter
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(normalized);
+        }
+        BloomFilter current = filter;
+        if (current != null && current != next) {
+            current.put(normalized);
+        }
+    }
+
+    private static String normalize(String email) {
+        return EmailValidator.lookupKey(email.trim());
+    }
+
+    public long getDefiniteNegatives() {
+        return definiteNegatives.sum();
+    }
+
+    public long getDatabaseChecks() {
+        return databaseChecks.sum();
+    }
+
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    // Удалённые и заменённые email, которые ещё числятся в фильтре; повод вызвать load()
+    public long getStaleEntries() {
+        return staleEntries.sum();
+    }
+
+    public long getFilterMemoryBytes() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.getMemoryBytes();
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 1.0 : current.getExpectedFalsePositiveRate();
+    }
+
+    // Доля проверок в базе, которые оказались ложными срабатываниями фильтра
+    public double getObservedFalsePositiveRate() {
+        long negatives = definiteNegatives.sum() + falsePositives.sum();
+        return negatives == 0 ? 0.0 : (double) falsePositives.sum() / negatives;
+    }
+}
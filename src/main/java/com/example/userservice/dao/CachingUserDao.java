@@ -0,0 +1,253 @@
+package com.example.userservice.dao;
+
+import com.example.userservice.model.User;
+import com.example.userservice.util.EmailValidator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through кэш поверх любого {@link UserDao}. Кэширует findById/findByEmail, включая
+ * отрицательные ответы; вытеснение — W-TinyLFU (Caffeine). Записи через этот же декоратор
+ * инвалидируют затронутые ключи.
+ */
+public class CachingUserDao implements UserDao {
+    private static final Logger logger = LoggerFactory.getLogger(CachingUserDao.class);
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+    public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+    // Отрицательный ответ в индексе email -> id
+    private static final Long MISSING = Long.MIN_VALUE;
+
+    private final UserDao delegate;
+    private final Cache<Long, Optional<User>> usersById;
+    private final Cache<String, Long> idsByEmail;
+
+    public CachingUserDao(UserDao delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE);
+    }
+
+    public CachingUserDao(UserDao delegate, long maximumSize, Duration expireAfterWrite) {
+        this(delegate,
+                Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).recordStats().build(),
+                Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWrite).recordStats().build());
+    }
+
+    private CachingUserDao(UserDao delegate, Cache<Long, Optional<User>> usersById, Cache<String, Long> idsByEmail) {
+        this.delegate = delegate;
+        this.usersById = usersById;
+        this.idsByEmail = idsByEmail;
+    }
+
+    // Ограничение по оценке занимаемой памяти; бюджет делится поровну между двумя кэшами
+    public static CachingUserDao withMaximumBytes(UserDao delegate, long maximumBytes, Duration expireAfterWrite) {
+        long perCache = Math.max(1, maximumBytes / 2);
+        Cache<Long, Optional<User>> usersById = Caffeine.newBuilder()
+                .maximumWeight(perCache)
+                .weigher((Long id, Optional<User> user) -> estimateBytes(user))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        Cache<String, Long> idsByEmail = Caffeine.newBuilder()
+                .maximumWeight(perCache)
+                .weigher((String email, Long id) -> 64 + 2 * email.length())
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        return new CachingUserDao(delegate, usersById, idsByEmail);
+    }
+
+    @Override
+    public User save(User user) {
+        User saved = delegate.save(user);
+        evict(saved);
+        return saved;
+    }
+
+    @Override
+    public User insert(User user) {
+        User inserted = delegate.insert(user);
+        evict(inserted);
+        return inserted;
+    }
+
+    @Override
+    public BatchSaveResult saveAll(Collection<User> users) {
+        BatchSaveResult result = delegate.saveAll(users);
+        result.getSaved().forEach(this::evict);
+        return result;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return lookupById(id).map(CachingUserDao::copyOf);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        String key = normalize(email);
+        Optional<User> user = resolveByEmail(key);
+        if (user == null) {
+            // Индекс email -> id устарел: email изменили или пользователя удалили в обход кэша
+            idsByEmail.invalidate(key);
+            user = resolveByEmail(key);
+        }
+        return user == null ? Optional.empty() : user.map(CachingUserDao::copyOf);
+    }
+
+    // null — если закэшированный id больше не соответствует этому email
+    private Optional<User> resolveByEmail(String key) {
+        Long id = idsByEmail.get(key, this::loadIdByEmail);
+        if (MISSING.equals(id)) {
+            return Optional.empty();
+        }
+        Optional<User> user = lookupById(id);
+        if (user.isPresent() && key.equalsIgnoreCase(user.get().getEmail())) {
+            return user;
+        }
+        return null;
+    }
+
+    // Только id: сущность кладёт lookupById через usersById.get(id, loader). Прямой put мог бы
+    // вернуть в кэш копию, прочитанную до параллельного patch/delete, уже после их инвалидации
+    private Long loadIdByEmail(String email) {
+        return delegate.findByEmail(email).map(User::getId).orElse(MISSING);
+    }
+
+    private Optional<User> lookupById(Long id) {
+        return usersById.get(id, key -> delegate.findById(key).map(CachingUserDao::copyOf));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    @Deprecated
+    public List<User> findAll(int page, int size) {
+        return delegate.findAll(page, size);
+    }
+
+    @Override
+    public UserPage findPageAfter(UserCursor after, int size) {
+        return delegate.findPageAfter(after, size);
+    }
+
+    @Override
+    public long streamAll(Consumer<User> consumer) {
+        return delegate.streamAll(consumer);
+    }
+
+    @Override
+    public long streamEmails(Consumer<String> consumer) {
+        return delegate.streamEmails(consumer);
+    }
+
+    @Override
+    public User update(User user) {
+        User updated = delegate.update(user);
+        // Старый email проверяется при чтении, а новый мог быть закэширован как отсутствующий
+        evict(updated);
+        return updated;
+    }
+
+    @Override
+    public Optional<User> patch(Long id, UserPatch patch) {
+        Optional<User> patched = delegate.patch(id, patch);
+        usersById.invalidate(id);
+        if (patch.getEmail() != null) {
+            idsByEmail.invalidate(normalize(patch.getEmail()));
+        }
+        return patched;
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        boolean deleted = delegate.delete(id);
+        usersById.invalidate(id);
+        return deleted;
+    }
+
+    @Override
+    public long deleteAll(Collection<Long> ids) {
+        long deleted = delegate.deleteAll(ids);
+        usersById.invalidateAll(ids);
+        return deleted;
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long count(CountMode mode) {
+        return delegate.count(mode);
+    }
+
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+    }
+
+    public void invalidateAll() {
+        logger.info("Invalidating user cache");
+        usersById.invalidateAll();
+        idsByEmail.invalidateAll();
+    }
+
+    public CacheStats getIdCacheStats() {
+        return usersById.stats();
+    }
+
+    public CacheStats getEmailCacheStats() {
+        return idsByEmail.stats();
+    }
+
+    private void evict(User user) {
+        if (user.getId() != null) {
+            usersById.invalidate(user.getId());
+        }
+        if (user.getEmail() != null) {
+            idsByEmail.invalidate(normalize(user.getEmail()));
+        }
+    }
+
+    private static String normalize(String email) {
+        return EmailValidator.lookupKey(email);
+    }
+
+    // Кэш хранит собственные копии: вызывающий код мутирует полученные сущности (см. UserService.updateUser)
+    private static User copyOf(User user) {
+        User copy = new User(user.getName(), user.getEmail(), user.getAge());
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+
+    private static int estimateBytes(Optional<User> user) {
+        if (user.isEmpty()) {
+            return 48;
+        }
+        User u = user.get();
+        int strings = (u.getName() == null ? 0 : u.getName().length())
+                + (u.getEmail() == null ? 0 : u.getEmail().length());
+        return 160 + 2 * strings;
+    }
+}
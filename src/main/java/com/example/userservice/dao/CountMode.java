@@ -0,0 +1,11 @@
+package com.example.userservice.dao;
+
+// Как считать пользователей: точность против стоимости запроса
+public enum CountMode {
+    // SELECT COUNT(*) — полный проход по таблице
+    EXACT,
+    // Счётчик в памяти: один раз инициализируется COUNT(*), затем ведётся записями этого DAO
+    CACHED,
+    // Оценка планировщика PostgreSQL (pg_class.reltuples), обновляется VACUUM/ANALYZE
+    ESTIMATED
+}
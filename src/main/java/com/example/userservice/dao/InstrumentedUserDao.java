@@ -0,0 +1,347 @@
+package com.example.userservice.dao;
+
+import com.example.userservice.model.User;
+import com.example.userservice.util.OperationMetrics;
+import com.example.userservice.util.OperationStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Замеряет каждый метод любого {@link UserDao}: число вызовов, ошибок и гистограмму задержек.
+ * Запись без блокировок и аллокаций (см. {@link com.example.userservice.util.LatencyHistogram}),
+ * поэтому декоратор можно держать включённым всегда. Для JMX — {@link #registerMBeans(String)}.
+ */
+public class InstrumentedUserDao implements UserDao {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedUserDao.class);
+    private static final String MBEAN_DOMAIN = "com.example.userservice";
+
+    private final UserDao delegate;
+    private final Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+    private final List<ObjectName> registeredMBeans = new ArrayList<>();
+
+    private final OperationMetrics save = operation("save");
+    private final OperationMetrics insert = operation("insert");
+    private final OperationMetrics saveAll = operation("saveAll");
+    private final OperationMetrics findById = operation("findById");
+    private final OperationMetrics findByEmail = operation("findByEmail");
+    private final OperationMetrics findAll = operation("findAll");
+    private final OperationMetrics findAllPaged = operation("findAllPaged");
+    private final OperationMetrics findPageAfter = operation("findPageAfter");
+    // Для потоковых методов в задержку входит и время consumer
+    private final OperationMetrics streamAll = operation("streamAll");
+    private final OperationMetrics streamEmails = operation("streamEmails");
+    private final OperationMetrics update = operation("update");
+    private final OperationMetrics patch = operation("patch");
+    private final OperationMetrics delete = operation("delete");
+    private final OperationMetrics deleteAll = operation("deleteAll");
+    private final OperationMetrics existsByEmail = operation("existsByEmail");
+    private final OperationMetrics count = operation("count");
+    private final OperationMetrics countWithMode = operation("countWithMode");
+
+    public InstrumentedUserDao(UserDao delegate) {
+        this.delegate = delegate;
+    }
+
+    private OperationMetrics operation(String name) {
+        OperationMetrics metrics = new OperationMetrics(name);
+        operations.put(name, metrics);
+        return metrics;
+    }
+
+    @Override
+    public User save(User user) {
+        long start = System.nanoTime();
+        try {
+            User saved = delegate.save(user);
+            save.recordSuccess(System.nanoTime() - start);
+            return saved;
+        } catch (RuntimeException e) {
+            save.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User insert(User user) {
+        long start = System.nanoTime();
+        try {
+            User inserted = delegate.insert(user);
+            insert.recordSuccess(System.nanoTime() - start);
+            return inserted;
+        } catch (RuntimeException e) {
+            insert.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public BatchSaveResult saveAll(Collection<User> users) {
+        long start = System.nanoTime();
+        try {
+            BatchSaveResult result = delegate.saveAll(users);
+            saveAll.recordSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            saveAll.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        long start = System.nanoTime();
+        try {
+            Optional<User> user = delegate.findById(id);
+            findById.recordSuccess(System.nanoTime() - start);
+            return user;
+        } catch (RuntimeException e) {
+            findById.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        long start = System.nanoTime();
+        try {
+            Optional<User> user = delegate.findByEmail(email);
+            findByEmail.recordSuccess(System.nanoTime() - start);
+            return user;
+        } catch (RuntimeException e) {
+            findByEmail.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        long start = System.nanoTime();
+        try {
+            List<User> users = delegate.findAll();
+            findAll.recordSuccess(System.nanoTime() - start);
+            return users;
+        } catch (RuntimeException e) {
+            findAll.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    @Deprecated
+    public List<User> findAll(int page, int size) {
+        long start = System.nanoTime();
+        try {
+            List<User> users = delegate.findAll(page, size);
+            findAllPaged.recordSuccess(System.nanoTime() - start);
+            return users;
+        } catch (RuntimeException e) {
+            findAllPaged.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public UserPage findPageAfter(UserCursor after, int size) {
+        long start = System.nanoTime();
+        try {
+            UserPage page = delegate.findPageAfter(after, size);
+            findPageAfter.recordSuccess(System.nanoTime() - start);
+            return page;
+        } catch (RuntimeException e) {
+            findPageAfter.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long streamAll(Consumer<User> consumer) {
+        long start = System.nanoTime();
+        try {
+            long streamed = delegate.streamAll(consumer);
+            streamAll.recordSuccess(System.nanoTime() - start);
+            return streamed;
+        } catch (RuntimeException e) {
+            streamAll.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long streamEmails(Consumer<String> consumer) {
+        long start = System.nanoTime();
+        try {
+            long streamed = delegate.streamEmails(consumer);
+            streamEmails.recordSuccess(System.nanoTime() - start);
+            return streamed;
+        } catch (RuntimeException e) {
+            streamEmails.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User update(User user) {
+        long start = System.nanoTime();
+        try {
+            User updated = delegate.update(user);
+            update.recordSuccess(System.nanoTime() - start);
+            return updated;
+        } catch (RuntimeException e) {
+            update.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<User> patch(Long id, UserPatch userPatch) {
+        long start = System.nanoTime();
+        try {
+            Optional<User> patched = delegate.patch(id, userPatch);
+            patch.recordSuccess(System.nanoTime() - start);
+            return patched;
+        } catch (RuntimeException e) {
+            patch.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        long start = System.nanoTime();
+        try {
+            boolean deleted = delegate.delete(id);
+            delete.recordSuccess(System.nanoTime() - start);
+            return deleted;
+        } catch (RuntimeException e) {
+            delete.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long deleteAll(Collection<Long> ids) {
+        long start = System.nanoTime();
+        try {
+            long deleted = delegate.deleteAll(ids);
+            deleteAll.recordSuccess(System.nanoTime() - start);
+            return deleted;
+        } catch (RuntimeException e) {
+            deleteAll.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        long start = System.nanoTime();
+        try {
+            boolean exists = delegate.existsByEmail(email);
+            existsByEmail.recordSuccess(System.nanoTime() - start);
+            return exists;
+        } catch (RuntimeException e) {
+            existsByEmail.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long count() {
+        long start = System.nanoTime();
+        try {
+            long total = delegate.count();
+            count.recordSuccess(System.nanoTime() - start);
+            return total;
+        } catch (RuntimeException e) {
+            count.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long count(CountMode mode) {
+        long start = System.nanoTime();
+        try {
+            long total = delegate.count(mode);
+            countWithMode.recordSuccess(System.nanoTime() - start);
+            return total;
+        } catch (RuntimeException e) {
+            countWithMode.recordFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    // Прогрев не замеряется: разовый и заведомо медленный, он испортил бы хвосты окна
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+    }
+
+    // Все операции в порядке объявления в UserDao, включая ещё не вызывавшиеся
+    public List<OperationStatistics> getStatistics() {
+        List<OperationStatistics> statistics = new ArrayList<>(operations.size());
+        operations.values().forEach(metrics -> statistics.add(metrics.getStatistics()));
+        return statistics;
+    }
+
+    public Optional<OperationStatistics> getStatistics(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        return metrics == null ? Optional.empty() : Optional.of(metrics.getStatistics());
+    }
+
+    // Начинает новое окно по всем операциям
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    /**
+     * Регистрирует по MBean на операцию: com.example.userservice:type=UserDao,name=&lt;name&gt;,operation=&lt;op&gt;.
+     * Имя должно быть допустимым значением ObjectName (без запятых, двоеточий и кавычек).
+     * MBean с тем же именем от предыдущего экземпляра заменяется.
+     */
+    public synchronized InstrumentedUserDao registerMBeans(String name) {
+        unregisterMBeans();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (OperationMetrics metrics : operations.values()) {
+                ObjectName objectName = new ObjectName(
+                        MBEAN_DOMAIN + ":type=UserDao,name=" + name + ",operation=" + metrics.getOperation());
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(metrics, objectName);
+                registeredMBeans.add(objectName);
+            }
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register UserDao MBeans: " + e.getMessage(), e);
+        }
+        logger.info("Registered {} UserDao operation MBeans for '{}'", registeredMBeans.size(), name);
+        return this;
+    }
+
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredMBeans) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (InstanceNotFoundException e) {
+                // Уже заменён другим экземпляром или снят вручную
+            } catch (JMException e) {
+                logger.warn("Failed to unregister MBean {}: {}", objectName, e.getMessage());
+            }
+        }
+        registeredMBeans.clear();
+    }
+}
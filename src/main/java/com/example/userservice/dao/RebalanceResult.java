@@ -0,0 +1,40 @@
+package com.example.userservice.dao;
+
+import java.time.Duration;
+
+public class RebalanceResult {
+    private final int movedBuckets;
+    private final long movedRows;
+    private final ShardMap shardMap;
+    private final Duration elapsed;
+
+    RebalanceResult(int movedBuckets, long movedRows, ShardMap shardMap, Duration elapsed) {
+        this.movedBuckets = movedBuckets;
+        this.movedRows = movedRows;
+        this.shardMap = shardMap;
+        this.elapsed = elapsed;
+    }
+
+    public int getMovedBuckets() {
+        return movedBuckets;
+    }
+
+    public long getMovedRows() {
+        return movedRows;
+    }
+
+    // Новую карту нужно сохранить в конфигурации всех экземпляров приложения
+    public ShardMap getShardMap() {
+        return shardMap;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RebalanceResult[buckets=%d, rows=%d, elapsed=%d ms, map=%s]",
+                movedBuckets, movedRows, elapsed.toMillis(), shardMap);
+    }
+}
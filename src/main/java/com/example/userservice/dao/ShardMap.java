@@ -0,0 +1,209 @@
+package com.example.userservice.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Распределение пользователей по шардам. Email хэшируется в один из {@link #BUCKETS} бакетов,
+ * бакеты назначаются шардам. Бакет зашит в младшие биты id, поэтому findById находит шард
+ * без опроса всех баз, а перенос бакета на другой шард не меняет id.
+ * <p>
+ * Формат id: {@code [значение последовательности шарда | шард-источник (6 бит) | бакет (10 бит)]};
+ * шард-источник нужен, чтобы id с разных шардов не совпадали после переноса бакетов.
+ */
+public final class ShardMap {
+    public static final int BUCKET_BITS = 10;
+    public static final int BUCKETS = 1 << BUCKET_BITS;
+    public static final int ORIGIN_BITS = 6;
+    public static final int MAX_SHARDS = 1 << ORIGIN_BITS;
+
+    private final int[] shardOfBucket;
+    private final int shardCount;
+
+    private ShardMap(int[] shardOfBucket, int shardCount) {
+        this.shardOfBucket = shardOfBucket;
+        this.shardCount = shardCount;
+    }
+
+    // Непрерывные диапазоны бакетов равного размера
+    public static ShardMap uniform(int shardCount) {
+        checkShardCount(shardCount);
+        int[] buckets = new int[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            buckets[bucket] = bucket * shardCount / BUCKETS;
+        }
+        return new ShardMap(buckets, shardCount);
+    }
+
+    /**
+     * Разбирает формат {@link #toString()}: диапазоны бакетов через запятую,
+     * например {@code "0-511:0,512-1023:1"}. Каждый бакет должен быть назначен ровно один раз.
+     */
+    public static ShardMap parse(String value) {
+        int[] buckets = new int[BUCKETS];
+        Arrays.fill(buckets, -1);
+        int shardCount = 0;
+        for (String range : value.trim().split("\\s*,\\s*")) {
+            int colon = range.indexOf(':');
+            int dash = range.indexOf('-');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Invalid shard map range: " + range);
+            }
+            try {
+                int from = Integer.parseInt(range.substring(0, dash >= 0 && dash < colon ? dash : colon));
+                int to = dash >= 0 && dash < colon ? Integer.parseInt(range.substring(dash + 1, colon)) : from;
+                int shard = Integer.parseInt(range.substring(colon + 1));
+                if (from < 0 || to >= BUCKETS || from > to || shard < 0 || shard >= MAX_SHARDS) {
+                    throw new IllegalArgumentException("Invalid shard map range: " + range);
+                }
+                for (int bucket = from; bucket <= to; bucket++) {
+                    if (buckets[bucket] >= 0) {
+                        throw new IllegalArgumentException("Bucket " + bucket + " is assigned twice");
+                    }
+                    buckets[bucket] = shard;
+                }
+                shardCount = Math.max(shardCount, shard + 1);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid shard map range: " + range, e);
+            }
+        }
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (buckets[bucket] < 0) {
+                throw new IllegalArgumentException("Bucket " + bucket + " is not assigned");
+            }
+        }
+        return new ShardMap(buckets, shardCount);
+    }
+
+    /**
+     * Равномерное распределение по {@code targetShardCount} шардам с минимумом переносов:
+     * бакеты остаются на месте, пока шард не превышает свою долю.
+     */
+    public ShardMap rebalance(int targetShardCount) {
+        checkShardCount(targetShardCount);
+        int[] quota = new int[targetShardCount];
+        for (int shard = 0; shard < targetShardCount; shard++) {
+            quota[shard] = BUCKETS / targetShardCount + (shard < BUCKETS % targetShardCount ? 1 : 0);
+        }
+        int[] buckets = new int[BUCKETS];
+        Arrays.fill(buckets, -1);
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            int shard = shardOfBucket[bucket];
+            if (shard < targetShardCount && quota[shard] > 0) {
+                buckets[bucket] = shard;
+                quota[shard]--;
+            }
+        }
+        int shard = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (buckets[bucket] < 0) {
+                while (quota[shard] == 0) {
+                    shard++;
+                }
+                buckets[bucket] = shard;
+                quota[shard]--;
+            }
+        }
+        return new ShardMap(buckets, targetShardCount);
+    }
+
+    public ShardMap withBucket(int bucket, int shard) {
+        checkBucket(bucket);
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Invalid shard: " + shard);
+        }
+        int[] buckets = shardOfBucket.clone();
+        buckets[bucket] = shard;
+        int count = 0;
+        for (int value : buckets) {
+            count = Math.max(count, value + 1);
+        }
+        return new ShardMap(buckets, count);
+    }
+
+    public int shardOf(int bucket) {
+        checkBucket(bucket);
+        return shardOfBucket[bucket];
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    // Стабильный между запусками и JVM хэш: 64-битный FNV-1a по UTF-8 нормализованного email
+    public static int bucketOf(String email) {
+        byte[] bytes = email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 32;
+        return (int) (hash & (BUCKETS - 1));
+    }
+
+    public static int bucketOf(long id) {
+        return (int) (id & (BUCKETS - 1));
+    }
+
+    public static int originShardOf(long id) {
+        return (int) (id >>> BUCKET_BITS) & (MAX_SHARDS - 1);
+    }
+
+    public static long encodeId(long sequenceValue, int originShard, int bucket) {
+        if (sequenceValue < 0 || sequenceValue >= 1L << (Long.SIZE - 1 - BUCKET_BITS - ORIGIN_BITS)) {
+            throw new IllegalArgumentException("Sequence value out of range: " + sequenceValue);
+        }
+        return sequenceValue << (BUCKET_BITS + ORIGIN_BITS) | (long) originShard << BUCKET_BITS | bucket;
+    }
+
+    private static void checkShardCount(int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+    }
+
+    private static void checkBucket(int bucket) {
+        if (bucket < 0 || bucket >= BUCKETS) {
+            throw new IllegalArgumentException("Invalid bucket: " + bucket);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(shardOfBucket, ((ShardMap) o).shardOfBucket);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(shardOfBucket);
+    }
+
+    // Компактная запись диапазонами, см. parse(String)
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        int from = 0;
+        for (int bucket = 1; bucket <= BUCKETS; bucket++) {
+            if (bucket == BUCKETS || shardOfBucket[bucket] != shardOfBucket[from]) {
+                if (result.length() > 0) {
+                    result.append(',');
+                }
+                result.append(from);
+                if (bucket - 1 > from) {
+                    result.append('-').append(bucket - 1);
+                }
+                result.append(':').append(shardOfBucket[from]);
+                from = bucket;
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.userservice.dao;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Переносит бакеты между шардами {@link ShardedUserDao} по целевой {@link ShardMap}.
+ * Бакеты переносятся группами между одной парой шардов: запись в группу блокируется,
+ * строки копируются на целевой шард, карта переключается, после чего строки удаляются
+ * с исходного шарда. Копия, оставшаяся от прерванного переноса, перезаписывается строкой
+ * источника, поэтому перенос можно просто повторить. Если на цели уже есть более новая
+ * версия строки или записано меньше строк, чем прочитано, копирование откатывается,
+ * а карта и строки источника остаются нетронутыми.
+ * <p>
+ * Блокировки действуют только внутри процесса: другие экземпляры приложения на время
+ * ребалансировки должны быть остановлены или переведены в режим только чтения.
+ * Запуск из командной строки:
+ * {@code ShardRebalancer <текущая карта> <число шардов> <jdbc-url шарда 0> <jdbc-url шарда 1> ...}
+ */
+public class ShardRebalancer {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    public static final int DEFAULT_BUCKETS_PER_PASS = 64;
+    private static final int FETCH_SIZE = 5000;
+    private static final int COPY_CHUNK_SIZE = 5000;
+
+    private final ShardedUserDao dao;
+    private final int bucketsPerPass;
+
+    public ShardRebalancer(ShardedUserDao dao) {
+        this(dao, DEFAULT_BUCKETS_PER_PASS);
+    }
+
+    public ShardRebalancer(ShardedUserDao dao, int bucketsPerPass) {
+        if (bucketsPerPass < 1) {
+            throw new IllegalArgumentException("Buckets per pass must be a positive integer");
+        }
+        this.dao = dao;
+        this.bucketsPerPass = bucketsPerPass;
+    }
+
+    public RebalanceResult rebalance(ShardMap target) {
+        if (target.getShardCount() > dao.getShardCount()) {
+            throw new IllegalArgumentException("Target map references " + target.getShardCount()
+                    + " shards, but only " + dao.getShardCount() + " are configured");
+        }
+        long started = System.nanoTime();
+        ShardMap current = dao.getShardMap();
+
+        // (источник, цель) -> бакеты
+        Map<Long, List<Integer>> moves = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < ShardMap.BUCKETS; bucket++) {
+            int source = current.shardOf(bucket);
+            int destination = target.shardOf(bucket);
+            if (source != destination) {
+                moves.computeIfAbsent((long) source << 32 | destination, key -> new ArrayList<>()).add(bucket);
+            }
+        }
+        logger.info("Rebalancing users: {} -> {}", current, target);
+
+        int movedBuckets = 0;
+        long movedRows = 0;
+        for (Map.Entry<Long, List<Integer>> move : moves.entrySet()) {
+            int source = (int) (move.getKey() >>> 32);
+            int destination = (int) (long) move.getKey();
+            List<Integer> buckets = move.getValue();
+            for (int from = 0; from < buckets.size(); from += bucketsPerPass) {
+                int[] pass = buckets.subList(from, Math.min(buckets.size(), from + bucketsPerPass)).stream()
+                        .mapToInt(Integer::intValue).toArray();
+                movedRows += movePass(source, destination, pass);
+                movedBuckets += pass.length;
+            }
+        }
+        // Точный подсчёт сбрасывает счётчики CountMode.CACHED после переноса строк
+        dao.count(CountMode.EXACT);
+
+        RebalanceResult result = new RebalanceResult(movedBuckets, movedRows, dao.getShardMap(),
+                Duration.ofNanos(System.nanoTime() - started));
+        logger.info("Rebalance finished: {}", result);
+        return result;
+    }
+
+    private long movePass(int source, int destination, int[] buckets) {
+        logger.debug("Moving buckets {} from shard {} to shard {}", Arrays.toString(buckets), source, destination);
+        long[] copied = new long[1];
+        SessionFactory sourceFactory = dao.shard(source).sessionFactory();
+        SessionFactory destinationFactory = dao.shard(destination).sessionFactory();
+        dao.moveBuckets(buckets, destination,
+                () -> copied[0] = copyBuckets(sourceFactory, destinationFactory, buckets));
+
+        // Карта уже переключена: оставшиеся на источнике строки недоступны, но занимают место
+        try {
+            long deleted = inTransaction(sourceFactory, connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM users WHERE (id & " + (ShardMap.BUCKETS - 1) + ") = ANY(?)")) {
+                    statement.setArray(1, bucketArray(connection, buckets));
+                    return (long) statement.executeUpdate();
+                }
+            });
+            logger.info("Moved {} rows of {} bucket(s) from shard {} to shard {}",
+                    copied[0], buckets.length, source, destination);
+            if (deleted != copied[0]) {
+                logger.warn("Copied {} rows but deleted {} from shard {}", copied[0], deleted, source);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Buckets {} were moved to shard {}, but their rows were not deleted from shard {}",
+                    Arrays.toString(buckets), destination, source, e);
+            throw new RuntimeException("Failed to delete moved rows from shard " + source + ": " + e.getMessage(), e);
+        }
+        return copied[0];
+    }
+
+    // Одна транзакция на источнике (курсор) и одна на цели: при ошибке цель откатывается целиком
+    private static long copyBuckets(SessionFactory sourceFactory, SessionFactory destinationFactory, int[] buckets) {
+        return inTransaction(destinationFactory, target -> inTransaction(sourceFactory, source -> {
+            try (PreparedStatement select = source.prepareStatement(
+                    "SELECT id, name, email, age, created_at, version FROM users "
+                            + "WHERE (id & " + (ShardMap.BUCKETS - 1) + ") = ANY(?)");
+                 PreparedStatement insert = target.prepareStatement(
+                         "INSERT INTO users (id, name, email, age, created_at, version) "
+                                 + "SELECT * FROM unnest(CAST(? AS bigint[]), CAST(? AS text[]), CAST(? AS text[]), "
+                                 + "CAST(? AS int[]), CAST(? AS timestamp[]), CAST(? AS bigint[])) "
+                                 + "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, email = EXCLUDED.email, "
+                                 + "age = EXCLUDED.age, created_at = EXCLUDED.created_at, version = EXCLUDED.version "
+                                 + "WHERE users.version <= EXCLUDED.version")) {
+                select.setFetchSize(FETCH_SIZE);
+                select.setArray(1, bucketArray(source, buckets));
+                CopyChunk chunk = new CopyChunk();
+                long copied = 0;
+                long written = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        chunk.add(rs);
+                        copied++;
+                        if (chunk.size() == COPY_CHUNK_SIZE) {
+                            written += chunk.flush(target, insert);
+                        }
+                    }
+                }
+                written += chunk.flush(target, insert);
+                // Иначе после переключения карты удаление с источника потеряло бы недописанные строки
+                if (written != copied) {
+                    throw new IllegalStateException("Read " + copied + " rows from the source shard, but wrote "
+                            + written + " to the target shard");
+                }
+                return copied;
+            }
+        }));
+    }
+
+    private static Array bucketArray(Connection connection, int[] buckets) throws SQLException {
+        Long[] values = new Long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            values[i] = (long) buckets[i];
+        }
+        return connection.createArrayOf("bigint", values);
+    }
+
+    private static long inTransaction(SessionFactory factory, JdbcWork work) {
+        try (Session session = factory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                long result = session.doReturningWork(work::execute);
+                tx.commit();
+                return result;
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private interface JdbcWork {
+        long execute(Connection connection) throws SQLException;
+    }
+
+    private static final class CopyChunk {
+        private final List<Long> ids = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> emails = new ArrayList<>();
+        private final List<Integer> ages = new ArrayList<>();
+        private final List<Timestamp> createdAt = new ArrayList<>();
+        private final List<Long> versions = new ArrayList<>();
+
+        void add(ResultSet rs) throws SQLException {
+            ids.add(rs.getLong(1));
+            names.add(rs.getString(2));
+            emails.add(rs.getString(3));
+            ages.add((Integer) rs.getObject(4));
+            createdAt.add(rs.getTimestamp(5));
+            versions.add(rs.getLong(6));
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        // Число записанных строк
+        int flush(Connection connection, PreparedStatement insert) throws SQLException {
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            insert.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            insert.setArray(2, connection.createArrayOf("text", names.toArray()));
+            insert.setArray(3, connection.createArrayOf("text", emails.toArray()));
+            insert.setArray(4, connection.createArrayOf("int4", ages.toArray()));
+            insert.setArray(5, connection.createArrayOf("timestamp", createdAt.toArray()));
+            insert.setArray(6, connection.createArrayOf("bigint", versions.toArray()));
+            int written = insert.executeUpdate();
+            ids.clear();
+            names.clear();
+            emails.clear();
+            ages.clear();
+            createdAt.clear();
+            versions.clear();
+            return written;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: ShardRebalancer <current shard map> <target shard count> <jdbc url>...");
+            System.exit(2);
+        }
+        ShardMap current = ShardMap.parse(args[0]);
+        int targetShards = Integer.parseInt(args[1]);
+        List<String> urls = Arrays.asList(args).subList(2, args.length);
+        try (ShardedUserDao dao = ShardedUserDao.connect(urls, current)) {
+            RebalanceResult result = new ShardRebalancer(dao).rebalance(current.rebalance(targetShards));
+            System.out.printf("Moved %d bucket(s), %d row(s) in %.1f s%n",
+                    result.getMovedBuckets(), result.getMovedRows(), result.getElapsed().toMillis() / 1000.0);
+            System.out.println("New shard map: " + result.getShardMap());
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.example.userservice.dao;
+
+import com.example.userservice.model.User;
+import com.example.userservice.util.SessionFactoryBuilder;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link UserDao} поверх нескольких баз. Пользователь живёт на шарде бакета своего email
+ * (см. {@link ShardMap}); бакет зашит в id, поэтому операции по id идут на один шард.
+ * Списки и счётчики собираются со всех шардов параллельно и сливаются (k-way merge по createdAt).
+ * <p>
+ * Записи держат read-lock бакета, {@link ShardRebalancer} на время переноса бакета берёт
+ * write-lock, поэтому перенос не теряет параллельные записи этого процесса.
+ * Смена email, переводящая пользователя в другой бакет, не поддерживается: id пришлось бы менять.
+ */
+public class ShardedUserDao implements UserDao, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedUserDao.class);
+    static final int INSERT_CHUNK_SIZE = 1000;
+
+    // Сначала новые, как ORDER BY created_at DESC, id DESC на каждом шарде
+    static final Comparator<User> NEWEST_FIRST = Comparator
+            .comparing(User::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(User::getId, Comparator.reverseOrder());
+
+    private final List<UserDaoImpl> shards;
+    private final boolean ownsSessionFactories;
+    private final ReentrantReadWriteLock[] bucketLocks = new ReentrantReadWriteLock[ShardMap.BUCKETS];
+    private final ExecutorService scatter;
+    private volatile ShardMap shardMap;
+
+    ShardedUserDao(List<UserDaoImpl> shards, ShardMap shardMap, boolean ownsSessionFactories) {
+        if (shards.isEmpty() || shards.size() > ShardMap.MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + ShardMap.MAX_SHARDS);
+        }
+        if (shardMap.getShardCount() > shards.size()) {
+            throw new IllegalArgumentException("Shard map references " + shardMap.getShardCount()
+                    + " shards, but only " + shards.size() + " are configured");
+        }
+        this.shards = List.copyOf(shards);
+        this.shardMap = shardMap;
+        this.ownsSessionFactories = ownsSessionFactories;
+        for (int bucket = 0; bucket < bucketLocks.length; bucket++) {
+            bucketLocks[bucket] = new ReentrantReadWriteLock();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatter = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "user-shard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ShardedUserDao(List<SessionFactory> sessionFactories, ShardMap shardMap) {
+        this(wrap(sessionFactories), shardMap, false);
+    }
+
+    // Строит фабрику и пул на каждый шард; закрываются в close()
+    public static ShardedUserDao connect(List<String> jdbcUrls, ShardMap shardMap) {
+        List<SessionFactory> factories = new ArrayList<>(jdbcUrls.size());
+        try {
+            for (int i = 0; i < jdbcUrls.size(); i++) {
+                factories.add(SessionFactoryBuilder.buildStandalone(
+                        "user-service-shard-" + i, jdbcUrls.get(i)));
+            }
+            return new ShardedUserDao(wrap(factories), shardMap, true);
+        } catch (RuntimeException e) {
+            factories.forEach(SessionFactory::close);
+            throw e;
+        }
+    }
+
+    private static List<UserDaoImpl> wrap(List<SessionFactory> sessionFactories) {
+        List<UserDaoImpl> shards = new ArrayList<>(sessionFactories.size());
+        for (SessionFactory factory : sessionFactories) {
+            shards.add(new UserDaoImpl(factory, UserDaoImpl.DEFAULT_BATCH_SIZE));
+        }
+        return shards;
+    }
+
+    public ShardMap getShardMap() {
+        return shardMap;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // Шард по id: бакет из младших бит
+    public int shardOf(Long id) {
+        return shardMap.shardOf(ShardMap.bucketOf(id));
+    }
+
+    UserDaoImpl shard(int index) {
+        return shards.get(index);
+    }
+
+    // save и insert одинаковы: id собирается вручную, persist с назначенным id не работает
+    @Override
+    public User save(User user) {
+        return insert(user);
+    }
+
+    @Override
+    public User insert(User user) {
+        int bucket = ShardMap.bucketOf(user.getEmail());
+        return withBucketsLocked(new int[]{bucket}, () -> {
+            int shard = shardMap.shardOf(bucket);
+            return shards.get(shard).insert(user,
+                    (inserted, sequence) -> ShardMap.encodeId(sequence, shard, bucket));
+        });
+    }
+
+    @Override
+    public BatchSaveResult saveAll(Collection<User> users) {
+        logger.debug("Saving {} users across {} shards", users.size(), shards.size());
+        BatchSaveResult result = new BatchSaveResult();
+        List<User> chunk = new ArrayList<>(Math.min(INSERT_CHUNK_SIZE, users.size()));
+        int offset = 0;
+        for (User user : users) {
+            chunk.add(user);
+            if (chunk.size() == INSERT_CHUNK_SIZE) {
+                saveChunk(chunk, offset, result);
+                offset += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, offset, result);
+        }
+        logger.info("Sharded batch save finished: {} saved, {} failed", result.getSavedCount(), result.getFailedCount());
+        return result;
+    }
+
+    private void saveChunk(List<User> chunk, int offset, BatchSaveResult result) {
+        int[] buckets = new int[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            buckets[i] = ShardMap.bucketOf(chunk.get(i).getEmail());
+        }
+        withBucketsLocked(buckets, () -> {
+            ShardMap map = shardMap;
+            List<List<User>> usersByShard = new ArrayList<>();
+            List<List<Integer>> indexesByShard = new ArrayList<>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                usersByShard.add(new ArrayList<>());
+                indexesByShard.add(new ArrayList<>());
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                int shard = map.shardOf(buckets[i]);
+                usersByShard.get(shard).add(chunk.get(i));
+                indexesByShard.get(shard).add(offset + i);
+            }
+
+            List<Callable<BatchSaveResult>> tasks = new ArrayList<>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                List<User> shardUsers = usersByShard.get(shard);
+                if (shardUsers.isEmpty()) {
+                    continue;
+                }
+                int shardIndex = shard;
+                List<Integer> indexes = indexesByShard.get(shard);
+                tasks.add(() -> {
+                    BatchSaveResult shardResult = new BatchSaveResult();
+                    shards.get(shardIndex).insertChunk(shardUsers, indexes, (inserted, sequence) ->
+                            ShardMap.encodeId(sequence, shardIndex, ShardMap.bucketOf(inserted.getEmail())), shardResult);
+                    return shardResult;
+                });
+            }
+            for (BatchSaveResult shardResult : invokeAll(tasks)) {
+                shardResult.getSaved().forEach(result::addSaved);
+                shardResult.getFailures().forEach(failure ->
+                        result.addFailure(failure.getIndex(), failure.getUser(), failure.getError()));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return shards.get(shardOf(id)).findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return shardForEmail(email).findByEmail(email);
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<List<User>> perShard = scatter(UserDao::findAll);
+        return merge(perShard, 0, Integer.MAX_VALUE);
+    }
+
+    // Каждый шард отдаёт первые page * size строк, глобальная страница — срез их слияния
+    @Override
+    @Deprecated
+    public List<User> findAll(int page, int size) {
+        int limit = Math.multiplyExact(page, size);
+        List<List<User>> perShard = scatter(shard -> shard.findAll(1, limit));
+        return merge(perShard, (page - 1) * size, size);
+    }
+
+    @Override
+    public UserPage findPageAfter(UserCursor after, int size) {
+        List<UserPage> pages = scatter(shard -> shard.findPageAfter(after, size));
+        List<List<User>> perShard = new ArrayList<>(pages.size());
+        boolean shardHasMore = false;
+        for (UserPage page : pages) {
+            perShard.add(page.getUsers());
+            shardHasMore |= page.hasNext();
+        }
+        List<User> merged = merge(perShard, 0, size + 1);
+        if (merged.size() <= size && !shardHasMore) {
+            return new UserPage(merged, null);
+        }
+        List<User> users = new ArrayList<>(merged.subList(0, Math.min(size, merged.size())));
+        return new UserPage(users, users.isEmpty() ? null : UserCursor.of(users.get(users.size() - 1)));
+    }
+
+    // Шарды обходятся по очереди; порядок сохраняется только внутри шарда
+    @Override
+    public long streamAll(Consumer<User> consumer) {
+        long count = 0;
+        for (UserDaoImpl shard : shards) {
+            count += shard.streamAll(consumer);
+        }
+        return count;
+    }
+
+    @Override
+    public long streamEmails(Consumer<String> consumer) {
+        long count = 0;
+        for (UserDaoImpl shard : shards) {
+            count += shard.streamEmails(consumer);
+        }
+        return count;
+    }
+
+    @Override
+    public User update(User user) {
+        int bucket = ShardMap.bucketOf(user.getId());
+        checkSameBucket(bucket, user.getEmail());
+        return withBucketsLocked(new int[]{bucket}, () -> shards.get(shardMap.shardOf(bucket)).update(user));
+    }
+
+    @Override
+    public Optional<User> patch(Long id, UserPatch patch) {
+        int bucket = ShardMap.bucketOf(id);
+        checkSameBucket(bucket, patch.getEmail());
+        return withBucketsLocked(new int[]{bucket}, () -> shards.get(shardMap.shardOf(bucket)).patch(id, patch));
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        int bucket = ShardMap.bucketOf(id);
+        return withBucketsLocked(new int[]{bucket}, () -> shards.get(shardMap.shardOf(bucket)).delete(id));
+    }
+
+    @Override
+    public long deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int[] buckets = new int[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            buckets[i++] = ShardMap.bucketOf(id);
+        }
+        return withBucketsLocked(buckets, () -> {
+            ShardMap map = shardMap;
+            List<List<Long>> idsByShard = new ArrayList<>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                idsByShard.add(new ArrayList<>());
+            }
+            for (Long id : ids) {
+                idsByShard.get(map.shardOf(ShardMap.bucketOf(id))).add(id);
+            }
+            List<Callable<Long>> tasks = new ArrayList<>();
+            for (int shard = 0; shard < shards.size(); shard++) {
+                List<Long> shardIds = idsByShard.get(shard);
+                if (!shardIds.isEmpty()) {
+                    UserDaoImpl target = shards.get(shard);
+                    tasks.add(() -> target.deleteAll(shardIds));
+                }
+            }
+            long deleted = 0;
+            for (Long shardDeleted : invokeAll(tasks)) {
+                deleted += shardDeleted;
+            }
+            return deleted;
+        });
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return shardForEmail(email).existsByEmail(email);
+    }
+
+    @Override
+    public long count() {
+        return count(CountMode.EXACT);
+    }
+
+    @Override
+    public long count(CountMode mode) {
+        long total = 0;
+        for (Long shardCount : scatter(shard -> shard.count(mode))) {
+            total += shardCount;
+        }
+        return total;
+    }
+
+    @Override
+    public void warmUp() {
+        scatter(shard -> {
+            shard.warmUp();
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        scatter.shutdownNow();
+        if (ownsSessionFactories) {
+            for (UserDaoImpl shard : shards) {
+                shard.sessionFactory().close();
+            }
+        }
+    }
+
+    /**
+     * Блокирует запись в бакеты на время переноса и переключает их на {@code targetShard}
+     * после успешного {@code copy}. Используется {@link ShardRebalancer}.
+     */
+    void moveBuckets(int[] buckets, int targetShard, Runnable copy) {
+        int[] sorted = sortedDistinct(buckets);
+        for (int bucket : sorted) {
+            bucketLocks[bucket].writeLock().lock();
+        }
+        try {
+            copy.run();
+            ShardMap map = shardMap;
+            for (int bucket : sorted) {
+                map = map.withBucket(bucket, targetShard);
+            }
+            shardMap = map;
+        } finally {
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                bucketLocks[sorted[i]].writeLock().unlock();
+            }
+        }
+    }
+
+    // Read-lock'и берутся по возрастанию бакета, как и write-lock'и ребалансировщика: без взаимоблокировок
+    private <T> T withBucketsLocked(int[] buckets, Supplier<T> action) {
+        int[] sorted = sortedDistinct(buckets);
+        for (int bucket : sorted) {
+            bucketLocks[bucket].readLock().lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                bucketLocks[sorted[i]].readLock().unlock();
+            }
+        }
+    }
+
+    private static int[] sortedDistinct(int[] buckets) {
+        return Arrays.stream(buckets).distinct().sorted().toArray();
+    }
+
+    private UserDaoImpl shardForEmail(String email) {
+        return shards.get(shardMap.shardOf(ShardMap.bucketOf(email)));
+    }
+
+    private static void checkSameBucket(int bucket, String email) {
+        if (email != null && ShardMap.bucketOf(email) != bucket) {
+            throw new IllegalArgumentException("Changing email to " + email
+                    + " would move the user to another shard bucket, which is not supported");
+        }
+    }
+
+    private <T> List<T> scatter(Function<UserDao, T> operation) {
+        List<Callable<T>> tasks = new ArrayList<>(shards.size());
+        for (UserDaoImpl shard : shards) {
+            tasks.add(() -> operation.apply(shard));
+        }
+        return invokeAll(tasks);
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        if (tasks.size() == 1) {
+            try {
+                return List.of(tasks.get(0).call());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException("Shard operation failed: " + e.getMessage(), e);
+            }
+        }
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : scatter.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime
+                    : new RuntimeException("Shard operation failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    // k-way merge отсортированных по NEWEST_FIRST списков: пропускает skip строк, берёт limit
+    static List<User> merge(List<List<User>> sortedLists, int skip, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> NEWEST_FIRST.compare(a.current(), b.current()));
+        for (List<User> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heads.add(new Cursor(list));
+            }
+        }
+        List<User> result = new ArrayList<>();
+        int skipped = 0;
+        while (!heads.isEmpty() && result.size() < limit) {
+            Cursor head = heads.poll();
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                result.add(head.current());
+            }
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    private static final class Cursor {
+        private final List<User> users;
+        private int position;
+
+        Cursor(List<User> users) {
+            this.users = users;
+        }
+
+        User current() {
+            return users.get(position);
+        }
+
+        boolean advance() {
+            return ++position < users.size();
+        }
+    }
+}
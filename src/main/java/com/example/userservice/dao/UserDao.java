@@ -1,17 +1,36 @@
 package com.example.userservice.dao;
 
 import com.example.userservice.model.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserDao {
     User save(User user);
+    // Одна команда INSERT ... ON CONFLICT; при занятом email бросает EmailAlreadyExistsException
+    User insert(User user);
+    BatchSaveResult saveAll(Collection<User> users);
     Optional<User> findById(Long id);
     Optional<User> findByEmail(String email);
     List<User> findAll();
+    /**
+     * @deprecated OFFSET-пагинация деградирует на глубоких страницах, используйте {@link #findPageAfter(UserCursor, int)}
+     */
+    @Deprecated
     List<User> findAll(int page, int size);
+    UserPage findPageAfter(UserCursor after, int size);
+    long streamAll(Consumer<User> consumer);
+    long streamEmails(Consumer<String> consumer);
     User update(User user);
+    // Один UPDATE только изменённых колонок; empty — пользователя нет
+    Optional<User> patch(Long id, UserPatch patch);
     boolean delete(Long id);
+    // Удаляет порциями в одной транзакции; возвращает число реально удалённых строк
+    long deleteAll(Collection<Long> ids);
     boolean existsByEmail(String email);
     long count();
+    long count(CountMode mode);
+    // Прогрев планов запросов и prepared statements при старте; ошибки только логируются
+    void warmUp();
 }
\ No newline at end of file
@@ -1,35 +1,107 @@
 package com.example.userservice.dao;
 
+import com.example.userservice.exception.EmailAlreadyExistsException;
+import com.example.userservice.exception.UserVersionConflictException;
 import com.example.userservice.model.User;
+import com.example.userservice.util.EmailValidator;
 import com.example.userservice.util.HibernateUtil;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.Cache;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class UserDaoImpl implements UserDao {
+    // Успешные операции над одной записью логируются на DEBUG: INFO на каждый вызов заметен в задержке под нагрузкой
     private static final Logger logger = LoggerFactory.getLogger(UserDaoImpl.class);
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // Одно значение массива на id; держит размер параметра и план DELETE предсказуемыми
+    static final int DELETE_CHUNK_SIZE = 10_000;
+    private static final long UNSEEDED = -1;
+    // Сколько соединений пула прогревать; по умолчанию hibernate.hikari.minimumIdle
+    public static final String WARMUP_CONNECTIONS = "hibernate.warmup.connections";
+
+    private final int batchSize;
+    // null — primary и реплики из HibernateUtil; иначе DAO привязан к одной базе (шард)
+    private final SessionFactory boundSessionFactory;
+    // Для CountMode.CACHED; учитывает только записи через этот экземпляр DAO
+    private final AtomicLong cachedCount = new AtomicLong(UNSEEDED);
+
+    public UserDaoImpl() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public UserDaoImpl(int batchSize) {
+        this(null, batchSize);
+    }
+
+    public UserDaoImpl(SessionFactory sessionFactory, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be a positive integer");
+        }
+        this.boundSessionFactory = sessionFactory;
+        this.batchSize = batchSize;
+    }
+
+    SessionFactory sessionFactory() {
+        return boundSessionFactory != null ? boundSessionFactory : HibernateUtil.getSessionFactory();
+    }
+
+    private void markWrite() {
+        if (boundSessionFactory == null) {
+            HibernateUtil.markWrite();
+        }
+    }
 
     @Override
     public User save(User user) {
         logger.debug("Attempting to save user: {}", user.getEmail());
         Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             tx = session.beginTransaction();
             session.persist(user);
             tx.commit();
-            logger.info("User saved successfully with ID: {}", user.getId());
+            markWrite();
+            adjustCount(1);
+            logger.debug("User saved successfully with ID: {}", user.getId());
             return user;
         } catch (ConstraintViolationException e) {
             if (tx != null && tx.isActive()) {
                 tx.rollback();
             }
             logger.error("Constraint violation while saving user: {}", user.getEmail(), e);
-            throw new RuntimeException("Email already exists: " + user.getEmail(), e);
+            throw new EmailAlreadyExistsException(user.getEmail());
         } catch (Exception e) {
             if (tx != null && tx.isActive()) {
                 tx.rollback();
@@ -40,16 +112,270 @@ public class UserDaoImpl implements UserDao {
     }
 
     @Override
-    public Optional<User> findById(Long id) {
-        logger.debug("Finding user by ID: {}", id);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            User user = session.get(User.class, id);
-            if (user != null) {
-                logger.debug("User found by ID {}: {}", id, user.getEmail());
+    public User insert(User user) {
+        return insert(user, IdMapper.IDENTITY);
+    }
+
+    User insert(User user, IdMapper idMapper) {
+        logger.debug("Attempting to insert user: {}", user.getEmail());
+        Transaction tx = null;
+        try (Session session = sessionFactory().openSession()) {
+            tx = session.beginTransaction();
+            // id берётся из того же pooled-генератора, что и у persist, обычно без обращения к базе
+            Long id = idMapper.map(user, generateId(session, user));
+            LocalDateTime createdAt = LocalDateTime.now();
+            int inserted = session.doReturningWork(connection -> executeInsert(connection, id, user, createdAt));
+            tx.commit();
+            markWrite();
+            if (inserted == 0) {
+                logger.warn("Email already exists, insert skipped: {}", user.getEmail());
+                throw new EmailAlreadyExistsException(user.getEmail());
+            }
+            user.setId(id);
+            user.setCreatedAt(createdAt);
+            user.setVersion(0L);
+            adjustCount(1);
+            logger.debug("User inserted successfully with ID: {}", id);
+            return user;
+        } catch (EmailAlreadyExistsException e) {
+            throw e;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) {
+                tx.rollback();
+            }
+            logger.error("Error inserting user: {}", user.getEmail(), e);
+            throw new RuntimeException("Failed to insert user: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Обычный JDBC, а не native-запрос Hibernate: тот синхронизируется с пространством users и
+     * при каждом вызове очищает весь регион сущностей и natural-id. Новая строка ни одну
+     * запись кэша не делает устаревшей. Пропускается только конфликт по uk_users_email_lower:
+     * нарушение первичного ключа или другого ограничения остаётся ошибкой, а не «email занят».
+     */
+    private static int executeInsert(Connection connection, Long id, User user, LocalDateTime createdAt)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO users (id, name, email, age, created_at, version) "
+                        + "VALUES (?, ?, ?, ?, ?, 0) ON CONFLICT ((lower(email))) DO NOTHING")) {
+            statement.setLong(1, id);
+            statement.setString(2, user.getName());
+            statement.setString(3, user.getEmail());
+            statement.setObject(4, user.getAge(), Types.INTEGER);
+            statement.setObject(5, createdAt);
+            return statement.executeUpdate();
+        }
+    }
+
+    // Чтение с реплики, если она настроена; при ошибке реплики запрос повторяется на primary
+    private <T> T read(Function<Session, T> work) {
+        return read(session -> null, work);
+    }
+
+    /**
+     * У фабрик реплик нет second-level cache, поэтому перед репликой cached смотрит в кэш primary
+     * (без обращения к базе) и возвращает null при промахе — только тогда запрос идёт на реплику.
+     */
+    private <T> T read(Function<Session, T> cached, Function<Session, T> work) {
+        SessionFactory primary = sessionFactory();
+        SessionFactory replica = boundSessionFactory != null ? null : HibernateUtil.getReadSessionFactory();
+        if (replica != null && replica != primary) {
+            try (Session session = primary.openSession()) {
+                T hit = cached.apply(session);
+                if (hit != null) {
+                    return hit;
+                }
+            }
+            try (Session session = replica.openSession()) {
+                session.setDefaultReadOnly(true);
+                return work.apply(session);
+            } catch (RuntimeException e) {
+                HibernateUtil.reportReplicaFailure(replica, e);
+            }
+        }
+        try (Session session = primary.openSession()) {
+            return work.apply(session);
+        }
+    }
+
+    /**
+     * Вставляет чанк одним INSERT ... SELECT FROM unnest(...) ON CONFLICT ((lower(email))) DO NOTHING
+     * RETURNING id.
+     * Пользователи с уже занятым email попадают в failures, как и весь чанк при ошибке базы.
+     * indexes — позиции пользователей во входной коллекции.
+     */
+    void insertChunk(List<User> chunk, List<Integer> indexes, IdMapper idMapper, BatchSaveResult result) {
+        logger.debug("Inserting chunk of {} users", chunk.size());
+        try (Session session = sessionFactory().openSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                Long[] ids = new Long[chunk.size()];
+                String[] names = new String[chunk.size()];
+                String[] emails = new String[chunk.size()];
+                Integer[] ages = new Integer[chunk.size()];
+                for (int i = 0; i < chunk.size(); i++) {
+                    User user = chunk.get(i);
+                    ids[i] = idMapper.map(user, generateId(session, user));
+                    names[i] = user.getName();
+                    emails[i] = user.getEmail();
+                    ages[i] = user.getAge();
+                }
+                LocalDateTime createdAt = LocalDateTime.now();
+                Set<Long> inserted = session.doReturningWork(
+                        connection -> executeInsertChunk(connection, ids, names, emails, ages, createdAt));
+                tx.commit();
+                markWrite();
+                adjustCount(inserted.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    User user = chunk.get(i);
+                    if (inserted.contains(ids[i])) {
+                        user.setId(ids[i]);
+                        user.setCreatedAt(createdAt);
+                        user.setVersion(0L);
+                        result.addSaved(user);
+                    } else {
+                        result.addFailure(indexes.get(i), user, new EmailAlreadyExistsException(user.getEmail()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Откатываем внутри try: к catch ниже сессия уже закрыта
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+        } catch (Exception e) {
+            logger.error("Error inserting chunk of {} users", chunk.size(), e);
+            RuntimeException failure = new RuntimeException("Failed to insert user: " + e.getMessage(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                result.addFailure(indexes.get(i), chunk.get(i), failure);
+            }
+        }
+    }
+
+    private static Set<Long> executeInsertChunk(Connection connection, Long[] ids, String[] names, String[] emails,
+                                                Integer[] ages, LocalDateTime createdAt) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO users (id, name, email, age, created_at, version) "
+                        + "SELECT id, name, email, age, ?, 0 FROM unnest(CAST(? AS bigint[]), CAST(? AS text[]), "
+                        + "CAST(? AS text[]), CAST(? AS int[])) AS t(id, name, email, age) "
+                        + "ON CONFLICT ((lower(email))) DO NOTHING RETURNING id")) {
+            statement.setObject(1, createdAt);
+            statement.setArray(2, connection.createArrayOf("bigint", ids));
+            statement.setArray(3, connection.createArrayOf("text", names));
+            statement.setArray(4, connection.createArrayOf("text", emails));
+            statement.setArray(5, connection.createArrayOf("int4", ages));
+            Set<Long> inserted = new HashSet<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    inserted.add(rs.getLong(1));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private static Long generateId(Session session, User user) {
+        SharedSessionContractImplementor implementor = session.unwrap(SharedSessionContractImplementor.class);
+        // Для users_seq это всегда генератор до выполнения INSERT (SequenceStyleGenerator)
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) implementor.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(User.class)
+                .getGenerator();
+        return (Long) generator.generate(implementor, user, null, EventType.INSERT);
+    }
+
+    @Override
+    public BatchSaveResult saveAll(Collection<User> users) {
+        logger.debug("Attempting to save {} users in chunks of {}", users.size(), batchSize);
+        BatchSaveResult result = new BatchSaveResult();
+        List<User> chunk = new ArrayList<>(Math.min(batchSize, users.size()));
+        int offset = 0;
+        try (Session session = sessionFactory().openSession()) {
+            session.setJdbcBatchSize(batchSize);
+            for (User user : users) {
+                chunk.add(user);
+                if (chunk.size() == batchSize) {
+                    saveChunk(session, chunk, offset, result);
+                    offset += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                saveChunk(session, chunk, offset, result);
+            }
+        } catch (Exception e) {
+            logger.error("Error saving users in batch", e);
+            throw new RuntimeException("Failed to save users in batch: " + e.getMessage(), e);
+        } finally {
+            // Чанки коммитятся по отдельности, поэтому учитываем сохранённые и при ошибке
+            adjustCount(result.getSavedCount());
+        }
+        logger.info("Batch save finished: {} saved, {} failed", result.getSavedCount(), result.getFailedCount());
+        return result;
+    }
+
+    // Один чанк = одна транзакция; INSERT'ы уходят одним JDBC batch при commit
+    private void saveChunk(Session session, List<User> chunk, int offset, BatchSaveResult result) {
+        Transaction tx = session.beginTransaction();
+        try {
+            for (User user : chunk) {
+                session.persist(user);
+            }
+            tx.commit();
+            markWrite();
+            chunk.forEach(result::addSaved);
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            logger.warn("Batch of {} users failed, retrying row by row: {}", chunk.size(), e.getMessage());
+            session.clear();
+            chunk.forEach(user -> user.setId(null));
+            for (int i = 0; i < chunk.size(); i++) {
+                saveSingle(session, chunk.get(i), offset + i, result);
+            }
+        } finally {
+            session.clear();
+        }
+    }
+
+    private void saveSingle(Session session, User user, int index, BatchSaveResult result) {
+        Transaction tx = session.beginTransaction();
+        try {
+            session.persist(user);
+            tx.commit();
+            markWrite();
+            result.addSaved(user);
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            session.clear();
+            user.setId(null);
+            if (e instanceof ConstraintViolationException) {
+                logger.warn("Constraint violation while saving user: {}", user.getEmail());
+                result.addFailure(index, user, new EmailAlreadyExistsException(user.getEmail()));
             } else {
-                logger.debug("User not found by ID: {}", id);
+                logger.warn("Error saving user: {}", user.getEmail(), e);
+                result.addFailure(index, user, e);
             }
-            return Optional.ofNullable(user);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        try {
+            return read(session -> cachedUser(session, id), session -> {
+                User user = session.get(User.class, id);
+                if (user != null) {
+                    logger.debug("User found by ID {}: {}", id, user.getEmail());
+                } else {
+                    logger.debug("User not found by ID: {}", id);
+                }
+                return Optional.ofNullable(user);
+            });
         } catch (Exception e) {
             logger.error("Error finding user by ID: {}", id, e);
             throw new RuntimeException("Failed to find user by ID: " + id, e);
@@ -58,17 +384,18 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public Optional<User> findByEmail(String email) {
-        logger.debug("Finding user by email: {}", email);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            User user = session.createQuery("FROM User u WHERE u.email = :email", User.class)
-                    .setParameter("email", email.toLowerCase())
-                    .uniqueResult();
-            if (user != null) {
-                logger.debug("User found by email: {}", email);
-            } else {
-                logger.debug("User not found by email: {}", email);
-            }
-            return Optional.ofNullable(user);
+        try {
+            String lookupKey = EmailValidator.lookupKey(email);
+            return read(session -> cachedUserByEmail(session, lookupKey), session -> {
+                // email -> id резолвится через natural-id cache, сама сущность берётся из second-level cache
+                User user = session.bySimpleNaturalId(User.class).load(lookupKey);
+                if (user != null) {
+                    logger.debug("User found by email: {}", email);
+                } else {
+                    logger.debug("User not found by email: {}", email);
+                }
+                return Optional.ofNullable(user);
+            });
         } catch (Exception e) {
             logger.error("Error finding user by email: {}", email, e);
             throw new RuntimeException("Failed to find user by email: " + email, e);
@@ -78,8 +405,8 @@ public class UserDaoImpl implements UserDao {
     @Override
     public List<User> findAll() {
         logger.debug("Finding all users");
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("FROM User u ORDER BY u.createdAt DESC", User.class).list();
+        try {
+            return read(session -> session.createNamedQuery(User.FIND_ALL, User.class).list());
         } catch (Exception e) {
             logger.error("Error finding all users", e);
             throw new RuntimeException("Failed to retrieve users", e);
@@ -87,26 +414,114 @@ public class UserDaoImpl implements UserDao {
     }
 
     @Override
+    public long streamAll(Consumer<User> consumer) {
+        logger.debug("Streaming all users with fetch size: {}", STREAM_FETCH_SIZE);
+        Transaction tx = null;
+        // StatelessSession не держит persistence context, поэтому память не растёт с размером таблицы
+        try (StatelessSession session = sessionFactory().openStatelessSession()) {
+            // PostgreSQL использует серверный курсор с fetch size только вне autocommit
+            tx = session.beginTransaction();
+            long count = 0;
+            try (ScrollableResults<User> results = session
+                    .createNamedQuery(User.FIND_ALL_KEYSET, User.class)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    consumer.accept(results.get());
+                    count++;
+                }
+            }
+            tx.commit();
+            logger.debug("Streamed {} users", count);
+            return count;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) {
+                tx.rollback();
+            }
+            logger.error("Error streaming users", e);
+            throw new RuntimeException("Failed to stream users", e);
+        }
+    }
+
+    @Override
+    public long streamEmails(Consumer<String> consumer) {
+        logger.debug("Streaming all user emails with fetch size: {}", STREAM_FETCH_SIZE);
+        Transaction tx = null;
+        try (StatelessSession session = sessionFactory().openStatelessSession()) {
+            tx = session.beginTransaction();
+            long count = 0;
+            try (ScrollableResults<String> results = session
+                    .createNamedQuery(User.FIND_ALL_EMAILS, String.class)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    consumer.accept(results.get());
+                    count++;
+                }
+            }
+            tx.commit();
+            return count;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) {
+                tx.rollback();
+            }
+            logger.error("Error streaming user emails", e);
+            throw new RuntimeException("Failed to stream user emails", e);
+        }
+    }
+
+    @Override
+    @Deprecated
     public List<User> findAll(int page, int size) {
         logger.debug("Finding users - page: {}, size: {}", page, size);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("FROM User u ORDER BY u.createdAt DESC", User.class)
+        try {
+            return read(session -> session.createNamedQuery(User.FIND_ALL, User.class)
                     .setFirstResult((page - 1) * size)
                     .setMaxResults(size)
-                    .list();
+                    .list());
         } catch (Exception e) {
             logger.error("Error finding users with pagination", e);
             throw new RuntimeException("Failed to retrieve users with pagination", e);
         }
     }
 
+    @Override
+    public UserPage findPageAfter(UserCursor after, int size) {
+        logger.debug("Finding users after cursor: {}, size: {}", after, size);
+        try {
+            return read(session -> {
+                Query<User> query;
+                if (after == null) {
+                    query = session.createNamedQuery(User.FIND_ALL_KEYSET, User.class);
+                } else {
+                    query = session.createNamedQuery(User.FIND_PAGE_AFTER, User.class)
+                            .setParameter("createdAt", after.getCreatedAt())
+                            .setParameter("id", after.getId());
+                }
+                // Берём на одну строку больше, чтобы понять, есть ли следующая страница
+                List<User> rows = query.setMaxResults(size + 1).list();
+                if (rows.size() <= size) {
+                    return new UserPage(rows, null);
+                }
+                List<User> users = new ArrayList<>(rows.subList(0, size));
+                return new UserPage(users, UserCursor.of(users.get(size - 1)));
+            });
+        } catch (Exception e) {
+            logger.error("Error finding users after cursor: {}", after, e);
+            throw new RuntimeException("Failed to retrieve users page", e);
+        }
+    }
+
     @Override
     public User update(User user) {
         Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             tx = session.beginTransaction();
             User mergedUser = session.merge(user);
             tx.commit();
+            markWrite();
             return mergedUser;
         } catch (Exception e) {
             if (tx != null && tx.isActive()) {
@@ -116,39 +531,268 @@ public class UserDaoImpl implements UserDao {
         }
     }
 
+    @Override
+    public Optional<User> patch(Long id, UserPatch patch) {
+        if (patch.isEmpty()) {
+            throw new IllegalArgumentException("Patch must change at least one column");
+        }
+        logger.debug("Patching user with ID: {} - {}", id, patch);
+        try (Session session = sessionFactory().openSession()) {
+            Optional<User> patched;
+            String[] previousEmail = new String[1];
+            // Откатываем внутри try: к catch ниже сессия уже закрыта
+            Transaction tx = session.beginTransaction();
+            try {
+                patched = session.doReturningWork(connection -> executePatch(connection, id, patch, previousEmail));
+                tx.commit();
+                markWrite();
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+            // UPDATE выполнен в обход Hibernate, поэтому записи second-level cache сбрасываем сами
+            Cache cache = session.getSessionFactory().getCache();
+            cache.evictEntityData(User.class, id);
+            if (previousEmail[0] != null && !previousEmail[0].equals(patch.getEmail())) {
+                evictNaturalIds(session, List.of(previousEmail[0]));
+            }
+            patched.ifPresentOrElse(
+                    user -> logger.debug("User patched successfully with ID: {}, version: {}", id, user.getVersion()),
+                    () -> logger.warn("User not found for patch with ID: {}", id));
+            return patched;
+        } catch (ConstraintViolationException e) {
+            logger.error("Constraint violation while patching user with ID: {}", id, e);
+            throw new EmailAlreadyExistsException(patch.getEmail());
+        } catch (UserVersionConflictException e) {
+            logger.warn("Version conflict while patching user with ID: {}", id);
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error patching user with ID: {}", id, e);
+            throw new RuntimeException("Failed to patch user: " + e.getMessage(), e);
+        }
+    }
+
+    private static Optional<User> executePatch(Connection connection, Long id, UserPatch patch,
+                                               String[] previousEmail) throws SQLException {
+        List<Object> values = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        if (patch.getEmail() != null) {
+            // Прежний email нужен, чтобы сбросить только его запись в natural-id cache;
+            // FOR UPDATE читает последнюю зафиксированную версию строки
+            sql.append("WITH previous AS (SELECT email FROM users WHERE id = ? FOR UPDATE) ");
+            values.add(id);
+        }
+        sql.append("UPDATE users SET ");
+        if (patch.getName() != null) {
+            sql.append("name = ?, ");
+            values.add(patch.getName());
+        }
+        if (patch.getEmail() != null) {
+            sql.append("email = ?, ");
+            values.add(patch.getEmail());
+        }
+        if (patch.getAge() != null) {
+            sql.append("age = ?, ");
+            values.add(patch.getAge());
+        }
+        sql.append("version = version + 1 WHERE id = ?");
+        values.add(id);
+        if (patch.getExpectedVersion() != null) {
+            sql.append(" AND version = ?");
+            values.add(patch.getExpectedVersion());
+        }
+        sql.append(" RETURNING id, name, email, age, created_at, version");
+        if (patch.getEmail() != null) {
+            sql.append(", (SELECT email FROM previous) AS previous_email");
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    if (patch.getEmail() != null) {
+                        previousEmail[0] = rs.getString("previous_email");
+                    }
+                    return Optional.of(mapUser(rs));
+                }
+            }
+        }
+        if (patch.getExpectedVersion() == null) {
+            return Optional.empty();
+        }
+        // Ноль строк при заданной версии: пользователя нет или версия уже другая — различаем только здесь
+        try (PreparedStatement statement = connection.prepareStatement("SELECT version FROM users WHERE id = ?")) {
+            statement.setLong(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    throw new UserVersionConflictException(id, patch.getExpectedVersion(), rs.getLong(1));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        User user = new User(rs.getString("name"), rs.getString("email"), rs.getObject("age", Integer.class));
+        user.setId(rs.getLong("id"));
+        user.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        user.setVersion(rs.getLong("version"));
+        return user;
+    }
+
     @Override
     public boolean delete(Long id) {
         logger.debug("Deleting user with ID: {}", id);
-        Transaction tx = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            tx = session.beginTransaction();
-            User user = session.get(User.class, id);
-            if (user != null) {
-                session.remove(user);
+        return deleteInTransaction(List.of(id)) > 0;
+    }
+
+    @Override
+    public long deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        logger.debug("Deleting {} users in chunks of {}", ids.size(), DELETE_CHUNK_SIZE);
+        return deleteInTransaction(ids);
+    }
+
+    // Без предварительного SELECT: DELETE ... WHERE id = ANY(?) порциями в одной транзакции
+    private long deleteInTransaction(Collection<Long> ids) {
+        try (Session session = sessionFactory().openSession()) {
+            List<String> emails;
+            // Откатываем внутри try: к catch ниже сессия уже закрыта
+            Transaction tx = session.beginTransaction();
+            try {
+                emails = session.doReturningWork(connection -> executeDelete(connection, ids));
                 tx.commit();
-                logger.info("User deleted successfully with ID: {}", id);
-                return true;
+                markWrite();
+                adjustCount(-emails.size());
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+            // DELETE выполнен в обход Hibernate: сбрасываем сущности и email -> id удалённых строк
+            Cache cache = session.getSessionFactory().getCache();
+            ids.forEach(id -> cache.evictEntityData(User.class, id));
+            evictNaturalIds(session, emails);
+            long deleted = emails.size();
+            if (ids.size() == 1) {
+                Long id = ids.iterator().next();
+                if (deleted > 0) {
+                    logger.debug("User deleted successfully with ID: {}", id);
+                } else {
+                    logger.warn("User not found for deletion with ID: {}", id);
+                }
             } else {
-                logger.warn("User not found for deletion with ID: {}", id);
-                return false;
+                logger.info("Deleted {} of {} requested users", deleted, ids.size());
             }
+            return deleted;
         } catch (Exception e) {
-            if (tx != null && tx.isActive()) {
-                tx.rollback();
+            logger.error("Error deleting {} user(s)", ids.size(), e);
+            if (ids.size() == 1) {
+                throw new RuntimeException("Failed to delete user with ID: " + ids.iterator().next(), e);
+            }
+            throw new RuntimeException("Failed to delete users: " + e.getMessage(), e);
+        }
+    }
+
+    // Возвращает email удалённых строк: по ним сбрасываются записи natural-id cache
+    private static List<String> executeDelete(Connection connection, Collection<Long> ids) throws SQLException {
+        List<String> emails = new ArrayList<>();
+        if (ids.size() == 1) {
+            try (PreparedStatement statement =
+                         connection.prepareStatement("DELETE FROM users WHERE id = ? RETURNING email")) {
+                statement.setLong(1, ids.iterator().next());
+                readEmails(statement, emails);
+            }
+            return emails;
+        }
+        try (PreparedStatement statement =
+                     connection.prepareStatement("DELETE FROM users WHERE id = ANY(?) RETURNING email")) {
+            List<Long> chunk = new ArrayList<>(Math.min(ids.size(), DELETE_CHUNK_SIZE));
+            for (Long id : ids) {
+                chunk.add(id);
+                if (chunk.size() == DELETE_CHUNK_SIZE) {
+                    deleteChunk(connection, statement, chunk, emails);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                deleteChunk(connection, statement, chunk, emails);
             }
-            logger.error("Error deleting user with ID: {}", id, e);
-            throw new RuntimeException("Failed to delete user with ID: " + id, e);
+        }
+        return emails;
+    }
+
+    private static void deleteChunk(Connection connection, PreparedStatement statement, List<Long> chunk,
+                                    List<String> emails) throws SQLException {
+        Array array = connection.createArrayOf("bigint", chunk.toArray());
+        try {
+            statement.setArray(1, array);
+            readEmails(statement, emails);
+        } finally {
+            array.free();
         }
     }
 
+    private static void readEmails(PreparedStatement statement, List<String> emails) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                emails.add(rs.getString(1));
+            }
+        }
+    }
+
+    // Сбрасывает из natural-id cache только записи email -> id этих адресов, а не весь регион
+    private static void evictNaturalIds(Session session, Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        SharedSessionContractImplementor implementor = session.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = implementor.getFactory().getMappingMetamodel().getEntityDescriptor(User.class);
+        NaturalIdDataAccess naturalIds = persister.getNaturalIdCacheAccessStrategy();
+        if (naturalIds == null) {
+            // Фабрика без second-level cache
+            return;
+        }
+        for (String email : emails) {
+            naturalIds.evict(naturalIds.generateCacheKey(email, persister, implementor));
+        }
+    }
+
+    // Пользователь из second-level cache; null — в кэше его нет, в базу не ходим
+    private static Optional<User> cachedUser(Session session, Object id) {
+        if (id == null || !session.getSessionFactory().getCache().containsEntity(User.class, id)) {
+            return null;
+        }
+        return Optional.ofNullable(session.get(User.class, id));
+    }
+
+    private static Optional<User> cachedUserByEmail(Session session, String lookupKey) {
+        SharedSessionContractImplementor implementor = session.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = implementor.getFactory().getMappingMetamodel().getEntityDescriptor(User.class);
+        NaturalIdDataAccess naturalIds = persister.getNaturalIdCacheAccessStrategy();
+        if (naturalIds == null) {
+            return null;
+        }
+        Object id = naturalIds.get(implementor, naturalIds.generateCacheKey(lookupKey, persister, implementor));
+        return cachedUser(session, id);
+    }
+
     @Override
     public boolean existsByEmail(String email) {
-        logger.debug("Checking if user exists with email: {}", email);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Long count = session.createQuery("SELECT COUNT(u) FROM User u WHERE u.email = :email", Long.class)
-                    .setParameter("email", email.toLowerCase())
-                    .uniqueResult();
-            return count != null && count > 0;
+        try {
+            return read(session -> {
+                Long count = session.createNamedQuery(User.COUNT_BY_EMAIL, Long.class)
+                        .setParameter("email", EmailValidator.lookupKey(email))
+                        .uniqueResult();
+                return count != null && count > 0;
+            });
         } catch (Exception e) {
             logger.error("Error checking email existence: {}", email, e);
             throw new RuntimeException("Failed to check email existence: " + email, e);
@@ -157,14 +801,120 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public long count() {
-        logger.debug("Counting all users");
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Long count = session.createQuery("SELECT COUNT(u) FROM User u", Long.class)
-                    .uniqueResult();
-            return count != null ? count : 0;
+        return count(CountMode.EXACT);
+    }
+
+    @Override
+    public long count(CountMode mode) {
+        switch (mode) {
+            case CACHED:
+                long cached = cachedCount.get();
+                if (cached != UNSEEDED) {
+                    return cached;
+                }
+                cachedCount.compareAndSet(UNSEEDED, countExact());
+                return cachedCount.get();
+            case ESTIMATED:
+                long estimated = countEstimated();
+                // -1: таблицу ещё не анализировали, оценки нет
+                return estimated >= 0 ? estimated : count(CountMode.CACHED);
+            default:
+                long exact = countExact();
+                // Точный подсчёт заодно исправляет накопившийся дрейф счётчика
+                cachedCount.set(exact);
+                return exact;
+        }
+    }
+
+    private long countExact() {
+        try {
+            return read(session -> {
+                Long count = session.createNamedQuery(User.COUNT_ALL, Long.class).uniqueResult();
+                return count != null ? count : 0;
+            });
         } catch (Exception e) {
             logger.error("Error counting users", e);
             throw new RuntimeException("Failed to count users", e);
         }
     }
-}
\ No newline at end of file
+
+    private long countEstimated() {
+        logger.debug("Estimating user count from planner statistics");
+        try {
+            return read(session -> {
+                Long estimate = session.createNamedQuery(User.COUNT_ESTIMATED, Long.class).uniqueResult();
+                return estimate != null ? estimate : UNSEEDED;
+            });
+        } catch (Exception e) {
+            logger.error("Error estimating user count", e);
+            throw new RuntimeException("Failed to estimate user count", e);
+        }
+    }
+
+    /**
+     * Выполняет горячие запросы по разу на каждом из нескольких соединений пула: HQL транслируется
+     * в SQL и попадает в кэш планов Hibernate, а при prepareThreshold=1 PostgreSQL сразу держит
+     * серверные prepared statements. Первый настоящий запрос после старта не платит за это сам.
+     */
+    @Override
+    public void warmUp() {
+        long started = System.nanoTime();
+        // Сессии держат свои соединения до закрытия, поэтому каждая прогревает отдельное соединение
+        List<Session> sessions = new ArrayList<>();
+        try {
+            SessionFactory factory = sessionFactory();
+            int connections = warmupConnections(factory);
+            for (int i = 0; i < connections; i++) {
+                Session session = factory.openSession();
+                sessions.add(session);
+                session.setDefaultReadOnly(true);
+                session.setCacheMode(CacheMode.IGNORE);
+                runWarmupQueries(session);
+            }
+            logger.info("Warmed up queries on {} connection(s) in {} ms", connections,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (Exception e) {
+            // Прогрев только ускоряет первые запросы, его ошибка не должна мешать старту
+            logger.warn("Query warm-up failed: {}", e.getMessage(), e);
+        } finally {
+            sessions.forEach(Session::close);
+        }
+    }
+
+    // Значения параметров не совпадают ни с одной строкой: важны планы, а не результаты
+    private static void runWarmupQueries(Session session) {
+        session.get(User.class, -1L);
+        session.bySimpleNaturalId(User.class).load("warm-up@invalid");
+        session.createNamedQuery(User.COUNT_BY_EMAIL, Long.class).setParameter("email", "warm-up@invalid").uniqueResult();
+        session.createNamedQuery(User.FIND_ALL, User.class).setFirstResult(1).setMaxResults(1).list();
+        session.createNamedQuery(User.FIND_ALL_KEYSET, User.class).setMaxResults(1).list();
+        session.createNamedQuery(User.FIND_PAGE_AFTER, User.class)
+                .setParameter("createdAt", LocalDateTime.of(1970, 1, 1, 0, 0))
+                .setParameter("id", -1L)
+                .setMaxResults(1)
+                .list();
+        // COUNT_ALL не прогревается: на большой таблице это полный проход
+        session.createNamedQuery(User.COUNT_ESTIMATED, Long.class).uniqueResult();
+    }
+
+    private static int warmupConnections(SessionFactory factory) {
+        Object value = factory.getProperties().get(WARMUP_CONNECTIONS);
+        if (value == null) {
+            value = factory.getProperties().get("hibernate.hikari.minimumIdle");
+        }
+        return value == null ? 1 : Math.max(0, Integer.parseInt(value.toString().trim()));
+    }
+
+    private void adjustCount(long delta) {
+        if (delta != 0) {
+            cachedCount.getAndUpdate(current -> current == UNSEEDED ? UNSEEDED : Math.max(0, current + delta));
+        }
+    }
+
+    // Превращает значение последовательности в итоговый id (для шардированных id, см. ShardMap)
+    interface IdMapper {
+        IdMapper IDENTITY = (user, sequenceValue) -> sequenceValue;
+
+        long map(User user, long sequenceValue);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.userservice.dao;
+
+import com.example.userservice.model.User;
+
+import java.util.Collections;
+import java.util.List;
+
+public class UserPage {
+    private final List<User> users;
+    private final UserCursor nextCursor;
+
+    public UserPage(List<User> users, UserCursor nextCursor) {
+        this.users = Collections.unmodifiableList(users);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    // null, если это последняя страница
+    public UserCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return users.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserPage[size=%d, hasNext=%s]", users.size(), hasNext());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.userservice.dao;
+
+/**
+ * Частичное обновление пользователя: null-поле не меняется. Если задана ожидаемая версия,
+ * UPDATE выполнится только при её совпадении с текущей.
+ */
+public final class UserPatch {
+    private final String name;
+    private final String email;
+    private final Integer age;
+    private final Long expectedVersion;
+
+    public UserPatch(String name, String email, Integer age) {
+        this(name, email, age, null);
+    }
+
+    public UserPatch(String name, String email, Integer age, Long expectedVersion) {
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public boolean isEmpty() {
+        return name == null && email == null && age == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserPatch[name=%s, email=%s, age=%s, expectedVersion=%s]",
+                name, email, age, expectedVersion);
+    }
+}
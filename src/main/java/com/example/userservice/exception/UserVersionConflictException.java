@@ -0,0 +1,8 @@
+package com.example.userservice.exception;
+
+public class UserVersionConflictException extends RuntimeException {
+    public UserVersionConflictException(Long id, Long expectedVersion, Long actualVersion) {
+        super("User with id " + id + " was modified concurrently: expected version "
+                + expectedVersion + ", actual " + actualVersion);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.userservice.io;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+public class ExportResult {
+    private final long rows;
+    private final long bytes;
+    private final List<Path> files;
+    private final Duration elapsed;
+
+    public ExportResult(long rows, long bytes, List<Path> files, Duration elapsed) {
+        this.rows = rows;
+        this.bytes = bytes;
+        this.files = List.copyOf(files);
+        this.elapsed = elapsed;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    // Объём до сжатия
+    public long getBytes() {
+        return bytes;
+    }
+
+    public List<Path> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExportResult[rows=%d, bytes=%d, files=%d, elapsed=%d ms, %.0f rows/s]",
+                rows, bytes, files.size(), elapsed.toMillis(), getRowsPerSecond());
+    }
+}
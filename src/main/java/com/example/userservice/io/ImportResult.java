@@ -0,0 +1,58 @@
+package com.example.userservice.io;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class ImportResult {
+    private final long rowsRead;
+    private final long imported;
+    private final long rejected;
+    private final long bytesRead;
+    private final Duration elapsed;
+    private final Path rejectFile;
+
+    public ImportResult(long rowsRead, long imported, long rejected, long bytesRead, Duration elapsed, Path rejectFile) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.bytesRead = bytesRead;
+        this.elapsed = elapsed;
+        this.rejectFile = rejectFile;
+    }
+
+    // Строки данных без заголовка и пустых строк
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public Path getRejectFile() {
+        return rejectFile;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportResult[read=%d, imported=%d, rejected=%d, elapsed=%d ms, %.0f rows/s]",
+                rowsRead, imported, rejected, elapsed.toMillis(), getRowsPerSecond());
+    }
+}
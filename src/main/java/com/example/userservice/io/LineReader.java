@@ -0,0 +1,96 @@
+package com.example.userservice.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Построчное чтение UTF-8 файла через FileChannel крупными блоками. Строка длиннее буфера
+ * увеличивает буфер; завершающие \r (CRLF) и BOM в начале файла отбрасываются.
+ */
+final class LineReader implements AutoCloseable {
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private int lineStart;
+    private boolean eof;
+    private long bytesRead;
+    private boolean firstLine = true;
+
+    LineReader(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    // null — конец файла
+    String readLine() throws IOException {
+        while (true) {
+            byte[] array = buffer.array();
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                if (array[i] == '\n') {
+                    String line = decode(lineStart, i);
+                    buffer.position(i + 1);
+                    lineStart = i + 1;
+                    return line;
+                }
+            }
+            buffer.position(buffer.limit());
+            if (eof) {
+                if (lineStart == buffer.limit()) {
+                    return null;
+                }
+                String line = decode(lineStart, buffer.limit());
+                lineStart = buffer.limit();
+                return line;
+            }
+            fill();
+        }
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    // Сдвигает незавершённую строку в начало буфера и дочитывает следующий блок
+    private void fill() throws IOException {
+        int pending = buffer.limit() - lineStart;
+        if (pending == buffer.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+            grown.put(buffer.array(), lineStart, pending);
+            buffer = grown;
+        } else {
+            buffer.position(lineStart);
+            buffer.compact();
+        }
+        int read = channel.read(buffer);
+        if (read < 0) {
+            eof = true;
+        } else {
+            bytesRead += read;
+        }
+        buffer.flip();
+        buffer.position(pending);
+        lineStart = 0;
+    }
+
+    private String decode(int from, int to) {
+        int end = to > from && buffer.get(to - 1) == '\r' ? to - 1 : to;
+        int start = from;
+        if (firstLine) {
+            firstLine = false;
+            if (end - start >= 3 && (buffer.get(start) & 0xFF) == 0xEF
+                    && (buffer.get(start + 1) & 0xFF) == 0xBB && (buffer.get(start + 2) & 0xFF) == 0xBF) {
+                start += 3;
+            }
+        }
+        return new String(buffer.array(), start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
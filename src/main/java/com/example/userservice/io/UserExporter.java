@@ -0,0 +1,272 @@
+package com.example.userservice.io;
+
+import com.example.userservice.util.HibernateUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Выгрузка таблицы users в CSV / JSON Lines (опционально gzip). Строки читаются
+ * серверным курсором (fetch size) и кодируются {@link UserRecordEncoder} прямо в буфер
+ * фиксированного размера, поэтому память не растёт с числом строк. В параллельном режиме
+ * диапазон id делится между потоками, каждый пишет свой part-файл.
+ */
+public class UserExporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserExporter.class);
+
+    public static final int DEFAULT_FETCH_SIZE = 5000;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+    private static final String SELECT_RANGE =
+            "SELECT id, name, email, age, created_at FROM users WHERE id BETWEEN ? AND ? ORDER BY id";
+    private static final String SELECT_QUANTILES =
+            "SELECT percentile_disc(CAST(? AS float8[])) WITHIN GROUP (ORDER BY id) FROM users";
+
+    private final int fetchSize;
+
+    public UserExporter() {
+        this(DEFAULT_FETCH_SIZE);
+    }
+
+    public UserExporter(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be a positive integer");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    public ExportResult export(Path target) {
+        return export(target, 1);
+    }
+
+    // Формат и сжатие по имени файла: users.csv, users.jsonl.gz, ...
+    public ExportResult export(Path target, int parts) {
+        return export(target, UserFileFormat.fromFileName(target), UserFileFormat.isGzip(target), parts);
+    }
+
+    public ExportResult export(Path target, UserFileFormat format, boolean gzip, int parts) {
+        if (parts < 1) {
+            throw new IllegalArgumentException("Parts must be a positive integer");
+        }
+        logger.info("Exporting users to {} ({}, gzip: {}, parts: {})", target, format, gzip, parts);
+        long started = System.nanoTime();
+        List<PartResult> results;
+        if (parts == 1) {
+            results = List.of(exportRange(HibernateUtil.getSessionFactory(), target, format, gzip,
+                    Long.MIN_VALUE, Long.MAX_VALUE));
+        } else {
+            results = exportParallel(target, format, gzip, parts);
+        }
+
+        long rows = 0;
+        long bytes = 0;
+        List<Path> files = new ArrayList<>(results.size());
+        for (PartResult part : results) {
+            rows += part.rows;
+            bytes += part.bytes;
+            files.add(part.file);
+        }
+        ExportResult result = new ExportResult(rows, bytes, files, Duration.ofNanos(System.nanoTime() - started));
+        logger.info("Export to {} finished: {}", target, result);
+        return result;
+    }
+
+    // Границы частей — квантили id, поэтому части равны по числу строк даже при разреженных id
+    private List<PartResult> exportParallel(Path target, UserFileFormat format, boolean gzip, int parts) {
+        SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+        long[] bounds = idBounds(sessionFactory, parts);
+        if (bounds == null) {
+            bounds = new long[parts];
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parts,
+                runnable -> new Thread(runnable, "user-export-" + threadNumber.incrementAndGet()));
+        try {
+            List<Future<PartResult>> futures = new ArrayList<>(parts);
+            for (int i = 0; i < parts; i++) {
+                long from = i == 0 ? Long.MIN_VALUE : bounds[i];
+                long to = i == parts - 1 ? Long.MAX_VALUE : bounds[i + 1] - 1;
+                Path file = partFile(target, format, gzip, i + 1);
+                futures.add(workers.submit(() -> exportRange(sessionFactory, file, format, gzip, from, to)));
+            }
+            List<PartResult> results = new ArrayList<>(parts);
+            for (Future<PartResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Export interrupted: " + target, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime
+                    : new RuntimeException("Failed to export users: " + cause.getMessage(), cause);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // users.csv.gz -> users.part-0001.csv.gz
+    static Path partFile(Path target, UserFileFormat format, boolean gzip, int part) {
+        String name = target.getFileName().toString();
+        String suffix = "." + format.getExtension() + (gzip ? ".gz" : "");
+        String base = name.toLowerCase(Locale.ROOT).endsWith(suffix) ? name.substring(0, name.length() - suffix.length()) : name;
+        return target.resolveSibling(String.format("%s.part-%04d%s", base, part, suffix));
+    }
+
+    // bounds[i] — первый id части i (bounds[0] не используется); null, если таблица пуста
+    private long[] idBounds(SessionFactory sessionFactory, int parts) {
+        Double[] fractions = new Double[parts - 1];
+        for (int i = 1; i < parts; i++) {
+            fractions[i - 1] = (double) i / parts;
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_QUANTILES)) {
+                    statement.setArray(1, connection.createArrayOf("float8", fractions));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        rs.next();
+                        Array quantiles = rs.getArray(1);
+                        if (quantiles == null) {
+                            return null;
+                        }
+                        Object[] values = (Object[]) quantiles.getArray();
+                        long[] bounds = new long[parts];
+                        for (int i = 0; i < values.length; i++) {
+                            bounds[i + 1] = ((Number) values[i]).longValue();
+                        }
+                        return bounds;
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Error reading user id quantiles", e);
+            throw new RuntimeException("Failed to read user id range", e);
+        }
+    }
+
+    // Фабрика передаётся из вызывающего потока, чтобы рабочие потоки не строили её повторно
+    private PartResult exportRange(SessionFactory sessionFactory, Path file, UserFileFormat format, boolean gzip,
+                                   long fromId, long toId) {
+        logger.debug("Exporting ids {}..{} to {}", fromId, toId, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             WritableByteChannel sink = gzip
+                     ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), GZIP_BUFFER_SIZE))
+                     : channel;
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            PartWriter writer = new PartWriter(sink, new UserRecordEncoder(format));
+            // Курсор PostgreSQL с fetch size работает только внутри транзакции
+            Transaction tx = session.beginTransaction();
+            try {
+                session.doWork(connection -> writer.writeRange(connection, fromId, toId));
+                tx.commit();
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+            writer.flush();
+            return new PartResult(file, writer.rows, writer.bytes);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error writing export file {}", file, e);
+            throw new RuntimeException("Failed to write export file " + file + ": " + e.getMessage(), e);
+        } catch (Exception e) {
+            logger.error("Error exporting users to {}", file, e);
+            throw new RuntimeException("Failed to export users to " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private final class PartWriter {
+        private final WritableByteChannel sink;
+        private final UserRecordEncoder encoder;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long rows;
+        private long bytes;
+
+        PartWriter(WritableByteChannel sink, UserRecordEncoder encoder) {
+            this.sink = sink;
+            this.encoder = encoder;
+            encoder.writeHeader(buffer);
+        }
+
+        void writeRange(Connection connection, long fromId, long toId) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_RANGE,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, fromId);
+                statement.setLong(2, toId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String name = rs.getString(2);
+                        String email = rs.getString(3);
+                        int age = rs.getInt(4);
+                        if (rs.wasNull()) {
+                            age = -1;
+                        }
+                        LocalDateTime createdAt = rs.getObject(5, LocalDateTime.class);
+                        if (buffer.remaining() < UserRecordEncoder.maxRowBytes(name, email)) {
+                            flush();
+                        }
+                        encoder.writeRow(buffer, rs.getLong(1), name, email, age, createdAt);
+                        rows++;
+                    }
+                }
+            }
+        }
+
+        void flush() {
+            buffer.flip();
+            bytes += buffer.remaining();
+            try {
+                while (buffer.hasRemaining()) {
+                    sink.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static final class PartResult {
+        private final Path file;
+        private final long rows;
+        private final long bytes;
+
+        PartResult(Path file, long rows, long bytes) {
+            this.file = file;
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+}
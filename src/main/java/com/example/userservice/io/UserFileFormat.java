@@ -0,0 +1,40 @@
+package com.example.userservice.io;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum UserFileFormat {
+    CSV("csv"),
+    JSON_LINES("jsonl");
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private final String extension;
+
+    UserFileFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Формат по расширению файла; суффикс .gz не учитывается
+    public static UserFileFormat fromFileName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (isGzip(file)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return JSON_LINES;
+        }
+        throw new IllegalArgumentException("Unsupported file format: " + file.getFileName());
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX);
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.userservice.io;
+
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.model.User;
+import com.example.userservice.util.HibernateUtil;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Импорт пользователей из CSV / JSON Lines. Три стадии: чтение файла ({@link LineReader}),
+ * параллельный разбор и валидация пачек строк, запись через {@link StatelessSession} —
+ * одна транзакция на пачку. Между разбором и записью ограниченная очередь, поэтому при
+ * медленной базе чтение притормаживает, а не накапливает файл в памяти.
+ * Отклонённые строки пишутся в reject-файл: номер строки, причина и исходная строка через табуляцию.
+ * Запись идёт в обход DAO, поэтому после импорта его счётчик {@link CountMode#CACHED}
+ * пересчитывается точным COUNT.
+ */
+public class UserImporter {
+    private static final Logger logger = LoggerFactory.getLogger(UserImporter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final ParsedBatch END = new ParsedBatch();
+
+    private final int batchSize;
+    private final int parserThreads;
+    private final int queueCapacity;
+    // null — счётчик пересчитывать некому
+    private final UserDao userDao;
+
+    public UserImporter() {
+        this((UserDao) null);
+    }
+
+    public UserImporter(UserDao userDao) {
+        this(DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, userDao);
+    }
+
+    public UserImporter(int batchSize, int parserThreads, int queueCapacity) {
+        this(batchSize, parserThreads, queueCapacity, null);
+    }
+
+    public UserImporter(int batchSize, int parserThreads, int queueCapacity, UserDao userDao) {
+        if (batchSize < 1 || parserThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Batch size, parser threads and queue capacity must be positive");
+        }
+        this.batchSize = batchSize;
+        this.parserThreads = parserThreads;
+        this.queueCapacity = queueCapacity;
+        this.userDao = userDao;
+    }
+
+    public ImportResult importFile(Path source, Path rejectFile) {
+        if (UserFileFormat.isGzip(source)) {
+            throw new IllegalArgumentException("Compressed import files are not supported: " + source.getFileName());
+        }
+        return importFile(source, UserFileFormat.fromFileName(source), rejectFile);
+    }
+
+    public ImportResult importFile(Path source, UserFileFormat format, Path rejectFile) {
+        logger.info("Importing users from {} ({})", source, format);
+        long started = System.nanoTime();
+        BlockingQueue<ParsedBatch> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong rejected = new AtomicLong();
+        try (LineReader reader = new LineReader(source, READ_BUFFER_SIZE);
+             RejectWriter rejects = new RejectWriter(rejectFile, rejected)) {
+            ReaderStage readerStage = new ReaderStage(reader, format, parsed, rejects);
+            Thread readerThread = new Thread(readerStage, "user-import-reader");
+            readerThread.start();
+
+            long imported;
+            try {
+                imported = write(parsed, rejects);
+            } catch (RuntimeException e) {
+                readerStage.cancel(readerThread);
+                readerThread.join();
+                throw e;
+            }
+            readerThread.join();
+            readerStage.rethrowFailure();
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+            ImportResult result = new ImportResult(readerStage.rows.get(), imported, rejected.get(),
+                    reader.getBytesRead(), elapsed, rejectFile);
+            logger.info("Import of {} finished: {}", source, result);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted: " + source, e);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error importing users from {}", source, e);
+            throw new RuntimeException("Failed to import users from " + source + ": " + e.getMessage(), e);
+        } finally {
+            // Пачки коммитятся по отдельности: строки могли появиться и при прерванном импорте
+            reseedCount();
+        }
+    }
+
+    private void reseedCount() {
+        if (userDao == null) {
+            return;
+        }
+        try {
+            userDao.count(CountMode.EXACT);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to recount users after import: {}", e.getMessage());
+        }
+    }
+
+    // Стадия записи; выполняется в вызывающем потоке до маркера END
+    private long write(BlockingQueue<ParsedBatch> parsed, RejectWriter rejects) throws InterruptedException {
+        long imported = 0;
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            while (true) {
+                ParsedBatch batch = parsed.take();
+                if (batch == END) {
+                    return imported;
+                }
+                imported += writeBatch(session, batch, rejects);
+            }
+        }
+    }
+
+    private int writeBatch(StatelessSession session, ParsedBatch parsedBatch, RejectWriter rejects) {
+        if (parsedBatch.users.isEmpty()) {
+            return 0;
+        }
+        Transaction tx = session.beginTransaction();
+        ParsedBatch batch = parsedBatch;
+        try {
+            batch = rejectExisting(session, parsedBatch, rejects);
+            for (User user : batch.users) {
+                prepare(user);
+                session.insert(user);
+            }
+            tx.commit();
+            return batch.users.size();
+        } catch (ConstraintViolationException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            // Дубликат email в пачке: повторяем построчно, чтобы отклонить только его
+            logger.debug("Constraint violation in import batch, retrying {} rows one by one", batch.users.size());
+            return writeRowByRow(session, batch, rejects);
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            logger.error("Error writing import batch", e);
+            throw new RuntimeException("Failed to write import batch: " + e.getMessage(), e);
+        }
+    }
+
+    // Один индексный SELECT на пачку вместо отката: повторный импорт того же файла не уходит
+    // в построчный режим; дубликаты внутри пачки отсекаются здесь же
+    private static ParsedBatch rejectExisting(StatelessSession session, ParsedBatch batch, RejectWriter rejects) {
+        Set<String> emails = new HashSet<>(batch.users.size() * 2);
+        for (User user : batch.users) {
+            emails.add(user.getEmail());
+        }
+        // Адреса в пачке уже нормализованы setEmail, запрос возвращает lower(email)
+        Set<String> taken = new HashSet<>(session.createNamedQuery(User.FIND_EXISTING_EMAILS, String.class)
+                .setParameter("emails", emails)
+                .getResultList());
+        if (taken.isEmpty() && emails.size() == batch.users.size()) {
+            return batch;
+        }
+        ParsedBatch accepted = new ParsedBatch();
+        for (int i = 0; i < batch.users.size(); i++) {
+            User user = batch.users.get(i);
+            if (taken.add(user.getEmail())) {
+                accepted.add(user, batch.lineNumbers.get(i), batch.lines.get(i));
+            } else {
+                rejects.reject(batch.lineNumbers.get(i), "Email already exists: " + user.getEmail(), batch.lines.get(i));
+            }
+        }
+        return accepted;
+    }
+
+    private int writeRowByRow(StatelessSession session, ParsedBatch batch, RejectWriter rejects) {
+        int written = 0;
+        for (int i = 0; i < batch.users.size(); i++) {
+            User user = batch.users.get(i);
+            prepare(user);
+            Transaction tx = session.beginTransaction();
+            try {
+                session.insert(user);
+                tx.commit();
+                written++;
+            } catch (ConstraintViolationException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                rejects.reject(batch.lineNumbers.get(i), "Email already exists: " + user.getEmail(), batch.lines.get(i));
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                logger.error("Error writing import row {}", batch.lineNumbers.get(i), e);
+                throw new RuntimeException("Failed to write import row " + batch.lineNumbers.get(i) + ": "
+                        + e.getMessage(), e);
+            }
+        }
+        return written;
+    }
+
+    // После отката пачки id и версия у сущностей уже выставлены — сбрасываем для повторной вставки
+    private static void prepare(User user) {
+        user.setId(null);
+        user.setVersion(null);
+        if (user.getCreatedAt() == null) {
+            user.setCreatedAt(LocalDateTime.now());
+        }
+    }
+
+    private static final class ParsedBatch {
+        private final List<User> users = new ArrayList<>();
+        private final List<Long> lineNumbers = new ArrayList<>();
+        private final List<String> lines = new ArrayList<>();
+
+        void add(User user, long lineNumber, String line) {
+            users.add(user);
+            lineNumbers.add(lineNumber);
+            lines.add(line);
+        }
+    }
+
+    // Читает файл, режет на пачки строк и раздаёт их пулу парсеров
+    private final class ReaderStage implements Runnable {
+        private final LineReader reader;
+        private final UserFileFormat format;
+        private final BlockingQueue<ParsedBatch> parsed;
+        private final RejectWriter rejects;
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final ThreadPoolExecutor parsers;
+        private volatile boolean cancelled;
+
+        ReaderStage(LineReader reader, UserFileFormat format, BlockingQueue<ParsedBatch> parsed, RejectWriter rejects) {
+            this.reader = reader;
+            this.format = format;
+            this.parsed = parsed;
+            this.rejects = rejects;
+            // Переполненная очередь задач — пачку разбирает сам читатель, это и есть backpressure
+            this.parsers = new ThreadPoolExecutor(parserThreads, parserThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "user-import-parser");
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        @Override
+        public void run() {
+            try {
+                readAll();
+                parsers.shutdown();
+                parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                parsers.shutdownNow();
+            } finally {
+                try {
+                    if (!cancelled) {
+                        parsed.put(END);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void readAll() throws IOException {
+            UserRecordParser parser;
+            long lineNumber = 0;
+            String line = reader.readLine();
+            List<String> chunk = new ArrayList<>(batchSize);
+            long chunkStart = 1;
+            if (format == UserFileFormat.CSV && line != null && UserRecordParser.isCsvHeader(line)) {
+                parser = UserRecordParser.csv(UserRecordParser.splitCsv(line));
+                lineNumber = 1;
+                chunkStart = 2;
+                line = reader.readLine();
+            } else {
+                parser = format == UserFileFormat.CSV ? UserRecordParser.csv(null) : UserRecordParser.jsonLines();
+            }
+            while (line != null && !cancelled) {
+                lineNumber++;
+                chunk.add(line);
+                if (chunk.size() == batchSize) {
+                    submit(parser, chunk, chunkStart);
+                    chunk = new ArrayList<>(batchSize);
+                    chunkStart = lineNumber + 1;
+                }
+                line = reader.readLine();
+            }
+            if (!chunk.isEmpty() && !cancelled) {
+                submit(parser, chunk, chunkStart);
+            }
+        }
+
+        private void submit(UserRecordParser parser, List<String> chunk, long firstLineNumber) {
+            parsers.execute(() -> parse(parser, chunk, firstLineNumber));
+        }
+
+        private void parse(UserRecordParser parser, List<String> chunk, long firstLineNumber) {
+            ParsedBatch batch = new ParsedBatch();
+            long lineNumber = firstLineNumber;
+            try {
+                for (String line : chunk) {
+                    if (!line.isBlank()) {
+                        rows.incrementAndGet();
+                        try {
+                            batch.add(parser.parse(line), lineNumber, line);
+                        } catch (IllegalArgumentException e) {
+                            rejects.reject(lineNumber, e.getMessage(), line);
+                        }
+                    }
+                    lineNumber++;
+                }
+                parsed.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // Ошибка не строки, а стадии (например, запись reject-файла) — импорт завершится с ней
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        void cancel(Thread readerThread) {
+            cancelled = true;
+            parsers.shutdownNow();
+            readerThread.interrupt();
+            parsed.clear();
+        }
+
+        void rethrowFailure() throws IOException {
+            Throwable e = failure.get();
+            if (e instanceof IOException io) {
+                throw io;
+            }
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e != null) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static final class RejectWriter implements AutoCloseable {
+        private final BufferedWriter writer;
+        private final AtomicLong rejected;
+
+        RejectWriter(Path file, AtomicLong rejected) throws IOException {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            this.rejected = rejected;
+        }
+
+        synchronized void reject(long lineNumber, String reason, String line) {
+            rejected.incrementAndGet();
+            try {
+                writer.write(lineNumber + "\t" + reason.replace('\t', ' ').replace('\n', ' ') + "\t" + line);
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.userservice.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Кодирует строки таблицы users прямо в ByteBuffer (UTF-8) без промежуточных String:
+ * числа, дата и экранирование пишутся побайтно. Дата — ISO-8601 с микросекундами,
+ * как её хранит PostgreSQL. Не потокобезопасен: один экземпляр на поток экспорта.
+ */
+final class UserRecordEncoder {
+    private static final byte[] CSV_HEADER = ascii("id,name,email,age,created_at\n");
+    private static final byte[] JSON_ID = ascii("{\"id\":");
+    private static final byte[] JSON_NAME = ascii(",\"name\":");
+    private static final byte[] JSON_EMAIL = ascii(",\"email\":");
+    private static final byte[] JSON_AGE = ascii(",\"age\":");
+    private static final byte[] JSON_CREATED_AT = ascii(",\"createdAt\":");
+    private static final byte[] JSON_NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    // Числа, дата и разметка строки с запасом
+    private static final int FIXED_ROW_BYTES = 160;
+
+    private final UserFileFormat format;
+    private final byte[] digits = new byte[20];
+
+    UserRecordEncoder(UserFileFormat format) {
+        this.format = format;
+    }
+
+    void writeHeader(ByteBuffer out) {
+        if (format == UserFileFormat.CSV) {
+            out.put(CSV_HEADER);
+        }
+    }
+
+    // Верхняя граница размера строки: до 3 байт UTF-8 на символ, экранирование JSON — до 6
+    static int maxRowBytes(String name, String email) {
+        return FIXED_ROW_BYTES + 6 * (length(name) + length(email));
+    }
+
+    // age < 0 — NULL
+    void writeRow(ByteBuffer out, long id, String name, String email, int age, LocalDateTime createdAt) {
+        if (format == UserFileFormat.CSV) {
+            writeLong(out, id);
+            out.put((byte) ',');
+            writeCsvString(out, name);
+            out.put((byte) ',');
+            writeCsvString(out, email);
+            out.put((byte) ',');
+            if (age >= 0) {
+                writeLong(out, age);
+            }
+            out.put((byte) ',');
+            if (createdAt != null) {
+                writeTimestamp(out, createdAt);
+            }
+        } else {
+            out.put(JSON_ID);
+            writeLong(out, id);
+            out.put(JSON_NAME);
+            writeJsonString(out, name);
+            out.put(JSON_EMAIL);
+            writeJsonString(out, email);
+            out.put(JSON_AGE);
+            if (age >= 0) {
+                writeLong(out, age);
+            } else {
+                out.put(JSON_NULL);
+            }
+            out.put(JSON_CREATED_AT);
+            if (createdAt != null) {
+                out.put((byte) '"');
+                writeTimestamp(out, createdAt);
+                out.put((byte) '"');
+            } else {
+                out.put(JSON_NULL);
+            }
+            out.put((byte) '}');
+        }
+        out.put((byte) '\n');
+    }
+
+    private void writeCsvString(ByteBuffer out, String value) {
+        if (value == null) {
+            return;
+        }
+        if (!needsCsvQuotes(value)) {
+            writeUtf8(out, value, 0, value.length());
+            return;
+        }
+        out.put((byte) '"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writeUtf8(out, value, from, i + 1);
+                out.put((byte) '"');
+                from = i + 1;
+            }
+        }
+        writeUtf8(out, value, from, value.length());
+        out.put((byte) '"');
+    }
+
+    private static boolean needsCsvQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeJsonString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.put(JSON_NULL);
+            return;
+        }
+        out.put((byte) '"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            writeUtf8(out, value, from, i);
+            out.put((byte) '\\');
+            switch (c) {
+                case '"' -> out.put((byte) '"');
+                case '\\' -> out.put((byte) '\\');
+                case '\n' -> out.put((byte) 'n');
+                case '\r' -> out.put((byte) 'r');
+                case '\t' -> out.put((byte) 't');
+                default -> {
+                    out.put((byte) 'u').put((byte) '0').put((byte) '0');
+                    out.put(HEX[c >> 4]).put(HEX[c & 0xF]);
+                }
+            }
+            from = i + 1;
+        }
+        writeUtf8(out, value, from, value.length());
+        out.put((byte) '"');
+    }
+
+    private static void writeUtf8(ByteBuffer out, String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | codePoint >> 18));
+                out.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                out.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                out.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | c >> 12));
+                out.put((byte) (0x80 | c >> 6 & 0x3F));
+                out.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private void writeLong(ByteBuffer out, long value) {
+        if (value < 0) {
+            out.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                // -Long.MIN_VALUE не помещается в long
+                out.put(ascii("9223372036854775808"));
+                return;
+            }
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        out.put(digits, pos, digits.length - pos);
+    }
+
+    private static void writeTimestamp(ByteBuffer out, LocalDateTime value) {
+        writePadded(out, value.getYear(), 4);
+        out.put((byte) '-');
+        writePadded(out, value.getMonthValue(), 2);
+        out.put((byte) '-');
+        writePadded(out, value.getDayOfMonth(), 2);
+        out.put((byte) 'T');
+        writePadded(out, value.getHour(), 2);
+        out.put((byte) ':');
+        writePadded(out, value.getMinute(), 2);
+        out.put((byte) ':');
+        writePadded(out, value.getSecond(), 2);
+        out.put((byte) '.');
+        writePadded(out, value.getNano() / 1000, 6);
+    }
+
+    private static void writePadded(ByteBuffer out, int value, int width) {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.userservice.io;
+
+import com.example.userservice.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбор одной строки CSV или JSON Lines в {@link User}. Значения проверяются сеттерами
+ * сущности, поэтому правила те же, что и при создании через сервис. Ошибка строки —
+ * IllegalArgumentException с причиной для reject-файла. Потокобезопасен.
+ */
+final class UserRecordParser {
+    private static final String[] DEFAULT_COLUMNS = {"name", "email", "age"};
+
+    private final UserFileFormat format;
+    private final int nameIndex;
+    private final int emailIndex;
+    private final int ageIndex;
+
+    private UserRecordParser(UserFileFormat format, int nameIndex, int emailIndex, int ageIndex) {
+        this.format = format;
+        this.nameIndex = nameIndex;
+        this.emailIndex = emailIndex;
+        this.ageIndex = ageIndex;
+    }
+
+    static UserRecordParser jsonLines() {
+        return new UserRecordParser(UserFileFormat.JSON_LINES, -1, -1, -1);
+    }
+
+    // Без заголовка колонки идут в порядке name,email,age
+    static UserRecordParser csv(String[] header) {
+        String[] columns = header != null ? header : DEFAULT_COLUMNS;
+        int name = -1;
+        int email = -1;
+        int age = -1;
+        for (int i = 0; i < columns.length; i++) {
+            switch (columns[i].trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> name = i;
+                case "email" -> email = i;
+                case "age" -> age = i;
+                default -> { }
+            }
+        }
+        if (name < 0 || email < 0) {
+            throw new IllegalArgumentException("CSV header must contain name and email columns");
+        }
+        return new UserRecordParser(UserFileFormat.CSV, name, email, age);
+    }
+
+    // Первая строка CSV считается заголовком, если в ней есть колонка email
+    static boolean isCsvHeader(String line) {
+        for (String column : splitCsv(line)) {
+            if ("email".equalsIgnoreCase(column.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    User parse(String line) {
+        if (format == UserFileFormat.CSV) {
+            String[] fields = splitCsv(line);
+            return toUser(field(fields, nameIndex), field(fields, emailIndex), field(fields, ageIndex));
+        }
+        String[] values = parseJsonObject(line);
+        return toUser(values[0], values[1], values[2]);
+    }
+
+    private static User toUser(String name, String email, String age) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email == null ? null : email.trim());
+        if (age != null && !age.isBlank()) {
+            try {
+                user.setAge(Integer.parseInt(age.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid age: " + age);
+            }
+        }
+        return user;
+    }
+
+    private static String field(String[] fields, int index) {
+        return index >= 0 && index < fields.length ? fields[index] : null;
+    }
+
+    // RFC 4180 в пределах одной строки: кавычки, "" внутри кавычек; переносов внутри полей нет
+    static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    // Плоский JSON-объект; возвращает значения name, email, age (null, если ключа нет)
+    private static String[] parseJsonObject(String line) {
+        String[] values = new String[3];
+        JsonCursor cursor = new JsonCursor(line);
+        cursor.expect('{');
+        if (!cursor.consume('}')) {
+            do {
+                String key = cursor.readString();
+                cursor.expect(':');
+                String value = cursor.readValue();
+                switch (key) {
+                    case "name" -> values[0] = value;
+                    case "email" -> values[1] = value;
+                    case "age" -> values[2] = value;
+                    default -> { }
+                }
+            } while (cursor.consume(','));
+            cursor.expect('}');
+        }
+        cursor.expectEnd();
+        return values;
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int pos;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Invalid JSON: expected '" + c + "' at position " + pos);
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expectEnd() {
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw new IllegalArgumentException("Invalid JSON: unexpected content at position " + pos);
+            }
+        }
+
+        // Строка, число, true/false или null; вложенные объекты и массивы не поддерживаются
+        String readValue() {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                return readString();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}".indexOf(text.charAt(pos)) < 0
+                    && !Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("[")) {
+                throw new IllegalArgumentException("Invalid JSON: unsupported value at position " + start);
+            }
+            return "null".equals(literal) ? null : literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Invalid JSON: bad unicode escape");
+                        }
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Invalid JSON: unterminated string");
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
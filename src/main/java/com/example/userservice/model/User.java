@@ -1,19 +1,62 @@
 package com.example.userservice.model;
 
+import com.example.userservice.util.EmailValidator;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NamedNativeQueries;
+import org.hibernate.annotations.NamedNativeQuery;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
+// Разбираются и проверяются при сборке SessionFactory: ошибка в запросе не даст приложению стартовать
+@NamedQueries({
+        @NamedQuery(name = User.FIND_ALL, query = "FROM User u ORDER BY u.createdAt DESC"),
+        @NamedQuery(name = User.FIND_ALL_KEYSET, query = "FROM User u ORDER BY u.createdAt DESC, u.id DESC"),
+        // Сравнение строк, а не OR: только так PostgreSQL начинает range scan индекса с курсора
+        @NamedQuery(name = User.FIND_PAGE_AFTER, query = "FROM User u WHERE (u.createdAt, u.id) < (:createdAt, :id) "
+                + "ORDER BY u.createdAt DESC, u.id DESC"),
+        @NamedQuery(name = User.FIND_ALL_EMAILS, query = "SELECT u.email FROM User u"),
+        // lower(email), как в уникальном индексе: находит и адреса с заглавными, записанные в обход setEmail
+        @NamedQuery(name = User.FIND_EXISTING_EMAILS,
+                query = "SELECT lower(u.email) FROM User u WHERE lower(u.email) IN (:emails)"),
+        @NamedQuery(name = User.COUNT_BY_EMAIL, query = "SELECT COUNT(u) FROM User u WHERE u.email = :email"),
+        @NamedQuery(name = User.COUNT_ALL, query = "SELECT COUNT(u) FROM User u")
+})
+@NamedNativeQueries({
+        // "::" в native-запросе Hibernate разбирает как параметр, поэтому CAST
+        @NamedNativeQuery(name = User.COUNT_ESTIMATED, querySpaces = "users", resultClass = Long.class,
+                query = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('users' AS regclass)")
+})
+// Индексы (created_at DESC, id DESC) и lower(email) создаются миграциями db/migration
 @Table(name = "users")
 public class User {
+    public static final String FIND_ALL = "User.findAll";
+    public static final String FIND_ALL_KEYSET = "User.findAllKeyset";
+    public static final String FIND_PAGE_AFTER = "User.findPageAfter";
+    public static final String FIND_ALL_EMAILS = "User.findAllEmails";
+    public static final String FIND_EXISTING_EMAILS = "User.findExistingEmails";
+    public static final String COUNT_BY_EMAIL = "User.countByEmail";
+    public static final String COUNT_ALL = "User.countAll";
+    public static final String COUNT_ESTIMATED = "User.countEstimated";
+
+    // SEQUENCE, а не IDENTITY: с IDENTITY Hibernate отключает JDBC batching для INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 100)
     private String name;
 
+    @NaturalId(mutable = true)
     @Column(name = "email", nullable = false, unique = true, length = 255)
     private String email;
 
@@ -23,9 +66,15 @@ public class User {
     private Integer age;
 
     @CreationTimestamp
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Оптимистическая блокировка; DEFAULT 0 заполняет уже существующие строки при добавлении колонки
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Конструкторы
     public User() {}
 
@@ -60,10 +109,12 @@ public class User {
     }
 
     public void setEmail(String email) {
-        if (email == null || !isValidEmail(email)) {
+        // Проверка и приведение к нижнему регистру за один проход, без regex
+        String normalized = EmailValidator.normalize(email);
+        if (normalized == null) {
             throw new IllegalArgumentException("Invalid email format: " + email);
         }
-        this.email = email.toLowerCase().trim();
+        this.email = normalized;
     }
 
     public Integer getAge() {
@@ -81,30 +132,37 @@ public class User {
         return createdAt;
     }
 
-    // Валидация email
-    private boolean isValidEmail(String email) {
-        String emailRegex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
-        return email != null && email.matches(emailRegex);
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
     }
 
     @Override
     public String toString() {
         return String.format(
-                "User[id=%d, name='%s', email='%s', age=%s, createdAt=%s]",
-                id, name, email, age, createdAt
+                "User[id=%d, name='%s', email='%s', age=%s, createdAt=%s, version=%s]",
+                id, name, email, age, createdAt, version
         );
     }
 
+    // getId(), а не поле: у неинициализированного Hibernate-прокси поля пустые
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof User)) return false;
         User user = (User) o;
-        return id != null && id.equals(user.id);
+        return getId() != null && getId().equals(user.getId());
     }
 
+    /**
+     * Постоянный хэш: id назначается при persist, и хэш по id потерял бы пользователя,
+     * сохранённого внутри HashSet. Большие наборы пользователей держите в {@code UserIndex}.
+     */
     @Override
     public int hashCode() {
         return getClass().hashCode();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+package com.example.userservice.service;
+
+import com.example.userservice.dao.BatchSaveResult;
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.UserCursor;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.model.User;
+import com.example.userservice.util.HibernateUtil;
+import com.example.userservice.util.PoolStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Неблокирующая обёртка над {@link UserService}: каждая операция выполняется в отдельном
+ * виртуальном потоке (Java 21+), число одновременных обращений к базе ограничено семафором
+ * по размеру пула соединений — лишние задачи ждут разрешения, а не соединения Hikari.
+ * На Java 17 используется фиксированный пул платформенных потоков того же размера.
+ * <p>
+ * Read-your-writes в {@link HibernateUtil} привязан к потоку, а операции этого сервиса идут
+ * в разных потоках, поэтому отметка последней записи хранится в самом сервисе и переносится
+ * в поток каждой операции: чтение сразу после записи через тот же сервис идёт с primary.
+ */
+public class AsyncUserService implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUserService.class);
+
+    private final UserService userService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final boolean virtualThreads;
+    // Последняя запись через этот сервис (System.nanoTime()); null — записей не было
+    private final AtomicReference<Long> lastWrite = new AtomicReference<>();
+
+    public AsyncUserService() {
+        this(new UserService());
+    }
+
+    public AsyncUserService(UserService userService) {
+        this(userService, defaultConcurrency());
+    }
+
+    public AsyncUserService(UserService userService, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be a positive integer");
+        }
+        this.userService = userService;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadExecutor(maxConcurrency);
+        logger.info("Async user service started (max concurrency: {}, virtual threads: {})",
+                maxConcurrency, virtualThreads);
+    }
+
+    public CompletableFuture<User> createUser(String name, String email, Integer age) {
+        return submit(() -> userService.createUser(name, email, age));
+    }
+
+    public CompletableFuture<BatchSaveResult> createUsers(Collection<User> users) {
+        return submit(() -> userService.createUsers(users));
+    }
+
+    public CompletableFuture<User> getUserById(Long id) {
+        return submit(() -> userService.getUserById(id));
+    }
+
+    public CompletableFuture<Optional<User>> findUserByEmail(String email) {
+        return submit(() -> userService.findUserByEmail(email));
+    }
+
+    public CompletableFuture<List<User>> getAllUsers() {
+        return submit(userService::getAllUsers);
+    }
+
+    public CompletableFuture<UserPage> getUsersWithPagination(UserCursor after, int size) {
+        return submit(() -> userService.getUsersWithPagination(after, size));
+    }
+
+    public CompletableFuture<User> updateUser(Long id, String name, String email, Integer age) {
+        return submit(() -> userService.updateUser(id, name, email, age));
+    }
+
+    public CompletableFuture<User> updateUser(Long id, String name, String email, Integer age, Long expectedVersion) {
+        return submit(() -> userService.updateUser(id, name, email, age, expectedVersion));
+    }
+
+    public CompletableFuture<Boolean> deleteUser(Long id) {
+        return submit(() -> userService.deleteUser(id));
+    }
+
+    public CompletableFuture<Long> deleteUsers(Collection<Long> ids) {
+        return submit(() -> userService.deleteUsers(ids));
+    }
+
+    public CompletableFuture<Boolean> userExists(Long id) {
+        return submit(() -> userService.userExists(id));
+    }
+
+    public CompletableFuture<Boolean> emailExists(String email) {
+        return submit(() -> userService.emailExists(email));
+    }
+
+    public CompletableFuture<Long> getUserCount() {
+        return submit(userService::getUserCount);
+    }
+
+    public CompletableFuture<Long> getUserCount(CountMode mode) {
+        return submit(() -> userService.getUserCount(mode));
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // Задачи, ещё не начавшие работу с базой. На виртуальных потоках они ждут разрешения семафора;
+    // в фиксированном пуле потоков столько же, сколько разрешений, и задачи копятся в очереди пула
+    public int getQueuedTasks() {
+        int waiting = permits.getQueueLength();
+        if (executor instanceof ThreadPoolExecutor pool) {
+            waiting += pool.getQueue().size();
+        }
+        return waiting;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Async user service did not finish pending tasks in time");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            Long inherited = lastWrite.get();
+            HibernateUtil.setLastWrite(inherited);
+            try {
+                return operation.get();
+            } finally {
+                Long written = HibernateUtil.getLastWrite();
+                if (written != null && !written.equals(inherited)) {
+                    lastWrite.accumulateAndGet(written, AsyncUserService::later);
+                }
+                HibernateUtil.setLastWrite(null);
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private static Long later(Long current, Long candidate) {
+        return current == null || candidate - current > 0 ? candidate : current;
+    }
+
+    // Больше одновременных запросов, чем соединений в пуле, всё равно не выполнить
+    private static int defaultConcurrency() {
+        PoolStatistics pool = HibernateUtil.getPoolStatistics();
+        return pool != null ? pool.getMaximumPoolSize() : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() есть только с Java 21; проект собирается под 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Virtual threads are not available, falling back to a platform thread pool");
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-async-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -1,15 +1,21 @@
 package com.example.userservice.service;
 
+import com.example.userservice.dao.BatchSaveResult;
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.UserCursor;
 import com.example.userservice.dao.UserDao;
 import com.example.userservice.dao.UserDaoImpl;
-import com.example.userservice.exception.EmailAlreadyExistsException;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.dao.UserPatch;
 import com.example.userservice.exception.UserNotFoundException;
 import com.example.userservice.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
@@ -26,13 +32,20 @@ public class UserService {
     public User createUser(String name, String email, Integer age) {
         logger.info("Creating new user: {}", email);
 
-        // Проверяем существование email
-        if (userDao.existsByEmail(email)) {
-            throw new EmailAlreadyExistsException(email);
-        }
-
+        // Уникальность email проверяет сама база (ON CONFLICT), без отдельного existsByEmail
         User user = new User(name, email, age);
-        return userDao.save(user);
+        // Формат и регистр email — как при обновлении через User.setEmail
+        user.setEmail(email);
+        return userDao.insert(user);
+    }
+
+    public BatchSaveResult createUsers(Collection<User> users) {
+        logger.info("Creating {} users in batch", users.size());
+        BatchSaveResult result = userDao.saveAll(users);
+        if (result.hasFailures()) {
+            logger.warn("Batch creation finished with {} failed user(s)", result.getFailedCount());
+        }
+        return result;
     }
 
     public User getUserById(Long id) {
@@ -51,6 +64,16 @@ public class UserService {
         return userDao.findAll();
     }
 
+    // Обходит всю таблицу курсором, не загружая её в память; возвращает число пользователей
+    public long streamAllUsers(Consumer<User> consumer) {
+        logger.debug("Streaming all users");
+        return userDao.streamAll(consumer);
+    }
+
+    /**
+     * @deprecated используйте {@link #getUsersWithPagination(UserCursor, int)}
+     */
+    @Deprecated
     public List<User> getUsersWithPagination(int page, int size) {
         logger.debug("Retrieving users with pagination - page: {}, size: {}", page, size);
         if (page < 1 || size < 1) {
@@ -59,31 +82,42 @@ public class UserService {
         return userDao.findAll(page, size);
     }
 
-    public User updateUser(Long id, String name, String email, Integer age) {
-        logger.info("Updating user with ID: {}", id);
+    // after == null — первая страница
+    public UserPage getUsersWithPagination(UserCursor after, int size) {
+        logger.debug("Retrieving users with keyset pagination - after: {}, size: {}", after, size);
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be a positive integer");
+        }
+        return userDao.findPageAfter(after, size);
+    }
 
-        // Проверяем существование пользователя
-        User existingUser = userDao.findById(id)
-                .orElseThrow(() -> new UserNotFoundException(id));
+    public User updateUser(Long id, String name, String email, Integer age) {
+        return updateUser(id, name, email, age, null);
+    }
 
-        // Проверяем email на уникальность (если изменился)
-        if (!existingUser.getEmail().equalsIgnoreCase(email) &&
-                userDao.existsByEmail(email)) {
-            throw new EmailAlreadyExistsException(email);
-        }
+    // expectedVersion == null — без проверки версии (last write wins)
+    public User updateUser(Long id, String name, String email, Integer age, Long expectedVersion) {
+        logger.info("Updating user with ID: {}", id);
 
-        // Обновляем поля
+        // Валидация и нормализация через сеттеры сущности
+        User values = new User();
         if (name != null && !name.trim().isEmpty()) {
-            existingUser.setName(name);
+            values.setName(name);
         }
-        if (email != null && !email.trim().isEmpty()) {
-            existingUser.setEmail(email);
+        if (email != null && !email.isBlank()) {
+            values.setEmail(email);
         }
         if (age != null) {
-            existingUser.setAge(age);
+            values.setAge(age);
         }
 
-        return userDao.update(existingUser);
+        UserPatch patch = new UserPatch(values.getName(), values.getEmail(), values.getAge(), expectedVersion);
+        if (patch.isEmpty()) {
+            return getUserById(id);
+        }
+        // Один UPDATE ... RETURNING; уникальность email и версию проверяет база
+        return userDao.patch(id, patch)
+                .orElseThrow(() -> new UserNotFoundException(id));
     }
 
     public boolean deleteUser(Long id) {
@@ -91,6 +125,12 @@ public class UserService {
         return userDao.delete(id);
     }
 
+    // Массовое удаление (например, purge по GDPR); возвращает число удалённых пользователей
+    public long deleteUsers(Collection<Long> ids) {
+        logger.info("Deleting {} users", ids.size());
+        return userDao.deleteAll(ids);
+    }
+
     public boolean userExists(Long id) {
         return userDao.findById(id).isPresent();
     }
@@ -102,4 +142,14 @@ public class UserService {
     public long getUserCount() {
         return userDao.count();
     }
+
+    // Для экранов статистики: CACHED и ESTIMATED не сканируют таблицу
+    public long getUserCount(CountMode mode) {
+        return userDao.count(mode);
+    }
+
+    public void warmUp() {
+        logger.debug("Warming up user queries");
+        userDao.warmUp();
+    }
 }
\ No newline at end of file
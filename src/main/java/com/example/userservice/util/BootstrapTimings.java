@@ -0,0 +1,49 @@
+package com.example.userservice.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Длительность фаз старта SessionFactory в порядке выполнения
+public class BootstrapTimings {
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private final int attempts;
+    private long phaseStarted = System.nanoTime();
+
+    BootstrapTimings(int attempts) {
+        this.attempts = attempts;
+    }
+
+    // Закрывает текущую фазу и начинает следующую
+    void phase(String name) {
+        long now = System.nanoTime();
+        phaseMillis.merge(name, TimeUnit.NANOSECONDS.toMillis(now - phaseStarted), Long::sum);
+        phaseStarted = now;
+    }
+
+    public Map<String, Long> getPhaseMillis() {
+        return Collections.unmodifiableMap(phaseMillis);
+    }
+
+    public long getTotalMillis() {
+        return phaseMillis.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Номер попытки, на которой старт удался
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        phaseMillis.forEach((phase, millis) -> {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(phase).append('=').append(millis).append(" ms");
+        });
+        return String.format("BootstrapTimings[total=%d ms, attempt=%d, %s]", getTotalMillis(), attempts, result);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.userservice.util;
+
+import java.util.Locale;
+
+/**
+ * Проверка и нормализация email за один проход без регулярных выражений и без аллокаций,
+ * если адрес уже в нижнем регистре. Принимает ровно то же, что и
+ * {@code ^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,}$}: локальная часть из
+ * {@code [A-Za-z0-9+_.-]}, один '@', домен из {@code [A-Za-z0-9.-]}, в котором после
+ * последней точки не меньше двух латинских букв и перед ней хотя бы один символ.
+ */
+public final class EmailValidator {
+    private static final byte LOCAL = 1;
+    private static final byte DOMAIN = 2;
+    private static final byte LETTER = 4;
+    private static final byte UPPER = 8;
+    // Классы ASCII-символов; всё, что не ASCII, адрес не пропускает
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LOCAL | DOMAIN | LETTER;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] = LOCAL | DOMAIN | LETTER | UPPER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = LOCAL | DOMAIN;
+        }
+        CLASSES['.'] = LOCAL | DOMAIN;
+        CLASSES['-'] = LOCAL | DOMAIN;
+        CLASSES['+'] = LOCAL;
+        CLASSES['_'] = LOCAL;
+    }
+
+    private EmailValidator() {
+    }
+
+    public static boolean isValid(CharSequence email) {
+        return email != null && scan(email) >= 0;
+    }
+
+    /**
+     * Адрес в нижнем регистре или null, если он некорректен.
+     * Уже нормализованный адрес возвращается тем же экземпляром.
+     */
+    public static String normalize(String email) {
+        if (email == null) {
+            return null;
+        }
+        int result = scan(email);
+        if (result < 0) {
+            return null;
+        }
+        return result == 0 ? email : toLowerAscii(email);
+    }
+
+    /**
+     * Ключ поиска по email без проверки формата: в базе могут быть адреса, записанные
+     * в обход {@link com.example.userservice.model.User#setEmail(String)}. Для ASCII без
+     * заглавных букв возвращается тот же экземпляр.
+     */
+    public static String lookupKey(String email) {
+        boolean upper = false;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c >= 128) {
+                return email.toLowerCase(Locale.ROOT);
+            }
+            upper |= (CLASSES[c] & UPPER) != 0;
+        }
+        return upper ? toLowerAscii(email) : email;
+    }
+
+    // -1 — некорректный адрес, 1 — корректный с заглавными буквами, 0 — корректный и уже нормализованный
+    private static int scan(CharSequence email) {
+        int length = email.length();
+        int at = -1;
+        int lastDot = -1;
+        boolean tldLetters = false;
+        int upper = 0;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c >= 128) {
+                return -1;
+            }
+            byte cls = CLASSES[c];
+            if (at < 0) {
+                if (c == '@') {
+                    if (i == 0) {
+                        return -1;
+                    }
+                    at = i;
+                    continue;
+                }
+                if ((cls & LOCAL) == 0) {
+                    return -1;
+                }
+            } else {
+                if ((cls & DOMAIN) == 0) {
+                    return -1;
+                }
+                if (c == '.') {
+                    lastDot = i;
+                    tldLetters = true;
+                } else {
+                    tldLetters &= (cls & LETTER) != 0;
+                }
+            }
+            upper |= cls & UPPER;
+        }
+        // Перед последней точкой домена хотя бы один символ, после неё — не меньше двух букв
+        if (at < 0 || lastDot < at + 2 || length - lastDot - 1 < 2 || !tldLetters) {
+            return -1;
+        }
+        return upper != 0 ? 1 : 0;
+    }
+
+    private static String toLowerAscii(String email) {
+        char[] chars = new char[email.length()];
+        for (int i = 0; i < chars.length; i++) {
+            char c = email.charAt(i);
+            chars[i] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.userservice.util;
+
+import java.util.Locale;
+
+// Какой план снимать для медленного запроса
+public enum ExplainMode {
+    NONE,
+    // EXPLAIN без выполнения
+    PLAN,
+    // EXPLAIN (ANALYZE, BUFFERS) — только для SELECT, остальные получают PLAN: ANALYZE повторил бы запись
+    ANALYZE;
+
+    public static ExplainMode parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown explain mode: " + value + " (expected none, plan or analyze)");
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.userservice.util;
+
+import org.hibernate.stat.Statistics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Регистрируется HibernateUtil под именем HibernateUtil.STATISTICS_MBEAN
+public class HibernateStatistics implements HibernateStatisticsMBean {
+    private static final int QUERY_SUMMARY_LIMIT = 50;
+
+    private final Supplier<Statistics> statistics;
+    private final SlowQueryLog slowQueryLog;
+
+    // statistics возвращает null, пока фабрика не запущена
+    HibernateStatistics(Supplier<Statistics> statistics, SlowQueryLog slowQueryLog) {
+        this.statistics = statistics;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    private long read(ToLongFunction<Statistics> counter) {
+        Statistics current = statistics.get();
+        return current == null ? 0 : counter.applyAsLong(current);
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        Statistics current = statistics.get();
+        return current != null && current.isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled) {
+        Statistics current = statistics.get();
+        if (current == null) {
+            throw new IllegalStateException("SessionFactory is not started");
+        }
+        current.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public long getEntityLoadCount() {
+        return read(Statistics::getEntityLoadCount);
+    }
+
+    @Override
+    public long getEntityFetchCount() {
+        return read(Statistics::getEntityFetchCount);
+    }
+
+    @Override
+    public long getEntityInsertCount() {
+        return read(Statistics::getEntityInsertCount);
+    }
+
+    @Override
+    public long getEntityUpdateCount() {
+        return read(Statistics::getEntityUpdateCount);
+    }
+
+    @Override
+    public long getEntityDeleteCount() {
+        return read(Statistics::getEntityDeleteCount);
+    }
+
+    @Override
+    public long getQueryExecutionCount() {
+        return read(Statistics::getQueryExecutionCount);
+    }
+
+    @Override
+    public long getQueryExecutionMaxTime() {
+        return read(Statistics::getQueryExecutionMaxTime);
+    }
+
+    @Override
+    public String getQueryExecutionMaxTimeQueryString() {
+        Statistics current = statistics.get();
+        return current == null ? null : current.getQueryExecutionMaxTimeQueryString();
+    }
+
+    @Override
+    public long getFlushCount() {
+        return read(Statistics::getFlushCount);
+    }
+
+    @Override
+    public long getConnectCount() {
+        return read(Statistics::getConnectCount);
+    }
+
+    @Override
+    public long getPrepareStatementCount() {
+        return read(Statistics::getPrepareStatementCount);
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return read(Statistics::getTransactionCount);
+    }
+
+    @Override
+    public long getSecondLevelCacheHitCount() {
+        return read(Statistics::getSecondLevelCacheHitCount);
+    }
+
+    @Override
+    public long getSecondLevelCacheMissCount() {
+        return read(Statistics::getSecondLevelCacheMissCount);
+    }
+
+    @Override
+    public long getNaturalIdCacheHitCount() {
+        return read(Statistics::getNaturalIdCacheHitCount);
+    }
+
+    @Override
+    public long getNaturalIdCacheMissCount() {
+        return read(Statistics::getNaturalIdCacheMissCount);
+    }
+
+    @Override
+    public String[] getQuerySummaries() {
+        List<QuerySummary> summaries = HibernateUtil.summarize(statistics.get());
+        return summaries.stream()
+                .limit(QUERY_SUMMARY_LIMIT)
+                .map(summary -> String.format(Locale.ROOT, "%d x, avg %d ms, max %d ms, total %d ms, %d rows: %s",
+                        summary.getExecutions(), summary.getAverageMillis(), summary.getMaxMillis(),
+                        summary.getTotalMillis(), summary.getRows(), summary.getQuery()))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public boolean isSqlLoggingEnabled() {
+        return LoggingSettings.isSqlLoggingEnabled();
+    }
+
+    @Override
+    public void setSqlLoggingEnabled(boolean enabled) {
+        LoggingSettings.setSqlLoggingEnabled(enabled);
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryLog.getThresholdMillis();
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long thresholdMillis) {
+        slowQueryLog.setThresholdMillis(thresholdMillis);
+    }
+
+    @Override
+    public String getSlowQueryExplainMode() {
+        return slowQueryLog.getExplainMode().name().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void setSlowQueryExplainMode(String mode) {
+        slowQueryLog.setExplainMode(ExplainMode.parse(mode));
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueryLog.getSlowQueryCount();
+    }
+
+    @Override
+    public String[] getRecentSlowQueries() {
+        return slowQueryLog.getRecent().stream()
+                .map(query -> query.getPlan() == null ? query.toString() : query + "\n" + query.getPlan())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void clear() {
+        Statistics current = statistics.get();
+        if (current != null) {
+            current.clear();
+        }
+        slowQueryLog.clear();
+    }
+}
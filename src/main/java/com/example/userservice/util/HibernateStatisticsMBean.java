@@ -0,0 +1,66 @@
+package com.example.userservice.util;
+
+/**
+ * JMX-представление org.hibernate.stat.Statistics primary-фабрики и журнала медленных запросов.
+ * Пока фабрика не запущена или сбор выключен, счётчики равны нулю.
+ */
+public interface HibernateStatisticsMBean {
+    boolean isStatisticsEnabled();
+
+    void setStatisticsEnabled(boolean enabled);
+
+    long getEntityLoadCount();
+
+    long getEntityFetchCount();
+
+    long getEntityInsertCount();
+
+    long getEntityUpdateCount();
+
+    long getEntityDeleteCount();
+
+    long getQueryExecutionCount();
+
+    long getQueryExecutionMaxTime();
+
+    String getQueryExecutionMaxTimeQueryString();
+
+    long getFlushCount();
+
+    long getConnectCount();
+
+    long getPrepareStatementCount();
+
+    long getTransactionCount();
+
+    long getSecondLevelCacheHitCount();
+
+    long getSecondLevelCacheMissCount();
+
+    long getNaturalIdCacheHitCount();
+
+    long getNaturalIdCacheMissCount();
+
+    // По строке на запрос, самые затратные по суммарному времени первыми
+    String[] getQuerySummaries();
+
+    // DEBUG логгера org.hibernate.SQL: каждый запрос в лог
+    boolean isSqlLoggingEnabled();
+
+    void setSqlLoggingEnabled(boolean enabled);
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long thresholdMillis);
+
+    String getSlowQueryExplainMode();
+
+    void setSlowQueryExplainMode(String mode);
+
+    long getSlowQueryCount();
+
+    String[] getRecentSlowQueries();
+
+    // Сбрасывает и статистику Hibernate, и журнал медленных запросов
+    void clear();
+}
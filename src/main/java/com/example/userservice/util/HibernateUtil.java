@@ -1,44 +1,391 @@
 package com.example.userservice.util;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 public class HibernateUtil {
-    private static SessionFactory sessionFactory;
+    private static final Logger logger = LoggerFactory.getLogger(HibernateUtil.class);
+    private static final String POOL_NAME = "user-service-pool";
+    // Реплики для чтения: JDBC URL через запятую; учётные данные по умолчанию как у primary
+    public static final String REPLICA_URLS = "hibernate.replica.urls";
+    public static final String REPLICA_USER = "hibernate.replica.username";
+    public static final String REPLICA_PASS = "hibernate.replica.password";
+    public static final String REPLICA_STICKY_WINDOW_MS = "hibernate.replica.sticky_window_ms";
+    public static final String REPLICA_RETRY_AFTER_MS = "hibernate.replica.retry_after_ms";
+    private static final long DEFAULT_STICKY_WINDOW_MS = 1000;
+    private static final long DEFAULT_RETRY_AFTER_MS = 30_000;
+    private static final String CACHE_STATISTICS_MBEANS = "javax.cache:type=CacheStatistics,*";
+    public static final String STATISTICS_MBEAN = "com.example.userservice:type=Hibernate,name=statistics";
+
+    // Повторы фонового старта: число попыток и начальная пауза (удваивается, не больше 30 с)
+    public static final String BOOTSTRAP_ATTEMPTS = "hibernate.bootstrap.attempts";
+    public static final String BOOTSTRAP_BACKOFF_MS = "hibernate.bootstrap.backoff_ms";
+    private static final int DEFAULT_BOOTSTRAP_ATTEMPTS = 5;
+    private static final long DEFAULT_BOOTSTRAP_BACKOFF_MS = 500;
+    private static final long MAX_BOOTSTRAP_BACKOFF_MS = 30_000;
+
+    private static volatile SessionFactory sessionFactory;
+    // Пишется только под блокировкой класса; volatile — для getPoolStatistics без блокировки
+    private static volatile HikariDataSource dataSource;
+    private static final PoolMetrics poolMetrics = new PoolMetrics();
+    private static final SlowQueryLog slowQueryLog = new SlowQueryLog();
+    private static volatile ReplicaRouter replicaRouter = new ReplicaRouter(List.of(), 0, 0, System::nanoTime);
+    private static volatile BootstrapTimings bootstrapTimings;
+    private static CompletableFuture<SessionFactory> pendingBootstrap;
 
-    static {
-        buildSessionFactory();
+    /**
+     * Синхронный старт, если фабрика ещё не собрана. Ошибка не запоминается:
+     * следующий вызов (или {@link #getSessionFactory()}) попробует снова.
+     */
+    public static synchronized SessionFactory bootstrap() {
+        if (sessionFactory == null || sessionFactory.isClosed()) {
+            buildSessionFactory(1);
+        }
+        return sessionFactory;
     }
 
-    private static void buildSessionFactory() {
+    /**
+     * Старт в фоновом потоке с повторами и экспоненциальной паузой, чтобы приложение
+     * поднималось и при временно недоступной базе. Повторный вызов возвращает тот же future.
+     */
+    public static synchronized CompletableFuture<SessionFactory> bootstrapAsync() {
+        if (sessionFactory != null && !sessionFactory.isClosed()) {
+            return CompletableFuture.completedFuture(sessionFactory);
+        }
+        if (pendingBootstrap == null || pendingBootstrap.isDone()) {
+            CompletableFuture<SessionFactory> future = new CompletableFuture<>();
+            Thread thread = new Thread(() -> bootstrapWithRetries(future), "hibernate-bootstrap");
+            thread.setDaemon(true);
+            pendingBootstrap = future;
+            thread.start();
+        }
+        return pendingBootstrap;
+    }
+
+    private static void bootstrapWithRetries(CompletableFuture<SessionFactory> future) {
+        // Настройки повторов читаются только после первой ошибки: удачный старт разбирает конфигурацию один раз
+        int attempts = 0;
+        long backoff = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                synchronized (HibernateUtil.class) {
+                    if (sessionFactory == null || sessionFactory.isClosed()) {
+                        buildSessionFactory(attempt);
+                    }
+                    future.complete(sessionFactory);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (attempts == 0) {
+                    try {
+                        Properties settings = SessionFactoryBuilder.loadConfiguration().getProperties();
+                        attempts = (int) longSetting(settings, BOOTSTRAP_ATTEMPTS, DEFAULT_BOOTSTRAP_ATTEMPTS);
+                        backoff = longSetting(settings, BOOTSTRAP_BACKOFF_MS, DEFAULT_BOOTSTRAP_BACKOFF_MS);
+                    } catch (RuntimeException configurationError) {
+                        attempts = 1;
+                    }
+                }
+                if (attempt >= attempts) {
+                    logger.error("SessionFactory bootstrap failed after {} attempt(s)", attempt, e);
+                    future.completeExceptionally(e);
+                    return;
+                }
+                logger.warn("SessionFactory bootstrap attempt {} of {} failed, retrying in {} ms: {}",
+                        attempt, attempts, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BOOTSTRAP_BACKOFF_MS);
+            }
+        }
+    }
+
+    // Фабрика публикуется последней: при любой ошибке старта sessionFactory остаётся пустой
+    private static void buildSessionFactory(int attempt) {
+        BootstrapTimings timings = new BootstrapTimings(attempt);
+        SessionFactory factory = null;
         try {
-            Configuration configuration = new Configuration();
-            configuration.configure("hibernate.cfg.xml");
-            sessionFactory = configuration.buildSessionFactory();
-        } catch (Throwable ex) {
-            throw new ExceptionInInitializerError(ex);
+            Configuration configuration = SessionFactoryBuilder.loadConfiguration();
+            Properties settings = configuration.getProperties();
+            slowQueryLog.configure(settings);
+            timings.phase("configuration");
+            HikariConfig poolConfig = SessionFactoryBuilder.createPoolConfig(settings, POOL_NAME);
+            poolConfig.setMetricsTrackerFactory(poolMetrics);
+            dataSource = new HikariDataSource(poolConfig);
+            settings.put(AvailableSettings.CONNECTION_PROVIDER, new PooledConnectionProvider(dataSource, slowQueryLog));
+            timings.phase("connection pool");
+            SessionFactoryBuilder.migrate(settings, dataSource, timings);
+            HikariDataSource pool = dataSource;
+            factory = SessionFactoryBuilder.build(configuration, new SessionFactoryObserver() {
+                @Override
+                public void sessionFactoryClosed(SessionFactory closed) {
+                    // Hibernate не закрывает переданный ему DataSource
+                    pool.close();
+                }
+            }, timings);
+            ReplicaRouter router = buildReplicaRouter(settings);
+            timings.phase("replicas");
+            registerStatisticsMBean();
+            replicaRouter = router;
+            sessionFactory = factory;
+            bootstrapTimings = timings;
+            logger.info("SessionFactory started: {}", timings);
+        } catch (RuntimeException e) {
+            if (factory != null && !factory.isClosed()) {
+                factory.close();
+            }
+            closeDataSource();
+            throw new RuntimeException("Failed to build SessionFactory: " + e.getMessage(), e);
+        }
+    }
+
+    private static ReplicaRouter buildReplicaRouter(Properties settings) {
+        // Настройки разбираются до подключения реплик, чтобы ошибка в них не оставила открытых фабрик
+        long stickyWindowMs = longSetting(settings, REPLICA_STICKY_WINDOW_MS, DEFAULT_STICKY_WINDOW_MS);
+        long retryAfterMs = longSetting(settings, REPLICA_RETRY_AFTER_MS, DEFAULT_RETRY_AFTER_MS);
+        List<ReplicaRouter.Replica> replicas = new ArrayList<>();
+        String urls = settings.getProperty(REPLICA_URLS, "").trim();
+        if (!urls.isEmpty()) {
+            String[] replicaUrls = urls.split("\\s*,\\s*");
+            for (int i = 0; i < replicaUrls.length; i++) {
+                String name = "user-service-replica-" + (i + 1);
+                try {
+                    replicas.add(buildReplica(settings, name, replicaUrls[i]));
+                    logger.info("Read replica {} registered: {}", name, replicaUrls[i]);
+                } catch (RuntimeException e) {
+                    // Недоступная реплика не мешает старту: чтение уйдёт на primary
+                    logger.warn("Read replica {} is unavailable and will not be used: {}", replicaUrls[i],
+                            e.getMessage());
+                }
+            }
         }
+        return new ReplicaRouter(replicas, TimeUnit.MILLISECONDS.toNanos(stickyWindowMs),
+                TimeUnit.MILLISECONDS.toNanos(retryAfterMs), System::nanoTime);
     }
 
+    private static ReplicaRouter.Replica buildReplica(Properties primarySettings, String name, String url) {
+        SessionFactory replicaFactory = SessionFactoryBuilder.buildStandalone(name, url,
+                primarySettings.getProperty(REPLICA_USER, primarySettings.getProperty(AvailableSettings.USER)),
+                primarySettings.getProperty(REPLICA_PASS, primarySettings.getProperty(AvailableSettings.PASS)),
+                true);
+        HikariDataSource replicaDataSource = SessionFactoryBuilder.getDataSource(replicaFactory);
+        return new ReplicaRouter.Replica(name, replicaFactory,
+                () -> replicaDataSource.getHikariPoolMXBean().getActiveConnections());
+    }
+
+    private static long longSetting(Properties settings, String key, long defaultValue) {
+        String value = settings.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    // Ленивый старт при первом обращении; если идёт фоновый старт, ждёт его
     public static SessionFactory getSessionFactory() {
-        if (sessionFactory == null || sessionFactory.isClosed()) {
-            buildSessionFactory();
+        SessionFactory factory = sessionFactory;
+        if (factory != null && !factory.isClosed()) {
+            return factory;
         }
-        return sessionFactory;
+        CompletableFuture<SessionFactory> pending;
+        synchronized (HibernateUtil.class) {
+            pending = pendingBootstrap;
+        }
+        if (pending != null && !pending.isDone()) {
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+        return bootstrap();
     }
 
-    public static void shutdown() {
+    // null, пока фабрика ни разу не стартовала
+    public static BootstrapTimings getBootstrapTimings() {
+        return bootstrapTimings;
+    }
+
+    /**
+     * Фабрика для операций только на чтение: реплика, если они настроены и доступны,
+     * иначе primary. Сразу после записи из этого же потока — всегда primary.
+     */
+    public static SessionFactory getReadSessionFactory() {
+        SessionFactory primary = getSessionFactory();
+        SessionFactory replica = replicaRouter.route();
+        return replica != null && !replica.isClosed() ? replica : primary;
+    }
+
+    // Вызывается DAO после каждой записи для read-your-writes
+    public static void markWrite() {
+        replicaRouter.markWrite();
+    }
+
+    // Отметка последней записи из текущего потока (null — не было); см. AsyncUserService
+    public static Long getLastWrite() {
+        return replicaRouter.getLastWrite();
+    }
+
+    public static void setLastWrite(Long writtenAt) {
+        replicaRouter.setLastWrite(writtenAt);
+    }
+
+    public static void reportReplicaFailure(SessionFactory replica, Throwable error) {
+        if (replica != sessionFactory) {
+            logger.warn("Read replica failed, falling back to primary: {}", error.getMessage());
+            replicaRouter.markFailed(replica);
+        }
+    }
+
+    public static int getReplicaCount() {
+        return replicaRouter.getReplicas().size();
+    }
+
+    public static synchronized void shutdown() {
+        ReplicaRouter router = replicaRouter;
+        replicaRouter = new ReplicaRouter(List.of(), 0, 0, System::nanoTime);
+        for (ReplicaRouter.Replica replica : router.getReplicas()) {
+            if (!replica.getSessionFactory().isClosed()) {
+                replica.getSessionFactory().close();
+            }
+        }
         if (sessionFactory != null && !sessionFactory.isClosed()) {
             sessionFactory.close();
         }
+        closeDataSource();
+    }
+
+    private static void closeDataSource() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+        }
     }
 
     public static boolean isSessionFactoryOpen() {
         return sessionFactory != null && !sessionFactory.isClosed();
     }
 
-    public static void recreateSessionFactory() {
+    public static synchronized void recreateSessionFactory() {
         shutdown();
-        buildSessionFactory();
+        bootstrap();
+    }
+
+    // null, если пул ещё не создан или уже закрыт
+    public static PoolStatistics getPoolStatistics() {
+        HikariDataSource pool = dataSource;
+        if (pool == null || pool.isClosed()) {
+            return null;
+        }
+        HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+        return new PoolStatistics(
+                mxBean.getActiveConnections(),
+                mxBean.getIdleConnections(),
+                mxBean.getTotalConnections(),
+                mxBean.getThreadsAwaitingConnection(),
+                pool.getMaximumPoolSize(),
+                poolMetrics.getAcquireCount(),
+                poolMetrics.getAverageAcquireMillis(),
+                poolMetrics.getMaxAcquireMillis(),
+                poolMetrics.getTimeouts(),
+                poolMetrics.getMaxUsageMillis()
+        );
+    }
+
+    public static void resetPoolMetrics() {
+        poolMetrics.reset();
+    }
+
+    public static SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * Статистика Hibernate primary-фабрики; null, пока фабрика не запущена. Сбор выключен по умолчанию
+     * (hibernate.generate_statistics) и включается на ходу через setStatisticsEnabled или JMX.
+     */
+    public static Statistics getStatistics() {
+        SessionFactory factory = sessionFactory;
+        return factory == null || factory.isClosed() ? null : factory.getStatistics();
+    }
+
+    // Сводка по каждому запросу, самые затратные по суммарному времени первыми
+    public static List<QuerySummary> getQuerySummaries() {
+        return summarize(getStatistics());
+    }
+
+    static List<QuerySummary> summarize(Statistics statistics) {
+        List<QuerySummary> result = new ArrayList<>();
+        if (statistics == null) {
+            return result;
+        }
+        for (String query : statistics.getQueries()) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            result.add(new QuerySummary(query,
+                    queryStatistics.getExecutionCount(),
+                    queryStatistics.getExecutionRowCount(),
+                    queryStatistics.getExecutionAvgTime(),
+                    queryStatistics.getExecutionMaxTime(),
+                    queryStatistics.getExecutionTotalTime(),
+                    queryStatistics.getCacheHitCount(),
+                    queryStatistics.getCacheMissCount()));
+        }
+        result.sort(Comparator.comparingLong(QuerySummary::getTotalMillis).reversed()
+                .thenComparing(Comparator.comparingLong(QuerySummary::getExecutions).reversed()));
+        return result;
+    }
+
+    // MBean читает текущую фабрику, поэтому регистрируется один раз на процесс
+    private static void registerStatisticsMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(STATISTICS_MBEAN);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new HibernateStatistics(HibernateUtil::getStatistics, slowQueryLog), name);
+            }
+        } catch (JMException e) {
+            logger.warn("Failed to register Hibernate statistics MBean: {}", e.getMessage());
+        }
+    }
+
+    // Счётчики регионов second-level cache из стандартных JCache CacheStatisticsMXBean
+    public static List<CacheRegionStatistics> getCacheStatistics() {
+        List<CacheRegionStatistics> result = new ArrayList<>();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName(CACHE_STATISTICS_MBEANS), null)) {
+                result.add(new CacheRegionStatistics(
+                        name.getKeyProperty("Cache"),
+                        (Long) server.getAttribute(name, "CacheHits"),
+                        (Long) server.getAttribute(name, "CacheMisses"),
+                        (Long) server.getAttribute(name, "CachePuts"),
+                        (Long) server.getAttribute(name, "CacheEvictions")));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to read cache statistics", e);
+        }
+        result.sort(Comparator.comparing(CacheRegionStatistics::getRegion));
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.example.userservice.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах с лог-линейными корзинами (как HdrHistogram):
+ * 32 корзины на каждую степень двойки, относительная погрешность перцентилей не больше 1/32.
+ * Запись без блокировок и без аллокаций — один инкремент в {@link AtomicLongArray};
+ * значения больше {@link #MAX_TRACKABLE_NANOS} попадают в последнюю корзину.
+ * Как и в LongAdder, счётчики разбиты на полосы по потокам, чтобы ядра не делили одну
+ * кэш-линию; полоса создаётся при первой записи из неё, однопоточный код держит одну.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^36 нс ~ 68 с: всё дольше для DAO — уже авария, точность там не нужна
+    private static final int MAX_EXPONENT = 36;
+    public static final long MAX_TRACKABLE_NANOS = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = bucketOf(MAX_TRACKABLE_NANOS) + 1;
+    private static final int STRIPES = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        stripe().getAndIncrement(bucketOf(Math.min(value, MAX_TRACKABLE_NANOS)));
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    private AtomicLongArray stripe() {
+        // Номера потоков идут подряд; умножение на золотое сечение разносит соседние по разным полосам
+        int index = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    // Сумма по корзинам: отдельный счётчик стоил бы ещё одной атомарной операции на запись
+    public long getCount() {
+        long total = 0;
+        for (long bucketCount : snapshot()) {
+            total += bucketCount;
+        }
+        return total;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long total = getCount();
+        return total == 0 ? 0.0 : totalNanos.sum() / (double) total;
+    }
+
+    public long valueAtPercentile(double percentile) {
+        return valuesAtPercentiles(percentile)[0];
+    }
+
+    /**
+     * Верхние границы корзин для перцентилей (0..100) за один проход по копии счётчиков.
+     * Чтение параллельно с записью даёт почти согласованный срез: корзины копируются по одной.
+     */
+    public long[] valuesAtPercentiles(double... percentiles) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        long max = maxNanos.get();
+        long[] values = new long[percentiles.length];
+        if (total == 0) {
+            return values;
+        }
+        for (int p = 0; p < percentiles.length; p++) {
+            if (percentiles[p] < 0 || percentiles[p] > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentiles[p]);
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    // Верхняя граница корзины, но не больше реально записанного максимума
+                    values[p] = Math.min(highestValueOf(i), max);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    private long[] snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] += stripe.get(i);
+                }
+            }
+        }
+        return counts;
+    }
+
+    // Обнуляет окно; записи, идущие параллельно со сбросом, могут попасть в любое из окон
+    public void reset() {
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    stripe.set(i, 0);
+                }
+            }
+        }
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    // Значения меньше 32 — каждое в своей корзине, дальше по 32 корзины на степень двойки
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.userservice.util;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Уровни логгеров Log4j2, которые меняются на ходу без перечитывания конфигурации.
+ * SQL Hibernate пишет в логгер org.hibernate.SQL на уровне DEBUG (hibernate.show_sql выключен,
+ * иначе запросы шли бы мимо логгера в System.out); по умолчанию этот логгер на INFO.
+ */
+public final class LoggingSettings {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingSettings.class);
+
+    public static final String SQL_LOGGER = "org.hibernate.SQL";
+
+    private LoggingSettings() {
+    }
+
+    public static boolean isSqlLoggingEnabled() {
+        return LogManager.getLogger(SQL_LOGGER).isDebugEnabled();
+    }
+
+    public static void setSqlLoggingEnabled(boolean enabled) {
+        Configurator.setLevel(SQL_LOGGER, enabled ? Level.DEBUG : Level.INFO);
+        logger.info("SQL logging {}", enabled ? "enabled" : "disabled");
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.userservice.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Счётчики одной операции: вызовы, ошибки и гистограмма задержек за текущее окно.
+ * Окно начинается при создании и при каждом {@link #reset()}.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final String operation;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongSupplier clockMillis;
+    private volatile long windowStartMillis;
+
+    public OperationMetrics(String operation) {
+        this(operation, System::currentTimeMillis);
+    }
+
+    OperationMetrics(String operation, LongSupplier clockMillis) {
+        this.operation = operation;
+        this.clockMillis = clockMillis;
+        this.windowStartMillis = clockMillis.getAsLong();
+    }
+
+    public void recordSuccess(long nanos) {
+        latency.record(nanos);
+    }
+
+    // Неудачный вызов тоже попадает в гистограмму: таймауты — как раз хвост p99
+    public void recordFailure(long nanos) {
+        errors.increment();
+        latency.record(nanos);
+    }
+
+    public OperationStatistics getStatistics() {
+        long[] percentiles = latency.valuesAtPercentiles(50, 90, 99, 99.9);
+        return new OperationStatistics(operation, latency.getCount(), errors.sum(), getWindow(),
+                latency.getMeanNanos() / NANOS_PER_MICRO,
+                percentiles[0] / NANOS_PER_MICRO,
+                percentiles[1] / NANOS_PER_MICRO,
+                percentiles[2] / NANOS_PER_MICRO,
+                percentiles[3] / NANOS_PER_MICRO,
+                latency.getMaxNanos() / NANOS_PER_MICRO);
+    }
+
+    private Duration getWindow() {
+        return Duration.ofMillis(Math.max(0, clockMillis.getAsLong() - windowStartMillis));
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getWindowSeconds() {
+        return getWindow().toSeconds();
+    }
+
+    @Override
+    public double getCallsPerSecond() {
+        return getStatistics().getCallsPerSecond();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMeanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.valueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latency.valueAtPercentile(90) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.valueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.valueAtPercentile(99.9) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        windowStartMillis = clockMillis.getAsLong();
+    }
+}
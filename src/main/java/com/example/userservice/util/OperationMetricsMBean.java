@@ -0,0 +1,28 @@
+package com.example.userservice.util;
+
+// JMX-представление одной операции; времена в микросекундах, окно — с последнего reset()
+public interface OperationMetricsMBean {
+    String getOperation();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getWindowSeconds();
+
+    double getCallsPerSecond();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,86 @@
+package com.example.userservice.util;
+
+import java.time.Duration;
+
+public class OperationStatistics {
+    private final String operation;
+    private final long calls;
+    private final long errors;
+    private final Duration window;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p90Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+
+    OperationStatistics(String operation, long calls, long errors, Duration window, double meanMicros,
+                        double p50Micros, double p90Micros, double p99Micros, double p999Micros, double maxMicros) {
+        this.operation = operation;
+        this.calls = calls;
+        this.errors = errors;
+        this.window = window;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    // Время с последнего сброса
+    public Duration getWindow() {
+        return window;
+    }
+
+    public double getCallsPerSecond() {
+        long millis = window.toMillis();
+        return millis == 0 ? 0.0 : calls * 1000.0 / millis;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    public double getP90Micros() {
+        return p90Micros;
+    }
+
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "OperationStatistics[operation='%s', calls=%d, errors=%d, window=%ds, mean=%.1fus, "
+                        + "p50=%.1fus, p90=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus]",
+                operation, calls, errors, window.toSeconds(), meanMicros, p50Micros, p90Micros, p99Micros,
+                p999Micros, maxMicros
+        );
+    }
+}
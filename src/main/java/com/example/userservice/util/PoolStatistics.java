@@ -0,0 +1,81 @@
+package com.example.userservice.util;
+
+public class PoolStatistics {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int threadsAwaitingConnection;
+    private final int maximumPoolSize;
+    private final long acquireCount;
+    private final double averageAcquireMillis;
+    private final double maxAcquireMillis;
+    private final long acquireTimeouts;
+    private final long maxUsageMillis;
+
+    PoolStatistics(int activeConnections, int idleConnections, int totalConnections,
+                   int threadsAwaitingConnection, int maximumPoolSize, long acquireCount,
+                   double averageAcquireMillis, double maxAcquireMillis, long acquireTimeouts,
+                   long maxUsageMillis) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.maximumPoolSize = maximumPoolSize;
+        this.acquireCount = acquireCount;
+        this.averageAcquireMillis = averageAcquireMillis;
+        this.maxAcquireMillis = maxAcquireMillis;
+        this.acquireTimeouts = acquireTimeouts;
+        this.maxUsageMillis = maxUsageMillis;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public double getAverageAcquireMillis() {
+        return averageAcquireMillis;
+    }
+
+    public double getMaxAcquireMillis() {
+        return maxAcquireMillis;
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts;
+    }
+
+    public long getMaxUsageMillis() {
+        return maxUsageMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "PoolStatistics[active=%d, idle=%d, total=%d/%d, waiting=%d, acquired=%d, "
+                        + "avgAcquire=%.3fms, maxAcquire=%.3fms, timeouts=%d, maxUsage=%dms]",
+                activeConnections, idleConnections, totalConnections, maximumPoolSize,
+                threadsAwaitingConnection, acquireCount, averageAcquireMillis, maxAcquireMillis,
+                acquireTimeouts, maxUsageMillis
+        );
+    }
+}
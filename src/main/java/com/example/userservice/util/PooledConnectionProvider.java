@@ -0,0 +1,58 @@
+package com.example.userservice.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Отдаёт Hibernate соединения из HikariCP; жизненным циклом пула управляет HibernateUtil
+class PooledConnectionProvider implements ConnectionProvider {
+    // ConnectionProvider наследует Serializable из Service; сам провайдер не сериализуется
+    private static final long serialVersionUID = 1L;
+
+    private final HikariDataSource dataSource;
+    private final SlowQueryLog slowQueryLog;
+
+    PooledConnectionProvider(HikariDataSource dataSource, SlowQueryLog slowQueryLog) {
+        this.dataSource = dataSource;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        // Проверка при выдаче: с выключенным журналом медленных запросов соединение не оборачивается
+        return slowQueryLog.isEnabled() ? slowQueryLog.wrap(connection, dataSource) : connection;
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+                || unwrapType.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType)) {
+            return (T) this;
+        }
+        if (unwrapType.isAssignableFrom(HikariDataSource.class)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+}
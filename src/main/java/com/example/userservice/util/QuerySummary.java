@@ -0,0 +1,64 @@
+package com.example.userservice.util;
+
+public class QuerySummary {
+    private final String query;
+    private final long executions;
+    private final long rows;
+    private final long averageMillis;
+    private final long maxMillis;
+    private final long totalMillis;
+    private final long cacheHits;
+    private final long cacheMisses;
+
+    QuerySummary(String query, long executions, long rows, long averageMillis, long maxMillis, long totalMillis,
+                 long cacheHits, long cacheMisses) {
+        this.query = query;
+        this.executions = executions;
+        this.rows = rows;
+        this.averageMillis = averageMillis;
+        this.maxMillis = maxMillis;
+        this.totalMillis = totalMillis;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+    }
+
+    // HQL или имя/текст native-запроса, как его видит Hibernate
+    public String getQuery() {
+        return query;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getAverageMillis() {
+        return averageMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QuerySummary[executions=%d, rows=%d, avg=%dms, max=%dms, total=%dms, cacheHits=%d, "
+                        + "cacheMisses=%d, query='%s']",
+                executions, rows, averageMillis, maxMillis, totalMillis, cacheHits, cacheMisses, query);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.userservice.util;
+
+import org.hibernate.SessionFactory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Выбирает реплику для чтения: наименее загруженную по числу занятых соединений,
+ * при равенстве — по кругу. Упавшая реплика исключается на {@code retryAfterNanos}.
+ * После записи поток читает с primary в течение {@code stickyWindowNanos} (read-your-writes).
+ */
+class ReplicaRouter {
+    private final List<Replica> replicas;
+    private final long stickyWindowNanos;
+    private final long retryAfterNanos;
+    private final LongSupplier clock;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Long> lastWrite = new ThreadLocal<>();
+
+    ReplicaRouter(List<Replica> replicas, long stickyWindowNanos, long retryAfterNanos, LongSupplier clock) {
+        this.replicas = List.copyOf(replicas);
+        this.stickyWindowNanos = stickyWindowNanos;
+        this.retryAfterNanos = retryAfterNanos;
+        this.clock = clock;
+    }
+
+    // null — читать с primary
+    SessionFactory route() {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        Long writtenAt = lastWrite.get();
+        if (writtenAt != null) {
+            if (now - writtenAt < stickyWindowNanos) {
+                return null;
+            }
+            lastWrite.remove();
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        Replica best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.failed && now - replica.failedAt < retryAfterNanos) {
+                continue;
+            }
+            int load = replica.activeConnections.getAsInt();
+            if (load < bestLoad) {
+                best = replica;
+                bestLoad = load;
+            }
+        }
+        return best != null ? best.sessionFactory : null;
+    }
+
+    void markWrite() {
+        if (!replicas.isEmpty()) {
+            lastWrite.set(clock.getAsLong());
+        }
+    }
+
+    // Отметка последней записи текущего потока; null — записей в окне не было
+    Long getLastWrite() {
+        return lastWrite.get();
+    }
+
+    // Переносит отметку записи в текущий поток, когда операции одного клиента идут в разных потоках
+    void setLastWrite(Long writtenAt) {
+        if (writtenAt == null) {
+            lastWrite.remove();
+        } else {
+            lastWrite.set(writtenAt);
+        }
+    }
+
+    void markFailed(SessionFactory sessionFactory) {
+        for (Replica replica : replicas) {
+            if (replica.sessionFactory == sessionFactory) {
+                replica.failedAt = clock.getAsLong();
+                replica.failed = true;
+            }
+        }
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    static final class Replica {
+        private final String name;
+        private final SessionFactory sessionFactory;
+        private final IntSupplier activeConnections;
+        private volatile boolean failed;
+        private volatile long failedAt;
+
+        Replica(String name, SessionFactory sessionFactory, IntSupplier activeConnections) {
+            this.name = name;
+            this.sessionFactory = sessionFactory;
+            this.activeConnections = activeConnections;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        SessionFactory getSessionFactory() {
+            return sessionFactory;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.userservice.util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Версионные миграции схемы из {@code db/migration/V<версия>__<описание>.sql}.
+ * Применённые версии и контрольные суммы хранятся в {@code schema_migrations};
+ * изменённый после применения скрипт останавливает старт. Параллельные запуски
+ * (несколько экземпляров при деплое) сериализуются advisory lock'ом PostgreSQL.
+ * <p>
+ * Скрипт с директивой {@value #NO_TRANSACTION} выполняется вне транзакции, по одной
+ * команде в autocommit: так работает {@code CREATE INDEX CONCURRENTLY}. Такой скрипт
+ * должен быть идемпотентным — после ошибки он выполняется заново целиком.
+ * Запуск из командной строки: {@code SchemaMigrator <jdbc-url> <user> <password>}
+ */
+public class SchemaMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    public static final String DEFAULT_LOCATION = "db/migration";
+    static final String NO_TRANSACTION = "-- migration: no-transaction";
+    // Произвольная константа ключа advisory lock, общая для всех экземпляров приложения
+    private static final long LOCK_KEY = 0x5573657253636D61L;
+    private static final long LOCK_POLL_MS = 250;
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final DataSource dataSource;
+    private final String location;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this(dataSource, DEFAULT_LOCATION);
+    }
+
+    public SchemaMigrator(DataSource dataSource, String location) {
+        this.dataSource = dataSource;
+        this.location = location;
+    }
+
+    // Применяет недостающие миграции по возрастанию версии; возвращает число применённых
+    public int migrate() {
+        List<Migration> migrations = load(Thread.currentThread().getContextClassLoader(), location);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            lock(connection);
+            try {
+                return migrate(connection, migrations);
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, LOCK_KEY);
+                    unlock.execute();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to migrate schema: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Опрос pg_try_advisory_lock вместо блокирующего pg_advisory_lock: ждущий в pg_advisory_lock
+     * запрос держит снимок, а CREATE INDEX CONCURRENTLY у владельца блокировки ждёт завершения
+     * всех более старых снимков — получается взаимоблокировка.
+     */
+    private static void lock(Connection connection) throws SQLException {
+        boolean waiting = false;
+        try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            lock.setLong(1, LOCK_KEY);
+            while (true) {
+                try (ResultSet rs = lock.executeQuery()) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        return;
+                    }
+                }
+                if (!waiting) {
+                    logger.info("Waiting for another instance to finish schema migrations");
+                    waiting = true;
+                }
+                try {
+                    Thread.sleep(LOCK_POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for the migration lock", e);
+                }
+            }
+        }
+    }
+
+    private int migrate(Connection connection, List<Migration> migrations) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                    + "version integer PRIMARY KEY, "
+                    + "description varchar(200) NOT NULL, "
+                    + "checksum varchar(64) NOT NULL, "
+                    + "execution_ms bigint NOT NULL, "
+                    + "installed_at timestamp NOT NULL DEFAULT now())");
+        }
+        // Читается под блокировкой: другой экземпляр мог только что применить миграции
+        Map<Integer, String> applied = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.getVersion());
+            if (checksum != null) {
+                if (!checksum.equals(migration.getChecksum())) {
+                    throw new IllegalStateException("Migration " + migration
+                            + " was changed after it had been applied; add a new migration instead");
+                }
+                continue;
+            }
+            apply(connection, migration);
+            count++;
+        }
+        if (count > 0) {
+            logger.info("Applied {} schema migration(s)", count);
+        } else {
+            logger.debug("Schema is up to date");
+        }
+        return count;
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        logger.info("Applying migration {}{}", migration, migration.isTransactional() ? "" : " (no transaction)");
+        long started = System.nanoTime();
+        connection.setAutoCommit(!migration.isTransactional());
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : migration.getStatements()) {
+                    statement.execute(sql);
+                }
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            try (PreparedStatement record = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                record.setInt(1, migration.getVersion());
+                record.setString(2, migration.getDescription());
+                record.setString(3, migration.getChecksum());
+                record.setLong(4, elapsedMs);
+                record.executeUpdate();
+            }
+            if (migration.isTransactional()) {
+                connection.commit();
+            }
+            logger.info("Migration {} applied in {} ms", migration, elapsedMs);
+        } catch (SQLException e) {
+            if (migration.isTransactional()) {
+                connection.rollback();
+            }
+            throw new SQLException("Migration " + migration + " failed: " + e.getMessage(), e.getSQLState(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    static List<Migration> load(ClassLoader classLoader, String location) {
+        URL url = classLoader.getResource(location);
+        if (url == null) {
+            throw new IllegalStateException("Migration location not found on classpath: " + location);
+        }
+        try {
+            URI uri = url.toURI();
+            if (!"jar".equals(uri.getScheme())) {
+                return load(Paths.get(uri));
+            }
+            try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of())) {
+                return load(jar.getPath(location));
+            } catch (FileSystemAlreadyExistsException e) {
+                return load(FileSystems.getFileSystem(uri).getPath(location));
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException("Failed to load migrations from " + location + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static List<Migration> load(Path directory) throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(".sql")) {
+                    continue;
+                }
+                try (InputStream in = Files.newInputStream(file)) {
+                    migrations.add(Migration.parse(name, new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+                }
+            }
+        }
+        migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).getVersion() == migrations.get(i - 1).getVersion()) {
+                throw new IllegalStateException("Duplicate migration version: " + migrations.get(i).getVersion());
+            }
+        }
+        return migrations;
+    }
+
+    /**
+     * Делит скрипт на команды по ';' вне строк, идентификаторов в кавычках,
+     * dollar-quoted блоков ($$ ... $$, тела DO и функций) и комментариев.
+     */
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = script.length();
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+            int end;
+            if (c == '-' && i + 1 < length && script.charAt(i + 1) == '-') {
+                end = script.indexOf('\n', i);
+                // Комментарии не отправляются в базу
+                i = end < 0 ? length : end;
+                continue;
+            } else if (c == '/' && i + 1 < length && script.charAt(i + 1) == '*') {
+                end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                current.append(' ');
+                continue;
+            } else if (c == '\'' || c == '"') {
+                end = script.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+            } else if (c == '$' && (end = dollarQuoteEnd(script, i)) > 0) {
+                // end уже указывает за закрывающую метку
+            } else if (c == ';') {
+                addStatement(statements, current);
+                i++;
+                continue;
+            } else {
+                end = i + 1;
+            }
+            current.append(script, i, end);
+            i = end;
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    // Конец блока $tag$ ... $tag$ или -1, если с этой позиции не начинается метка
+    private static int dollarQuoteEnd(String script, int start) {
+        int tagEnd = start + 1;
+        while (tagEnd < script.length()
+                && (Character.isLetterOrDigit(script.charAt(tagEnd)) || script.charAt(tagEnd) == '_')) {
+            tagEnd++;
+        }
+        if (tagEnd >= script.length() || script.charAt(tagEnd) != '$' || Character.isDigit(script.charAt(start + 1))) {
+            return -1;
+        }
+        String tag = script.substring(start, tagEnd + 1);
+        int close = script.indexOf(tag, tagEnd + 1);
+        return close < 0 ? script.length() : close + tag.length();
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    static final class Migration {
+        private final int version;
+        private final String description;
+        private final String checksum;
+        private final boolean transactional;
+        private final List<String> statements;
+
+        private Migration(int version, String description, String checksum, boolean transactional,
+                          List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.checksum = checksum;
+            this.transactional = transactional;
+            this.statements = statements;
+        }
+
+        static Migration parse(String fileName, String script) {
+            Matcher matcher = SCRIPT_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Invalid migration file name: " + fileName
+                        + " (expected V<version>__<description>.sql)");
+            }
+            // Переводы строк нормализуются: checkout под Windows не должен менять контрольную сумму
+            String normalized = script.replace("\r\n", "\n");
+            boolean transactional = normalized.lines().noneMatch(line -> line.trim().equals(NO_TRANSACTION));
+            return new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+                    sha256(normalized), transactional, split(normalized));
+        }
+
+        private static String sha256(String script) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(digest.digest(script.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        int getVersion() {
+            return version;
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        String getChecksum() {
+            return checksum;
+        }
+
+        boolean isTransactional() {
+            return transactional;
+        }
+
+        List<String> getStatements() {
+            return statements;
+        }
+
+        @Override
+        public String toString() {
+            return "V" + version + " (" + description + ")";
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: SchemaMigrator <jdbc url> <user> <password>");
+            System.exit(2);
+        }
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("schema-migrator");
+        config.setJdbcUrl(args[0]);
+        config.setUsername(args[1]);
+        config.setPassword(args[2]);
+        config.setMaximumPoolSize(1);
+        try (HikariDataSource pool = new HikariDataSource(config)) {
+            System.out.println("Applied " + new SchemaMigrator(pool).migrate() + " migration(s)");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.userservice.util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+// Сборка SessionFactory и пулов HikariCP из hibernate.cfg.xml; не трогает фабрику HibernateUtil
+public final class SessionFactoryBuilder {
+    private static final String HIKARI_PREFIX = "hibernate.hikari.";
+    // Миграции из db/migration перед сборкой фабрики; false, если схему накатывает отдельный шаг деплоя
+    public static final String MIGRATIONS_ENABLED = "hibernate.migrations.enabled";
+
+    private SessionFactoryBuilder() {
+    }
+
+    // hibernate.cfg.xml; системные свойства hibernate.* переопределяют значения из файла
+    static Configuration loadConfiguration() {
+        Configuration configuration = new Configuration();
+        configuration.configure("hibernate.cfg.xml");
+        Properties system = System.getProperties();
+        for (String key : system.stringPropertyNames()) {
+            if (key.startsWith("hibernate.")) {
+                configuration.setProperty(key, system.getProperty(key));
+            }
+        }
+        return configuration;
+    }
+
+    static HikariConfig createPoolConfig(Properties settings, String poolName) {
+        Properties poolProperties = new Properties();
+        for (String key : settings.stringPropertyNames()) {
+            if (key.startsWith(HIKARI_PREFIX)) {
+                poolProperties.setProperty(key.substring(HIKARI_PREFIX.length()), settings.getProperty(key));
+            }
+        }
+        HikariConfig config = new HikariConfig(poolProperties);
+        config.setPoolName(poolName);
+        config.setJdbcUrl(settings.getProperty(AvailableSettings.URL));
+        config.setUsername(settings.getProperty(AvailableSettings.USER));
+        config.setPassword(settings.getProperty(AvailableSettings.PASS));
+        String driverClass = settings.getProperty(AvailableSettings.DRIVER);
+        if (driverClass != null) {
+            config.setDriverClassName(driverClass);
+        }
+        return config;
+    }
+
+    // Фабрика для отдельной базы (например, шарда) с учётными данными primary
+    public static SessionFactory buildStandalone(String name, String url) {
+        Properties settings = loadConfiguration().getProperties();
+        return buildStandalone(name, url, settings.getProperty(AvailableSettings.USER),
+                settings.getProperty(AvailableSettings.PASS), false);
+    }
+
+    /**
+     * Отдельная фабрика со своим пулом; пул закрывается вместе с фабрикой.
+     * Second-level cache выключен: регионы JCache общие для всех фабрик процесса.
+     */
+    static SessionFactory buildStandalone(String name, String url, String username, String password,
+                                          boolean readOnly) {
+        Configuration configuration = loadConfiguration();
+        configuration.setProperty(AvailableSettings.URL, url);
+        configuration.setProperty(AvailableSettings.USER, username);
+        configuration.setProperty(AvailableSettings.PASS, password);
+        if (readOnly) {
+            // Схемой управляет только primary
+            configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "none");
+        }
+        configuration.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+        configuration.setProperty(AvailableSettings.USE_QUERY_CACHE, "false");
+
+        HikariConfig poolConfig = createPoolConfig(configuration.getProperties(), name);
+        poolConfig.setReadOnly(readOnly);
+        HikariDataSource dataSource = new HikariDataSource(poolConfig);
+        try {
+            BootstrapTimings timings = new BootstrapTimings(1);
+            if (!readOnly) {
+                migrate(configuration.getProperties(), dataSource, timings);
+            }
+            configuration.getProperties().put(AvailableSettings.CONNECTION_PROVIDER,
+                    new PooledConnectionProvider(dataSource, HibernateUtil.getSlowQueryLog()));
+            return build(configuration, new SessionFactoryObserver() {
+                @Override
+                public void sessionFactoryClosed(SessionFactory factory) {
+                    dataSource.close();
+                }
+            }, timings);
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+    }
+
+    // До сборки фабрики: hbm2ddl validate проверяет уже мигрированную схему
+    static void migrate(Properties settings, DataSource dataSource, BootstrapTimings timings) {
+        if (Boolean.parseBoolean(settings.getProperty(MIGRATIONS_ENABLED, "true").trim())) {
+            new SchemaMigrator(dataSource).migrate();
+            timings.phase("migrations");
+        }
+    }
+
+    /**
+     * Собирает фабрику через native bootstrap, чтобы замерить фазы по отдельности:
+     * реестр сервисов, метамодель (маппинги и именованные запросы), сама фабрика (вместе с hbm2ddl).
+     */
+    static SessionFactory build(Configuration configuration, SessionFactoryObserver observer,
+                                BootstrapTimings timings) {
+        StandardServiceRegistry registry = configuration.getStandardServiceRegistryBuilder()
+                .applySettings(configuration.getProperties())
+                .build();
+        try {
+            timings.phase("registry");
+            // Маппинги из hibernate.cfg.xml подхватываются из реестра
+            Metadata metadata = new MetadataSources(registry).buildMetadata();
+            timings.phase("metadata");
+            SessionFactory factory = metadata.getSessionFactoryBuilder()
+                    .addSessionFactoryObservers(observer)
+                    .build();
+            timings.phase("session factory");
+            return factory;
+        } catch (RuntimeException e) {
+            StandardServiceRegistryBuilder.destroy(registry);
+            throw e;
+        }
+    }
+
+    static HikariDataSource getDataSource(SessionFactory factory) {
+        return factory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .requireService(ConnectionProvider.class).unwrap(HikariDataSource.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.userservice.util;
+
+import java.time.Instant;
+
+public class SlowQuery {
+    private final Instant executedAt;
+    private final String sql;
+    private final String binds;
+    private final double durationMillis;
+    private volatile String plan;
+
+    SlowQuery(Instant executedAt, String sql, String binds, double durationMillis) {
+        this.executedAt = executedAt;
+        this.sql = sql;
+        this.binds = binds;
+        this.durationMillis = durationMillis;
+    }
+
+    public Instant getExecutedAt() {
+        return executedAt;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    // Параметры в порядке позиций; строки замаскированы, если включено hibernate.slow_query.redact_binds
+    public String getBinds() {
+        return binds;
+    }
+
+    public double getDurationMillis() {
+        return durationMillis;
+    }
+
+    // null, пока план не снят или если EXPLAIN выключен
+    public String getPlan() {
+        return plan;
+    }
+
+    void attachPlan(String plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SlowQuery[at=%s, duration=%.1fms, sql='%s', binds=%s]",
+                executedAt, durationMillis, sql, binds);
+    }
+}
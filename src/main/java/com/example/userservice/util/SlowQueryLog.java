@@ -0,0 +1,363 @@
+package com.example.userservice.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Журнал медленных SQL-запросов на уровне JDBC. Соединения из пула оборачиваются прокси,
+ * которые замеряют execute* (без чтения ResultSet) и запоминают параметры. Запрос дольше порога
+ * пишется в лог com.example.userservice.SLOW_QUERY и в список последних; при включённом EXPLAIN
+ * план снимается в фоне на отдельном соединении. Настройки меняются на ходу, а выключенный
+ * журнал (порог 0) соединения не оборачивает вовсе.
+ */
+public class SlowQueryLog {
+    private static final Logger logger = LoggerFactory.getLogger("com.example.userservice.SLOW_QUERY");
+
+    // Порог в миллисекундах; 0 — журнал выключен
+    public static final String THRESHOLD_MS = "hibernate.slow_query.threshold_ms";
+    // none, plan или analyze — см. ExplainMode
+    public static final String EXPLAIN = "hibernate.slow_query.explain";
+    // false — показывать строковые параметры как есть (только для отладки: в них email и имена)
+    public static final String REDACT_BINDS = "hibernate.slow_query.redact_binds";
+    static final long DEFAULT_THRESHOLD_MS = 500;
+    private static final int RECENT_LIMIT = 50;
+    // Очередь EXPLAIN ограничена: при лавине медленных запросов лишние планы не снимаются
+    private static final int EXPLAIN_QUEUE_SIZE = 16;
+    // Один и тот же запрос объясняется не чаще раза в минуту
+    private static final long EXPLAIN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int EXPLAINED_SQL_LIMIT = 1000;
+
+    private volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_THRESHOLD_MS);
+    private volatile ExplainMode explainMode = ExplainMode.NONE;
+    private volatile boolean redactBinds = true;
+    private final LongAdder slowQueries = new LongAdder();
+    private final Deque<SlowQuery> recent = new ArrayDeque<>();
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor;
+
+    public SlowQueryLog() {
+        explainExecutor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        explainExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    void configure(Properties settings) {
+        String threshold = settings.getProperty(THRESHOLD_MS);
+        setThresholdMillis(threshold == null || threshold.isBlank()
+                ? DEFAULT_THRESHOLD_MS
+                : Long.parseLong(threshold.trim()));
+        setExplainMode(ExplainMode.parse(settings.getProperty(EXPLAIN)));
+        setRedactBinds(Boolean.parseBoolean(settings.getProperty(REDACT_BINDS, "true").trim()));
+    }
+
+    public boolean isEnabled() {
+        return thresholdNanos > 0;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    // Действует сразу для новых соединений из пула; уже выданные дорабатывают со старой обёрткой
+    public void setThresholdMillis(long thresholdMillis) {
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+    }
+
+    public ExplainMode getExplainMode() {
+        return explainMode;
+    }
+
+    public void setExplainMode(ExplainMode explainMode) {
+        this.explainMode = explainMode;
+    }
+
+    public boolean isRedactBinds() {
+        return redactBinds;
+    }
+
+    public void setRedactBinds(boolean redactBinds) {
+        this.redactBinds = redactBinds;
+    }
+
+    public long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+
+    // Последние медленные запросы, новые первыми
+    public List<SlowQuery> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    public void clear() {
+        slowQueries.reset();
+        lastExplained.clear();
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    Connection wrap(Connection connection, DataSource source) {
+        return (Connection) Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, source));
+    }
+
+    void record(String sql, Object[] binds, int bindCount, int batchSize, long nanos, DataSource source) {
+        slowQueries.increment();
+        String bindText = formatBinds(binds, bindCount, redactBinds);
+        if (batchSize > 1) {
+            bindText = "batch of " + batchSize + ", last " + bindText;
+        }
+        SlowQuery query = new SlowQuery(Instant.now(), sql, bindText, nanos / 1_000_000.0);
+        synchronized (recent) {
+            recent.addFirst(query);
+            if (recent.size() > RECENT_LIMIT) {
+                recent.removeLast();
+            }
+        }
+        logger.warn("Slow query ({} ms): {} binds {}",
+                String.format(Locale.ROOT, "%.1f", query.getDurationMillis()), sql, bindText);
+
+        ExplainMode mode = explainMode;
+        if (mode != ExplainMode.NONE && source != null && isExplainable(sql, binds, bindCount) && claimExplain(sql)) {
+            Object[] values = binds == null ? new Object[0] : Arrays.copyOf(binds, bindCount);
+            explainExecutor.execute(() -> explain(query, values, source, mode));
+        }
+    }
+
+    private boolean claimExplain(String sql) {
+        long now = System.nanoTime();
+        Long previous = lastExplained.get(sql);
+        if (previous != null && now - previous < EXPLAIN_INTERVAL_NANOS) {
+            return false;
+        }
+        if (lastExplained.size() >= EXPLAINED_SQL_LIMIT) {
+            lastExplained.clear();
+        }
+        lastExplained.put(sql, now);
+        return true;
+    }
+
+    private void explain(SlowQuery query, Object[] binds, DataSource source, ExplainMode mode) {
+        // ANALYZE выполняет запрос: для записи он повторил бы её, поэтому только SELECT и в откатываемой транзакции
+        boolean analyze = mode == ExplainMode.ANALYZE && startsWithKeyword(query.getSql(), "select");
+        String explainSql = (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + query.getSql();
+        try (Connection connection = source.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(explainSql)) {
+                for (int i = 0; i < binds.length; i++) {
+                    statement.setObject(i + 1, binds[i]);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                query.attachPlan(plan.toString());
+                logger.warn("Plan for slow query {}:\n{}", query.getSql(), plan);
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Failed to explain slow query {}: {}", query.getSql(), e.getMessage());
+        }
+    }
+
+    private static boolean isExplainable(String sql, Object[] binds, int bindCount) {
+        if (sql == null) {
+            return false;
+        }
+        // Потоки и LOB-ы уже прочитаны драйвером, повторно их не передать
+        for (int i = 0; i < bindCount; i++) {
+            Object value = binds[i];
+            if (value instanceof InputStream || value instanceof Reader || value instanceof Blob || value instanceof Clob) {
+                return false;
+            }
+        }
+        return startsWithKeyword(sql, "select") || startsWithKeyword(sql, "with") || startsWithKeyword(sql, "insert")
+                || startsWithKeyword(sql, "update") || startsWithKeyword(sql, "delete");
+    }
+
+    private static boolean startsWithKeyword(String sql, String keyword) {
+        String trimmed = sql.stripLeading();
+        return trimmed.regionMatches(true, 0, keyword, 0, keyword.length())
+                && (trimmed.length() == keyword.length() || !Character.isLetterOrDigit(trimmed.charAt(keyword.length())));
+    }
+
+    static String formatBinds(Object[] binds, int bindCount, boolean redact) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < bindCount; i++) {
+            joiner.add(formatBind(binds[i], redact));
+        }
+        return joiner.toString();
+    }
+
+    // Числа, флаги и даты показываются всегда; строки и массивы могут содержать персональные данные
+    static String formatBind(Object value, boolean redact) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof TemporalAccessor
+                || value instanceof Date) {
+            return value.toString();
+        }
+        if (value instanceof CharSequence text) {
+            return redact ? "'***'(" + text.length() + " chars)" : "'" + text + "'";
+        }
+        if (value instanceof Array) {
+            return redact ? "<array>" : value.toString();
+        }
+        return "<" + value.getClass().getSimpleName() + ">";
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Оборачивает выдаваемые соединением statement-ы; остальные вызовы идут к соединению пула
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private final DataSource source;
+
+        ConnectionHandler(Connection connection, DataSource source) {
+            this.connection = connection;
+            this.source = source;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            Object result = SlowQueryLog.invoke(connection, method, args);
+            if (result instanceof Statement statement
+                    && (name.startsWith("prepare") || "createStatement".equals(name))) {
+                String sql = name.startsWith("prepare") ? (String) args[0] : null;
+                return Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()}, new StatementHandler(statement, sql, source, proxy));
+            }
+            return result;
+        }
+    }
+
+    // Запоминает позиционные параметры и замеряет execute*; не потокобезопасен, как и сам Statement
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final DataSource source;
+        private final Object connectionProxy;
+        private Object[] binds;
+        private int bindCount;
+        private int batchSize;
+
+        StatementHandler(Statement statement, String sql, DataSource source, Object connectionProxy) {
+            this.statement = statement;
+            this.sql = sql;
+            this.source = source;
+            this.connectionProxy = connectionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (args != null && args.length >= 2 && name.startsWith("set") && args[0] instanceof Integer index) {
+                bind(index, "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                bindCount = 0;
+            } else if ("addBatch".equals(name)) {
+                batchSize++;
+            } else if ("clearBatch".equals(name)) {
+                batchSize = 0;
+            } else if ("getConnection".equals(name)) {
+                return connectionProxy;
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            return SlowQueryLog.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                return SlowQueryLog.invoke(statement, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                long threshold = thresholdNanos;
+                if (threshold > 0 && elapsed >= threshold) {
+                    String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+                    record(executed, binds, bindCount, batchSize, elapsed, source);
+                }
+                if (method.getName().endsWith("Batch")) {
+                    batchSize = 0;
+                }
+            }
+        }
+
+        private void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (binds == null) {
+                binds = new Object[Math.max(index, 8)];
+            } else if (index > binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+            }
+            binds[index - 1] = value;
+            bindCount = Math.max(bindCount, index);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.userservice.util;
+
+import com.example.userservice.model.User;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Рабочий набор пользователей в памяти для массовых задач (сверки, импорт): поиск по id
+ * без упаковки в {@link Long} и вторичный индекс по email. Пользователи хранятся плотными
+ * массивами, а хэш-таблицы с открытой адресацией (линейное пробирование) держат только
+ * int-номера строк — это порядка 30 байт на запись против 50+ у {@code HashMap<Long, User>}.
+ * <p>
+ * Индекс не потокобезопасен. Email индексируется в момент {@link #put(User)}: после
+ * изменения email пользователя положите его повторно.
+ */
+public class UserIndex {
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    // Доля занятых слотов, после которой таблицы удваиваются
+    private static final double MAX_LOAD = 0.75;
+    // Слот таблицы: 0 — пусто, иначе номер строки + 1
+    private static final int EMPTY = 0;
+
+    private long[] ids;
+    private User[] users;
+    private String[] emails;
+    private int size;
+
+    private int[] idSlots;
+    private int[] emailSlots;
+    private int mask;
+    private int shift;
+    private int resizeAt;
+
+    public UserIndex() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    // expectedSize — сколько пользователей будет загружено; до него индекс не перестраивается
+    public UserIndex(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        int capacity = Math.max(expectedSize, 1);
+        ids = new long[capacity];
+        users = new User[capacity];
+        emails = new String[capacity];
+        allocateTables(tableSizeFor(capacity));
+    }
+
+    /**
+     * Добавляет пользователя или заменяет запись с тем же id.
+     * Пользователь без id не индексируется: до persist его идентичность не определена.
+     */
+    public void put(User user) {
+        Long boxedId = user.getId();
+        if (boxedId == null) {
+            throw new IllegalArgumentException("Cannot index a user without an id: " + user.getEmail());
+        }
+        long id = boxedId;
+        String email = user.getEmail() == null ? null : EmailValidator.lookupKey(user.getEmail());
+        int row = findRow(id);
+        int emailRow = email == null ? -1 : findEmailRow(email);
+        if (emailRow >= 0 && emailRow != row) {
+            throw new IllegalArgumentException("Email " + email + " is already indexed for user " + ids[emailRow]);
+        }
+
+        if (row >= 0) {
+            if (email == null ? emails[row] != null : !email.equals(emails[row])) {
+                if (emails[row] != null) {
+                    removeEmailSlot(emails[row], row);
+                }
+                emails[row] = email;
+                if (email != null) {
+                    insertEmailSlot(email, row);
+                }
+            }
+            users[row] = user;
+            return;
+        }
+
+        if (size == ids.length) {
+            growRows();
+        }
+        if (size == resizeAt) {
+            allocateTables(idSlots.length * 2);
+            rehash();
+        }
+        row = size++;
+        ids[row] = id;
+        users[row] = user;
+        emails[row] = email;
+        insertIdSlot(id, row);
+        if (email != null) {
+            insertEmailSlot(email, row);
+        }
+    }
+
+    public void putAll(Collection<User> values) {
+        ensureCapacity(size + values.size());
+        for (User user : values) {
+            put(user);
+        }
+    }
+
+    public User get(long id) {
+        int row = findRow(id);
+        return row < 0 ? null : users[row];
+    }
+
+    // Email нормализуется так же, как в UserDaoImpl.findByEmail
+    public User getByEmail(String email) {
+        int row = findEmailRow(EmailValidator.lookupKey(email));
+        return row < 0 ? null : users[row];
+    }
+
+    public boolean contains(long id) {
+        return findRow(id) >= 0;
+    }
+
+    public User remove(long id) {
+        int row = findRow(id);
+        if (row < 0) {
+            return null;
+        }
+        User removed = users[row];
+        removeIdSlot(id);
+        if (emails[row] != null) {
+            removeEmailSlot(emails[row], row);
+        }
+        // Последняя строка переезжает на место удалённой, массивы остаются плотными
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            users[row] = users[last];
+            emails[row] = emails[last];
+            relinkIdSlot(ids[row], last, row);
+            if (emails[row] != null) {
+                relinkEmailSlot(emails[row], last, row);
+            }
+        }
+        users[last] = null;
+        emails[last] = null;
+        return removed;
+    }
+
+    // Обход в порядке строк: плотные массивы, без итератора и упаковки
+    public void forEach(Consumer<User> consumer) {
+        for (int row = 0; row < size; row++) {
+            consumer.accept(users[row]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int row = 0; row < size; row++) {
+            users[row] = null;
+            emails[row] = null;
+        }
+        size = 0;
+        Arrays.fill(idSlots, EMPTY);
+        Arrays.fill(emailSlots, EMPTY);
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize > ids.length) {
+            resizeRows(expectedSize);
+        }
+        if (expectedSize > resizeAt) {
+            allocateTables(tableSizeFor(expectedSize));
+            rehash();
+        }
+    }
+
+    /**
+     * Память самого индекса без учёта объектов User и строк email
+     * (ссылки считаются по 4 байта, как при сжатых указателях).
+     */
+    public long getMemoryBytes() {
+        return (long) ids.length * Long.BYTES + (long) users.length * 4 + (long) emails.length * 4
+                + (long) idSlots.length * Integer.BYTES + (long) emailSlots.length * Integer.BYTES;
+    }
+
+    private int findRow(long id) {
+        for (int slot = idSlot(id); ; slot = (slot + 1) & mask) {
+            int entry = idSlots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (ids[entry - 1] == id) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int findEmailRow(String email) {
+        for (int slot = emailSlot(email); ; slot = (slot + 1) & mask) {
+            int entry = emailSlots[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (email.equals(emails[entry - 1])) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insertIdSlot(long id, int row) {
+        int slot = idSlot(id);
+        while (idSlots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        idSlots[slot] = row + 1;
+    }
+
+    private void insertEmailSlot(String email, int row) {
+        int slot = emailSlot(email);
+        while (emailSlots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        emailSlots[slot] = row + 1;
+    }
+
+    private void relinkIdSlot(long id, int from, int to) {
+        int slot = idSlot(id);
+        while (idSlots[slot] != from + 1) {
+            slot = (slot + 1) & mask;
+        }
+        idSlots[slot] = to + 1;
+    }
+
+    private void relinkEmailSlot(String email, int from, int to) {
+        int slot = emailSlot(email);
+        while (emailSlots[slot] != from + 1) {
+            slot = (slot + 1) & mask;
+        }
+        emailSlots[slot] = to + 1;
+    }
+
+    private void removeIdSlot(long id) {
+        int slot = idSlot(id);
+        while (ids[idSlots[slot] - 1] != id) {
+            slot = (slot + 1) & mask;
+        }
+        // Удаление со сдвигом назад: без надгробий цепочки пробирования не деградируют
+        int hole = slot;
+        for (int next = (hole + 1) & mask; idSlots[next] != EMPTY; next = (next + 1) & mask) {
+            int home = idSlot(ids[idSlots[next] - 1]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                idSlots[hole] = idSlots[next];
+                hole = next;
+            }
+        }
+        idSlots[hole] = EMPTY;
+    }
+
+    private void removeEmailSlot(String email, int row) {
+        int slot = emailSlot(email);
+        while (emailSlots[slot] != row + 1) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        for (int next = (hole + 1) & mask; emailSlots[next] != EMPTY; next = (next + 1) & mask) {
+            int home = emailSlot(emails[emailSlots[next] - 1]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                emailSlots[hole] = emailSlots[next];
+                hole = next;
+            }
+        }
+        emailSlots[hole] = EMPTY;
+    }
+
+    // Фибоначчиево хэширование: у id шардов одинаковые младшие биты, маска по ним дала бы кластеры
+    private int idSlot(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private int emailSlot(String email) {
+        return (int) ((email.hashCode() * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void growRows() {
+        resizeRows(Math.max(ids.length * 2, DEFAULT_EXPECTED_SIZE));
+    }
+
+    private void resizeRows(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        users = Arrays.copyOf(users, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+    }
+
+    private void allocateTables(int tableSize) {
+        idSlots = new int[tableSize];
+        emailSlots = new int[tableSize];
+        mask = tableSize - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(tableSize);
+        resizeAt = (int) (tableSize * MAX_LOAD);
+    }
+
+    private void rehash() {
+        for (int row = 0; row < size; row++) {
+            insertIdSlot(ids[row], row);
+            if (emails[row] != null) {
+                insertEmailSlot(emails[row], row);
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / MAX_LOAD) + 1;
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many users for an in-memory index: " + expectedSize);
+        }
+        return Math.max(2, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+}
@@ -0,0 +1,13 @@
+-- Базовая схема users; на базах, созданных hbm2ddl, ничего не меняет
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id         bigint       NOT NULL,
+    name       varchar(100) NOT NULL,
+    email      varchar(255) NOT NULL,
+    age        integer,
+    created_at timestamp(6),
+    version    bigint       NOT NULL DEFAULT 0,
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
@@ -0,0 +1,14 @@
+-- migration: no-transaction
+-- Покрывает ORDER BY created_at DESC, id DESC в findAll и keyset-пагинации.
+-- CONCURRENTLY не блокирует запись в users, но не работает в транзакции и при ошибке
+-- оставляет индекс INVALID, который IF NOT EXISTS не пересоздаст: такой удаляется заранее.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+               WHERE c.relname = 'idx_users_created_at_id' AND c.relnamespace = CAST(current_schema() AS regnamespace)
+                 AND NOT i.indisvalid) THEN
+        DROP INDEX idx_users_created_at_id;
+    END IF;
+END $$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_created_at_id ON users (created_at DESC, id DESC);
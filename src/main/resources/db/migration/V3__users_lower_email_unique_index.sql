@@ -0,0 +1,13 @@
+-- migration: no-transaction
+-- Email уникален без учёта регистра: John@Example.com и john@example.com — один адрес.
+-- Сборка упадёт, если в таблице уже есть такие дубли; их нужно разобрать вручную и повторить деплой.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+               WHERE c.relname = 'uk_users_email_lower' AND c.relnamespace = CAST(current_schema() AS regnamespace)
+                 AND NOT i.indisvalid) THEN
+        DROP INDEX uk_users_email_lower;
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_users_email_lower ON users (lower(email));
@@ -0,0 +1,6 @@
+-- users_seq создаётся с 1, а на базе со строками (id раньше выдавал IDENTITY) эти id уже заняты.
+-- Pooled-оптимизатор Hibernate по значению n = nextval выдаёт id от n - 49 до n, поэтому
+-- последовательность ставится на max(id) + 49: следующий nextval даст id не меньше max(id) + 50.
+-- Уже ушедшая дальше последовательность не откатывается.
+SELECT setval('users_seq', greatest((SELECT last_value FROM users_seq),
+                                    (SELECT coalesce(max(id), 0) FROM users) + 49));
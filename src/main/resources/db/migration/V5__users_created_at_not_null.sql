@@ -0,0 +1,14 @@
+-- migration: no-transaction
+-- created_at — часть ключа keyset-пагинации: строку с NULL предикат (created_at, id) < (?, ?)
+-- не выбирает никогда, а курсор по ней не строится. Время создания таких строк неизвестно,
+-- поэтому они получают эпоху и оказываются в конце выдачи (сортировка по убыванию).
+UPDATE users SET created_at = TIMESTAMP '1970-01-01 00:00:00' WHERE created_at IS NULL;
+
+-- SET NOT NULL сам по себе сканирует таблицу под эксклюзивной блокировкой. Проверенный CHECK
+-- позволяет PostgreSQL пропустить скан, а VALIDATE проверяет строки, не блокируя запись.
+-- Каждая команда в своём autocommit, после ошибки скрипт повторяется целиком.
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_created_at_not_null;
+ALTER TABLE users ADD CONSTRAINT users_created_at_not_null CHECK (created_at IS NOT NULL) NOT VALID;
+ALTER TABLE users VALIDATE CONSTRAINT users_created_at_not_null;
+ALTER TABLE users ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE users DROP CONSTRAINT users_created_at_not_null;
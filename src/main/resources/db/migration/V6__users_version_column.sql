@@ -0,0 +1,3 @@
+-- Таблица, созданная hbm2ddl до optimistic locking, осталась без version: V1 её не трогает,
+-- и проверка схемы при старте падает. DEFAULT-константа на PostgreSQL 11+ не переписывает таблицу.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
@@ -1,20 +1,36 @@
 package com.example.userservice;
 
+import com.example.userservice.dao.BloomFilterUserDao;
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.InstrumentedUserDao;
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.io.ExportResult;
+import com.example.userservice.io.ImportResult;
+import com.example.userservice.io.UserExporter;
+import com.example.userservice.io.UserImporter;
 import com.example.userservice.model.User;
 import com.example.userservice.service.UserService;
+import com.example.userservice.util.HibernateUtil;
+import com.example.userservice.util.SlowQueryLog;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -51,6 +67,7 @@ class AppTest {
 
         app.start();
 
+        verify(userService, timeout(1000)).warmUp();
         verify(userService).createUser("John Doe", "john@example.com", 30);
     }
 
@@ -62,11 +79,12 @@ class AppTest {
 
         app = new App(userService);
 
-        when(userService.getAllUsers()).thenReturn(List.of());
+        when(userService.streamAllUsers(any())).thenReturn(0L);
 
         app.start();
 
-        verify(userService).getAllUsers();
+        verify(userService).streamAllUsers(any());
+        verify(userService, never()).getAllUsers();
     }
 
     @Test
@@ -110,12 +128,12 @@ class AppTest {
 
         User user = new User("John Doe", "john@example.com", 30);
         when(userService.getUserById(1L)).thenReturn(user);
-        when(userService.updateUser(eq(1L), any(), any(), any())).thenReturn(user);
+        when(userService.updateUser(eq(1L), any(), any(), any(), any())).thenReturn(user);
 
         app.start();
 
         verify(userService).getUserById(1L);
-        verify(userService).updateUser(eq(1L), any(), any(), any());
+        verify(userService).updateUser(eq(1L), any(), any(), any(), any());
     }
 
     @Test
@@ -144,11 +162,97 @@ class AppTest {
 
         app = new App(userService);
 
-        when(userService.getUserCount()).thenReturn(0L);
+        when(userService.getUserCount(CountMode.ESTIMATED)).thenReturn(0L);
+
+        app.start();
+
+        verify(userService).getUserCount(CountMode.ESTIMATED);
+    }
+
+    @Test
+    @DisplayName("Should import users from file from menu")
+    void shouldImportUsersFromMenu(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("users.csv"), "name,email,age\nJohn,john@example.com,30\n");
+        String input = "8\n" + file + "\n0\n";
+        System.setIn(new ByteArrayInputStream(input.getBytes()));
+        UserImporter importer = mock(UserImporter.class);
+        Path rejectFile = dir.resolve("users.csv.rejects");
+        when(importer.importFile(file, rejectFile))
+                .thenReturn(new ImportResult(1, 1, 0, 40, Duration.ofMillis(5), rejectFile));
+
+        app = new App(userService, importer, mock(UserExporter.class));
+        app.start();
+
+        verify(importer).importFile(file, rejectFile);
+    }
 
+    @Test
+    @DisplayName("Should rebuild the email Bloom filter after import")
+    void shouldReloadEmailFilterAfterImport(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("users.csv"), "name,email,age\nJohn,john@example.com,30\n");
+        String input = "8\n" + file + "\n0\n";
+        System.setIn(new ByteArrayInputStream(input.getBytes()));
+        UserImporter importer = mock(UserImporter.class);
+        Path rejectFile = dir.resolve("users.csv.rejects");
+        when(importer.importFile(file, rejectFile))
+                .thenReturn(new ImportResult(1, 1, 0, 40, Duration.ofMillis(5), rejectFile));
+        BloomFilterUserDao emailFilter = mock(BloomFilterUserDao.class);
+        when(emailFilter.isLoaded()).thenReturn(true);
+
+        app = new App(userService, importer, mock(UserExporter.class), null, emailFilter);
         app.start();
 
-        verify(userService).getUserCount();
+        verify(emailFilter).load();
+    }
+
+    @Test
+    @DisplayName("Should export users to file from menu")
+    void shouldExportUsersFromMenu(@TempDir Path dir) {
+        Path target = dir.resolve("users.csv.gz");
+        String input = "9\n" + target + "\n4\n0\n";
+        System.setIn(new ByteArrayInputStream(input.getBytes()));
+        UserExporter exporter = mock(UserExporter.class);
+        when(exporter.export(target, 4))
+                .thenReturn(new ExportResult(10, 400, List.of(target), Duration.ofMillis(5)));
+
+        app = new App(userService, mock(UserImporter.class), exporter);
+        app.start();
+
+        verify(exporter).export(target, 4);
+    }
+
+    @Test
+    @DisplayName("Should show DAO latency and reset the window from menu")
+    void shouldShowDaoLatencyAndResetWindow() {
+        String input = "10\ny\n0\n";
+        System.setIn(new ByteArrayInputStream(input.getBytes()));
+        UserDao userDao = mock(UserDao.class);
+        when(userDao.findById(1L)).thenReturn(Optional.empty());
+        InstrumentedUserDao operationMetrics = new InstrumentedUserDao(userDao);
+        operationMetrics.findById(1L);
+
+        app = new App(userService, mock(UserImporter.class), mock(UserExporter.class), operationMetrics);
+        app.start();
+
+        assertThat(operationMetrics.getStatistics("findById").orElseThrow().getCalls()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should change the slow-query threshold from menu")
+    void shouldChangeSlowQueryThresholdFromMenu() {
+        String input = "11\ns\n250\n0\n";
+        System.setIn(new ByteArrayInputStream(input.getBytes()));
+        SlowQueryLog slowQueryLog = HibernateUtil.getSlowQueryLog();
+        long originalThreshold = slowQueryLog.getThresholdMillis();
+
+        try {
+            app = new App(userService);
+            app.start();
+
+            assertThat(slowQueryLog.getThresholdMillis()).isEqualTo(250);
+        } finally {
+            slowQueryLog.setThresholdMillis(originalThreshold);
+        }
     }
 
     @Test
@@ -161,7 +265,7 @@ class AppTest {
 
         app.start();
 
-        verify(userService, never()).getAllUsers();
+        verify(userService, never()).streamAllUsers(any());
     }
 
     @Test
@@ -212,4 +316,4 @@ class AppTest {
         verify(userService).getUserById(1L);
         verify(userService, never()).deleteUser(1L);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.example.userservice.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Shard Map Tests")
+class ShardMapTest {
+
+    @Test
+    @DisplayName("Should split buckets into equal contiguous ranges")
+    void shouldSplitBucketsIntoEqualRanges() {
+        ShardMap map = ShardMap.uniform(2);
+
+        assertThat(map.getShardCount()).isEqualTo(2);
+        assertThat(map.shardOf(0)).isZero();
+        assertThat(map.shardOf(511)).isZero();
+        assertThat(map.shardOf(512)).isEqualTo(1);
+        assertThat(map.toString()).isEqualTo("0-511:0,512-1023:1");
+    }
+
+    @Test
+    @DisplayName("Should round-trip map through its string form")
+    void shouldRoundTripMapThroughString() {
+        ShardMap map = ShardMap.uniform(3).withBucket(7, 2);
+
+        assertThat(ShardMap.parse(map.toString())).isEqualTo(map);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0-511:0", "0-511:0,500-1023:1", "0-1023", "0-1024:0", "a-b:0"})
+    @DisplayName("Should reject incomplete or malformed maps")
+    void shouldRejectMalformedMaps(String value) {
+        assertThatThrownBy(() -> ShardMap.parse(value)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should move only the buckets needed to reach the target shard count")
+    void shouldMoveMinimalBucketsOnRebalance() {
+        ShardMap two = ShardMap.uniform(2);
+
+        ShardMap three = two.rebalance(3);
+
+        int[] perShard = new int[3];
+        int moved = 0;
+        for (int bucket = 0; bucket < ShardMap.BUCKETS; bucket++) {
+            perShard[three.shardOf(bucket)]++;
+            if (three.shardOf(bucket) != two.shardOf(bucket)) {
+                moved++;
+                assertThat(three.shardOf(bucket)).isEqualTo(2);
+            }
+        }
+        assertThat(perShard).containsExactly(342, 341, 341);
+        assertThat(moved).isEqualTo(341);
+        assertThat(three.rebalance(3)).isEqualTo(three);
+    }
+
+    @Test
+    @DisplayName("Should hash email to a stable, case-insensitive bucket")
+    void shouldHashEmailToStableBucket() {
+        int bucket = ShardMap.bucketOf("john@example.com");
+
+        assertThat(ShardMap.bucketOf("  John@Example.COM ")).isEqualTo(bucket);
+        // Значение зафиксировано: смена хэша сломает размещение существующих данных
+        assertThat(bucket).isEqualTo(393);
+    }
+
+    @Test
+    @DisplayName("Should encode shard and bucket into id")
+    void shouldEncodeShardAndBucketIntoId() {
+        long id = ShardMap.encodeId(12345, 5, 777);
+
+        assertThat(ShardMap.bucketOf(id)).isEqualTo(777);
+        assertThat(ShardMap.originShardOf(id)).isEqualTo(5);
+        assertThat(id >>> (ShardMap.BUCKET_BITS + ShardMap.ORIGIN_BITS)).isEqualTo(12345);
+        assertThatThrownBy(() -> ShardMap.encodeId(-1, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
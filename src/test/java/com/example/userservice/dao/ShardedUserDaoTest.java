@@ -0,0 +1,201 @@
+package com.example.userservice.dao;
+
+import com.example.userservice.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Sharded User DAO Tests")
+class ShardedUserDaoTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private UserDaoImpl shard0;
+    private UserDaoImpl shard1;
+    private ShardedUserDao dao;
+
+    @BeforeEach
+    void setUp() {
+        shard0 = mock(UserDaoImpl.class);
+        shard1 = mock(UserDaoImpl.class);
+        dao = new ShardedUserDao(List.of(shard0, shard1), ShardMap.uniform(2), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dao.close();
+    }
+
+    @Test
+    @DisplayName("Should insert user on the shard of its email bucket with encoded id")
+    void shouldInsertOnShardOfEmailBucket() {
+        User user = new User("John", "john@example.com", 30);
+        int bucket = ShardMap.bucketOf(user.getEmail());
+        UserDaoImpl expected = bucket < 512 ? shard0 : shard1;
+        UserDaoImpl other = expected == shard0 ? shard1 : shard0;
+        when(expected.insert(eq(user), any())).thenReturn(user);
+
+        assertThat(dao.insert(user)).isSameAs(user);
+
+        ArgumentCaptor<UserDaoImpl.IdMapper> mapper = ArgumentCaptor.forClass(UserDaoImpl.IdMapper.class);
+        verify(expected).insert(eq(user), mapper.capture());
+        verify(other, never()).insert(any(), any());
+        long id = mapper.getValue().map(user, 42);
+        assertThat(ShardMap.bucketOf(id)).isEqualTo(bucket);
+        assertThat(ShardMap.originShardOf(id)).isEqualTo(expected == shard0 ? 0 : 1);
+        assertThat(dao.shardOf(id)).isEqualTo(expected == shard0 ? 0 : 1);
+    }
+
+    @Test
+    @DisplayName("Should route findById by bucket encoded in id")
+    void shouldRouteFindByIdByBucket() {
+        long id = ShardMap.encodeId(7, 0, 900);
+        User user = user(id, NOW);
+        when(shard1.findById(id)).thenReturn(Optional.of(user));
+
+        assertThat(dao.findById(id)).contains(user);
+        verify(shard0, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should merge shard pages newest first")
+    void shouldMergeShardPagesNewestFirst() {
+        User a = user(1L, NOW.minusMinutes(1));
+        User b = user(2L, NOW.minusMinutes(2));
+        User c = user(3L, NOW.minusMinutes(3));
+        User d = user(4L, NOW.minusMinutes(4));
+        when(shard0.findAll(1, 4)).thenReturn(List.of(a, d));
+        when(shard1.findAll(1, 4)).thenReturn(List.of(b, c));
+
+        assertThat(dao.findAll(2, 2)).containsExactly(c, d);
+    }
+
+    @Test
+    @DisplayName("Should break createdAt ties by id and put null dates last")
+    void shouldBreakTiesById() {
+        User older = user(1L, NOW);
+        User newer = user(2L, NOW);
+        User undated = user(3L, null);
+
+        List<User> merged = ShardedUserDao.merge(List.of(List.of(older, undated), List.of(newer)), 0, 10);
+
+        assertThat(merged).containsExactly(newer, older, undated);
+    }
+
+    @Test
+    @DisplayName("Should return cursor page when any shard has more rows")
+    void shouldReturnCursorWhenShardHasMore() {
+        User a = user(1L, NOW.minusMinutes(1));
+        User b = user(2L, NOW.minusMinutes(2));
+        when(shard0.findPageAfter(null, 1)).thenReturn(new UserPage(List.of(a), UserCursor.of(a)));
+        when(shard1.findPageAfter(null, 1)).thenReturn(new UserPage(List.of(b), null));
+
+        UserPage page = dao.findPageAfter(null, 1);
+
+        assertThat(page.getUsers()).containsExactly(a);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should sum counts across shards")
+    void shouldSumCountsAcrossShards() {
+        when(shard0.count(CountMode.ESTIMATED)).thenReturn(10L);
+        when(shard1.count(CountMode.ESTIMATED)).thenReturn(5L);
+
+        assertThat(dao.count(CountMode.ESTIMATED)).isEqualTo(15L);
+    }
+
+    @Test
+    @DisplayName("Should reject email change that moves user to another bucket")
+    void shouldRejectCrossBucketEmailChange() {
+        long id = ShardMap.encodeId(1, 0, (ShardMap.bucketOf("john@example.com") + 1) % ShardMap.BUCKETS);
+
+        assertThatThrownBy(() -> dao.patch(id, new UserPatch(null, "john@example.com", null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("another shard bucket");
+        verify(shard0, never()).patch(any(), any());
+        verify(shard1, never()).patch(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should group ids by shard on delete")
+    void shouldGroupIdsByShardOnDelete() {
+        long first = ShardMap.encodeId(1, 0, 10);
+        long second = ShardMap.encodeId(2, 1, 20);
+        long third = ShardMap.encodeId(3, 1, 600);
+        when(shard0.deleteAll(List.of(first, second))).thenReturn(2L);
+        when(shard1.deleteAll(List.of(third))).thenReturn(1L);
+
+        assertThat(dao.deleteAll(List.of(first, second, third))).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Should split batch save by shard and keep input indexes")
+    @SuppressWarnings("unchecked")
+    void shouldSplitBatchSaveByShard() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(new User("User " + i, "user" + i + "@example.com", 20));
+        }
+        ArgumentCaptor<List<Integer>> indexes0 = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Integer>> indexes1 = ArgumentCaptor.forClass(List.class);
+
+        dao.saveAll(users);
+
+        verify(shard0).insertChunk(anyList(), indexes0.capture(), any(), any());
+        verify(shard1).insertChunk(anyList(), indexes1.capture(), any(), any());
+        List<Integer> all = new ArrayList<>(indexes0.getValue());
+        all.addAll(indexes1.getValue());
+        assertThat(all).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+        for (int index : indexes0.getValue()) {
+            assertThat(ShardMap.bucketOf(users.get(index).getEmail())).isLessThan(512);
+        }
+    }
+
+    @Test
+    @DisplayName("Should switch buckets to target shard after copy")
+    void shouldSwitchBucketsAfterCopy() {
+        boolean[] copied = new boolean[1];
+
+        dao.moveBuckets(new int[]{3, 1}, 1, () -> copied[0] = true);
+
+        assertThat(copied[0]).isTrue();
+        assertThat(dao.getShardMap().shardOf(1)).isEqualTo(1);
+        assertThat(dao.getShardMap().shardOf(3)).isEqualTo(1);
+        assertThat(dao.getShardMap().shardOf(2)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep shard map when copy fails")
+    void shouldKeepShardMapWhenCopyFails() {
+        ShardMap before = dao.getShardMap();
+
+        assertThatThrownBy(() -> dao.moveBuckets(new int[]{1}, 1, () -> {
+            throw new RuntimeException("copy failed");
+        })).hasMessage("copy failed");
+        assertThat(dao.getShardMap()).isEqualTo(before);
+    }
+
+    private static User user(Long id, LocalDateTime createdAt) {
+        User user = new User("User " + id, "user" + id + "@example.com", 30);
+        user.setId(id);
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.userservice.dao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("User Cursor Tests")
+class UserCursorTest {
+
+    @Test
+    @DisplayName("Should round-trip cursor through opaque token")
+    void shouldRoundTripCursorThroughToken() {
+        UserCursor cursor = new UserCursor(LocalDateTime.of(2023, 5, 17, 12, 30, 45, 123456000), 42L);
+
+        UserCursor decoded = UserCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.getCreatedAt()).isEqualTo(cursor.getCreatedAt());
+        assertThat(decoded.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    @DisplayName("Should produce URL-safe token")
+    void shouldProduceUrlSafeToken() {
+        UserCursor cursor = new UserCursor(LocalDateTime.of(2023, 1, 1, 0, 0), Long.MAX_VALUE);
+
+        assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not-base64!", "bm8tc2VwYXJhdG9y", "MjAyMy0wMS0wMXx4"})
+    @DisplayName("Should reject malformed tokens")
+    void shouldRejectMalformedTokens(String token) {
+        assertThatThrownBy(() -> UserCursor.decode(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ursor");
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.userservice.integration;
+
+import com.example.userservice.model.User;
+import com.example.userservice.service.AsyncUserService;
+import com.example.userservice.service.UserService;
+import com.example.userservice.util.HibernateUtil;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пропускная способность блокирующего и асинхронного API на базе в контейнере.
+ * Запуск: mvn test -Dtest=AsyncUserServiceLoadTest -DloadTests=true
+ * <p>
+ * Результат только пишется в лог: на маленьком пуле асинхронный вариант не обязан быть
+ * быстрее, поэтому тест проверяет результаты поиска, а не соотношение времён.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "loadTests", matches = "true")
+@DisplayName("Async User Service Load Test")
+class AsyncUserServiceLoadTest extends AbstractIntegrationTest {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUserServiceLoadTest.class);
+
+    private static final int LOOKUPS = Integer.getInteger("loadTests.lookups", 5000);
+    private static final int WARM_UP_LOOKUPS = Math.min(500, LOOKUPS);
+
+    private UserService userService;
+
+    @BeforeEach
+    void seedUsers() {
+        // Схему создают миграции при старте фабрики
+        HibernateUtil.recreateSessionFactory();
+        userService = new UserService();
+        // Существует каждый второй email: половина поисков находит пользователя, половина — нет
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DELETE FROM users");
+                    statement.execute("INSERT INTO users (id, name, email, age, created_at, version) "
+                            + "SELECT i, 'Load User ' || i, 'load-test-' || i || '@example.com', 30, "
+                            + "CURRENT_TIMESTAMP, 0 "
+                            + "FROM generate_series(0, " + (LOOKUPS - 1) + ", 2) AS i");
+                    statement.execute("ANALYZE users");
+                }
+            });
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        HibernateUtil.shutdown();
+    }
+
+    @Test
+    @DisplayName("Async fan-out should return the same lookups as sequential blocking calls")
+    void shouldCompareBlockingAndAsyncLookups() {
+        List<String> emails = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            emails.add("load-test-" + i + "@example.com");
+        }
+
+        try (AsyncUserService asyncUserService = new AsyncUserService(userService)) {
+            // Прогрев пула соединений и JIT
+            runBlocking(emails.subList(0, WARM_UP_LOOKUPS));
+            runAsync(asyncUserService, emails.subList(0, WARM_UP_LOOKUPS));
+
+            long started = System.nanoTime();
+            List<Optional<User>> blocking = runBlocking(emails);
+            long blockingNanos = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            List<Optional<User>> async = runAsync(asyncUserService, emails);
+            long asyncNanos = System.nanoTime() - started;
+
+            logger.info("{} lookups: blocking {} ops/s, async {} ops/s (max concurrency {}, virtual threads: {})",
+                    LOOKUPS, Math.round(LOOKUPS * 1e9 / blockingNanos), Math.round(LOOKUPS * 1e9 / asyncNanos),
+                    asyncUserService.getMaxConcurrency(), asyncUserService.isVirtualThreads());
+
+            for (int i = 0; i < LOOKUPS; i++) {
+                assertThat(blocking.get(i).isPresent()).as(emails.get(i)).isEqualTo(i % 2 == 0);
+                assertThat(async.get(i).map(User::getEmail)).as(emails.get(i)).isEqualTo(blocking.get(i).map(User::getEmail));
+            }
+        }
+    }
+
+    private List<Optional<User>> runBlocking(List<String> emails) {
+        List<Optional<User>> results = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            results.add(userService.findUserByEmail(email));
+        }
+        return results;
+    }
+
+    private static List<Optional<User>> runAsync(AsyncUserService asyncUserService, List<String> emails) {
+        List<CompletableFuture<Optional<User>>> futures = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            futures.add(asyncUserService.findUserByEmail(email));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        List<Optional<User>> results = new ArrayList<>(futures.size());
+        futures.forEach(future -> results.add(future.join()));
+        return results;
+    }
+}
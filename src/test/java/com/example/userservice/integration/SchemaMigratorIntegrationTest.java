@@ -0,0 +1,163 @@
+package com.example.userservice.integration;
+
+import com.example.userservice.util.SchemaMigrator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Без Docker контейнер не поднять: тесты пропускаются, а не падают
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Schema Migrator Integration Tests")
+class SchemaMigratorIntegrationTest extends AbstractIntegrationTest {
+
+    // Отдельная схема: миграции идут на пустую базу и не трогают таблицу users остальных тестов
+    private static final String SCHEMA = "schema_migrator_test";
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void createSchema() throws SQLException {
+        String url = postgreSQLContainer.getJdbcUrl();
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("schema-migrator-test");
+        config.setJdbcUrl(url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA);
+        config.setUsername(postgreSQLContainer.getUsername());
+        config.setPassword(postgreSQLContainer.getPassword());
+        config.setMaximumPoolSize(4);
+        dataSource = new HikariDataSource(config);
+        execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE", "CREATE SCHEMA " + SCHEMA);
+    }
+
+    @AfterEach
+    void dropSchema() throws SQLException {
+        execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("Should create the schema with indexes on an empty database and skip applied migrations")
+    void shouldMigrateEmptyDatabase() throws SQLException {
+        assertThat(new SchemaMigrator(dataSource).migrate()).isEqualTo(6);
+        assertThat(new SchemaMigrator(dataSource).migrate()).isZero();
+
+        assertThat(query("SELECT indexname FROM pg_indexes WHERE schemaname = '" + SCHEMA + "'"))
+                .contains("idx_users_created_at_id", "uk_users_email_lower");
+        assertThat(query("SELECT version FROM schema_migrations ORDER BY version"))
+                .containsExactly("1", "2", "3", "4", "5", "6");
+        assertThat(query("SELECT is_nullable FROM information_schema.columns WHERE table_schema = '" + SCHEMA
+                + "' AND table_name = 'users' AND column_name = 'created_at'")).containsExactly("NO");
+        execute("INSERT INTO users (id, name, email, created_at) VALUES (1, 'John', 'john@example.com', now())");
+        assertThatThrownBy(() -> execute(
+                "INSERT INTO users (id, name, email, created_at) VALUES (2, 'John', 'JOHN@example.com', now())"))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("uk_users_email_lower");
+    }
+
+    @Test
+    @DisplayName("Should upgrade a table created before migrations existed")
+    void shouldUpgradePreExistingTable() throws SQLException {
+        // Таблица в том виде, в каком её создавал hbm2ddl до миграций: id выдавал IDENTITY
+        execute("CREATE TABLE users (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "name varchar(100) NOT NULL, email varchar(255) NOT NULL UNIQUE, age integer, "
+                        + "created_at timestamp(6))",
+                "INSERT INTO users (id, name, email) VALUES (1, 'John', 'john@example.com'), "
+                        + "(120, 'Jane', 'jane@example.com')");
+
+        new SchemaMigrator(dataSource).migrate();
+
+        // Первый id блока pooled-оптимизатора — nextval - 49
+        assertThat(Long.parseLong(query("SELECT nextval('users_seq')").get(0)) - 49).isGreaterThan(120);
+        // Строки без created_at получили эпоху: keyset-пагинация их не теряет
+        assertThat(query("SELECT count(*) FROM users WHERE created_at IS NULL")).containsExactly("0");
+        // Колонка optimistic locking добавлена к существующим строкам
+        assertThat(query("SELECT version FROM users ORDER BY id")).containsExactly("0", "0");
+    }
+
+    @Test
+    @DisplayName("Should apply each migration once when several instances start together")
+    void shouldSerializeConcurrentRunners() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Integer>> runs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                runs.add(executor.submit(() -> new SchemaMigrator(dataSource).migrate()));
+            }
+            int applied = 0;
+            for (Future<Integer> run : runs) {
+                applied += run.get();
+            }
+            assertThat(applied).isEqualTo(6);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse to start when an applied migration was modified")
+    void shouldDetectChangedMigration() throws SQLException {
+        new SchemaMigrator(dataSource).migrate();
+        execute("UPDATE schema_migrations SET checksum = 'edited' WHERE version = 2");
+
+        assertThatThrownBy(() -> new SchemaMigrator(dataSource).migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("V2")
+                .hasMessageContaining("was changed after it had been applied");
+    }
+
+    @Test
+    @DisplayName("Should rebuild an index left invalid by an interrupted concurrent build")
+    void shouldRebuildInvalidIndex() throws SQLException {
+        new SchemaMigrator(dataSource).migrate();
+        // Так выглядит индекс после прерванного CREATE INDEX CONCURRENTLY: дубли не дают его достроить
+        execute("DROP INDEX uk_users_email_lower",
+                "DELETE FROM schema_migrations WHERE version = 3",
+                "INSERT INTO users (id, name, email, created_at) VALUES (1, 'John', 'john@example.com', now()), "
+                        + "(2, 'John', 'JOHN@example.com', now())");
+        assertThatThrownBy(() -> new SchemaMigrator(dataSource).migrate())
+                .hasMessageContaining("V3");
+        assertThat(query("SELECT CAST(indisvalid AS text) FROM pg_index WHERE indexrelid = "
+                + "CAST('uk_users_email_lower' AS regclass)")).containsExactly("false");
+
+        execute("DELETE FROM users WHERE id = 2");
+
+        assertThat(new SchemaMigrator(dataSource).migrate()).isEqualTo(1);
+        assertThat(query("SELECT CAST(indisvalid AS text) FROM pg_index WHERE indexrelid = "
+                + "CAST('uk_users_email_lower' AS regclass)")).containsExactly("true");
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                values.add(rs.getString(1));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.userservice.integration;
+
+import com.example.userservice.dao.BatchSaveResult;
+import com.example.userservice.dao.RebalanceResult;
+import com.example.userservice.dao.ShardMap;
+import com.example.userservice.dao.ShardRebalancer;
+import com.example.userservice.dao.ShardedUserDao;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Шардирование и ребалансировка на нескольких живых базах; схема шардов создаётся миграциями.
+ * Запуск: mvn test -Dtest=ShardedUserDaoIntegrationTest
+ * -DshardUrls=jdbc:postgresql://localhost:5432/shard_db,jdbc:postgresql://localhost:5433/shard_db
+ */
+@EnabledIfSystemProperty(named = "shardUrls", matches = ".+,.+")
+@DisplayName("Sharded User DAO Integration Tests")
+class ShardedUserDaoIntegrationTest {
+
+    private static final int USERS = 2000;
+
+    private ShardedUserDao dao;
+
+    @BeforeEach
+    void setUp() {
+        List<String> urls = Arrays.asList(System.getProperty("shardUrls").split("\\s*,\\s*"));
+        dao = ShardedUserDao.connect(urls, ShardMap.uniform(1));
+        deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteAll();
+        dao.close();
+    }
+
+    @Test
+    @DisplayName("Should keep every user reachable after rebalancing onto all shards")
+    void shouldKeepUsersReachableAfterRebalance() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("Shard User " + i, "shard-user-" + i + "@example.com", 20 + i % 50));
+        }
+        BatchSaveResult saved = dao.saveAll(users);
+        assertThat(saved.getSavedCount()).isEqualTo(USERS);
+
+        RebalanceResult result = new ShardRebalancer(dao).rebalance(ShardMap.uniform(dao.getShardCount()));
+
+        assertThat(result.getMovedRows()).isPositive().isLessThan(USERS);
+        assertThat(dao.getShardMap()).isEqualTo(ShardMap.uniform(dao.getShardCount()));
+        assertThat(dao.count()).isEqualTo(USERS);
+        for (User user : saved.getSaved()) {
+            assertThat(dao.findById(user.getId())).isPresent();
+        }
+        assertThat(dao.findByEmail("shard-user-7@example.com")).isPresent();
+
+        long paged = 0;
+        UserPage page = dao.findPageAfter(null, 150);
+        paged += page.getUsers().size();
+        while (page.hasNext()) {
+            page = dao.findPageAfter(page.getNextCursor(), 150);
+            paged += page.getUsers().size();
+        }
+        assertThat(paged).isEqualTo(USERS);
+    }
+
+    private void deleteAll() {
+        List<Long> ids = new ArrayList<>();
+        dao.streamAll(user -> ids.add(user.getId()));
+        dao.deleteAll(ids);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.userservice.integration;
+
+import com.example.userservice.dao.UserCursor;
+import com.example.userservice.dao.UserDaoImpl;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.model.User;
+import com.example.userservice.util.HibernateUtil;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Без Docker контейнер не поднять: тесты пропускаются, а не падают
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("User Keyset Pagination Integration Tests")
+class UserPaginationIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int USERS = 5000;
+    // По 10 пользователей на секунду: курсору нужен и id, а не только created_at
+    private static final int USERS_PER_SECOND = 10;
+    private static final LocalDateTime OLDEST = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private UserDaoImpl userDao;
+
+    @BeforeEach
+    void seedUsers() {
+        // Схему создают миграции при старте фабрики
+        HibernateUtil.recreateSessionFactory();
+        userDao = new UserDaoImpl();
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DELETE FROM users");
+                    statement.execute("INSERT INTO users (id, name, email, age, created_at, version) "
+                            + "SELECT i, 'Page User ' || i, 'page-user-' || i || '@example.com', 30, "
+                            + "TIMESTAMP '2024-01-01 00:00:00' + (i / " + USERS_PER_SECOND + ") * INTERVAL '1 second', 0 "
+                            + "FROM generate_series(1, " + USERS + ") AS i");
+                    statement.execute("ANALYZE users");
+                }
+            });
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        HibernateUtil.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should walk every user exactly once in keyset order")
+    void shouldWalkAllPages() {
+        List<Long> ids = new ArrayList<>();
+        UserPage page = userDao.findPageAfter(null, 128);
+        page.getUsers().forEach(user -> ids.add(user.getId()));
+        while (page.hasNext()) {
+            page = userDao.findPageAfter(page.getNextCursor(), 128);
+            page.getUsers().forEach(user -> ids.add(user.getId()));
+        }
+
+        // created_at растёт вместе с id, поэтому порядок (created_at DESC, id DESC) — убывание id
+        assertThat(ids).hasSize(USERS).doesNotHaveDuplicates().isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    @DisplayName("Should start a deep page with an index range scan instead of reading from the top")
+    void shouldSeekDeepPageThroughIndex() {
+        // Курсор почти в конце выдачи: подходят только ~100 самых старых строк
+        UserCursor cursor = UserCursor.of(userWithId(100));
+        List<String> sql = new ArrayList<>();
+        try (Session session = HibernateUtil.getSessionFactory().withOptions()
+                .statementInspector(statement -> {
+                    sql.add(statement);
+                    return statement;
+                }).openSession()) {
+            List<User> users = session.createNamedQuery(User.FIND_PAGE_AFTER, User.class)
+                    .setParameter("createdAt", cursor.getCreatedAt())
+                    .setParameter("id", cursor.getId())
+                    .list();
+            assertThat(users).hasSize(99);
+
+            List<String> plan = new ArrayList<>();
+            session.doWork(connection -> {
+                // Без LIMIT параметры запроса — только курсор, в порядке (created_at, id)
+                try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql.get(0))) {
+                    explain.setTimestamp(1, Timestamp.valueOf(cursor.getCreatedAt()));
+                    explain.setLong(2, cursor.getId());
+                    try (ResultSet rs = explain.executeQuery()) {
+                        while (rs.next()) {
+                            plan.add(rs.getString(1));
+                        }
+                    }
+                }
+            });
+
+            String planText = String.join("\n", plan);
+            assertThat(planText).contains("idx_users_created_at_id").contains("Index Cond");
+            assertThat(planText).doesNotContain("Seq Scan");
+        }
+    }
+
+    private static User userWithId(long id) {
+        User user = new User("Page User " + id, "page-user-" + id + "@example.com", 30);
+        user.setId(id);
+        user.setCreatedAt(OLDEST.plusSeconds(id / USERS_PER_SECOND));
+        return user;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.userservice.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Line Reader Tests")
+class LineReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should read lines across buffer boundaries")
+    void shouldReadLinesAcrossBufferBoundaries() throws IOException {
+        List<String> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            String line = "line-" + i + "-" + "x".repeat(i % 37);
+            expected.add(line);
+            content.append(line).append('\n');
+        }
+        Path file = Files.writeString(dir.resolve("lines.txt"), content);
+
+        assertThat(readAll(file, 16)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("Should grow buffer for lines longer than the buffer")
+    void shouldGrowBufferForLongLines() throws IOException {
+        String longLine = "y".repeat(1000);
+        Path file = Files.writeString(dir.resolve("long.txt"), "a\n" + longLine + "\nb");
+
+        assertThat(readAll(file, 8)).containsExactly("a", longLine, "b");
+    }
+
+    @Test
+    @DisplayName("Should strip CRLF, BOM and keep multi-byte characters intact")
+    void shouldHandleCrlfBomAndUtf8() throws IOException {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] text = "Иван,ivan@example.com\r\nJosé,jose@example.com\r\n".getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[bom.length + text.length];
+        System.arraycopy(bom, 0, content, 0, bom.length);
+        System.arraycopy(text, 0, content, bom.length, text.length);
+        Path file = Files.write(dir.resolve("utf8.csv"), content);
+
+        try (LineReader reader = new LineReader(file, 5)) {
+            assertThat(reader.readLine()).isEqualTo("Иван,ivan@example.com");
+            assertThat(reader.readLine()).isEqualTo("José,jose@example.com");
+            assertThat(reader.readLine()).isNull();
+            assertThat(reader.getBytesRead()).isEqualTo(content.length);
+        }
+    }
+
+    @Test
+    @DisplayName("Should return null for empty file")
+    void shouldReturnNullForEmptyFile() throws IOException {
+        Path file = Files.createFile(dir.resolve("empty.csv"));
+
+        assertThat(readAll(file, 64)).isEmpty();
+    }
+
+    private static List<String> readAll(Path file, int bufferSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (LineReader reader = new LineReader(file, bufferSize)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
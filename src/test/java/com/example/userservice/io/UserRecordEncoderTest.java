@@ -0,0 +1,94 @@
+package com.example.userservice.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserRecordEncoder Tests")
+class UserRecordEncoderTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 3, 7, 9, 5, 1, 123_456_000);
+
+    @Test
+    @DisplayName("Should write CSV header and row")
+    void shouldWriteCsvRow() {
+        UserRecordEncoder encoder = new UserRecordEncoder(UserFileFormat.CSV);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        encoder.writeHeader(buffer);
+        encoder.writeRow(buffer, 42, "John Doe", "john@example.com", 30, CREATED_AT);
+
+        assertThat(decode(buffer)).isEqualTo("id,name,email,age,created_at\n"
+                + "42,John Doe,john@example.com,30,2024-03-07T09:05:01.123456\n");
+    }
+
+    @Test
+    @DisplayName("Should quote CSV fields and leave nulls empty")
+    void shouldQuoteCsvFields() {
+        UserRecordEncoder encoder = new UserRecordEncoder(UserFileFormat.CSV);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        encoder.writeRow(buffer, 1, "Doe, \"Johnny\"", "john@example.com", -1, null);
+
+        assertThat(decode(buffer)).isEqualTo("1,\"Doe, \"\"Johnny\"\"\",john@example.com,,\n");
+    }
+
+    @Test
+    @DisplayName("Should write JSON Lines row without header")
+    void shouldWriteJsonLinesRow() {
+        UserRecordEncoder encoder = new UserRecordEncoder(UserFileFormat.JSON_LINES);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        encoder.writeHeader(buffer);
+        encoder.writeRow(buffer, 7, "Tab\there \"q\" \\", "a@b.com", -1, CREATED_AT);
+
+        assertThat(decode(buffer)).isEqualTo("{\"id\":7,\"name\":\"Tab\\there \\\"q\\\" \\\\\","
+                + "\"email\":\"a@b.com\",\"age\":null,\"createdAt\":\"2024-03-07T09:05:01.123456\"}\n");
+    }
+
+    @Test
+    @DisplayName("Should escape control characters in JSON")
+    void shouldEscapeControlCharacters() {
+        UserRecordEncoder encoder = new UserRecordEncoder(UserFileFormat.JSON_LINES);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        encoder.writeRow(buffer, 1, "a\u0001b", "a@b.com", 5, null);
+
+        assertThat(decode(buffer)).startsWith("{\"id\":1,\"name\":\"a\\u0001b\"").endsWith("\"createdAt\":null}\n");
+    }
+
+    @Test
+    @DisplayName("Should encode non-ASCII characters as UTF-8")
+    void shouldEncodeUtf8() {
+        UserRecordEncoder encoder = new UserRecordEncoder(UserFileFormat.CSV);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        String name = "Иван 李 😀";
+
+        encoder.writeRow(buffer, 1, name, "ivan@example.com", 30, null);
+
+        assertThat(decode(buffer)).isEqualTo("1," + name + ",ivan@example.com,30,\n");
+    }
+
+    @Test
+    @DisplayName("Should bound the encoded row size")
+    void shouldBoundRowSize() {
+        UserRecordEncoder encoder = new UserRecordEncoder(UserFileFormat.JSON_LINES);
+        String name = "\u0001".repeat(50);
+        String email = "一".repeat(50);
+        ByteBuffer buffer = ByteBuffer.allocate(UserRecordEncoder.maxRowBytes(name, email));
+
+        encoder.writeRow(buffer, Long.MAX_VALUE, name, email, Integer.MAX_VALUE, LocalDateTime.MAX);
+
+        assertThat(buffer.remaining()).isGreaterThanOrEqualTo(0);
+    }
+
+    private static String decode(ByteBuffer buffer) {
+        buffer.flip();
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
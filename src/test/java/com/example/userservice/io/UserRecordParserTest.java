@@ -0,0 +1,82 @@
+package com.example.userservice.io;
+
+import com.example.userservice.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("User Record Parser Tests")
+class UserRecordParserTest {
+
+    @Test
+    @DisplayName("Should map CSV columns by header and unquote fields")
+    void shouldParseCsvWithHeader() {
+        String header = "age,email,name";
+        assertThat(UserRecordParser.isCsvHeader(header)).isTrue();
+        UserRecordParser parser = UserRecordParser.csv(UserRecordParser.splitCsv(header));
+
+        User user = parser.parse("42, John@Example.com ,\"Doe, \"\"JD\"\" John\"");
+
+        assertThat(user.getName()).isEqualTo("Doe, \"JD\" John");
+        assertThat(user.getEmail()).isEqualTo("john@example.com");
+        assertThat(user.getAge()).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("Should use name,email,age order without header")
+    void shouldParseCsvWithoutHeader() {
+        assertThat(UserRecordParser.isCsvHeader("John,john@example.com,30")).isFalse();
+
+        User user = UserRecordParser.csv(null).parse("John,john@example.com,");
+
+        assertThat(user.getName()).isEqualTo("John");
+        assertThat(user.getAge()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should apply entity validation rules")
+    void shouldApplyEntityValidationRules() {
+        UserRecordParser parser = UserRecordParser.csv(null);
+
+        assertThatThrownBy(() -> parser.parse("John,not-an-email,30"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid email format: not-an-email");
+        assertThatThrownBy(() -> parser.parse(" ,john@example.com,30"))
+                .hasMessage("Name cannot be null or empty");
+        assertThatThrownBy(() -> parser.parse("John,john@example.com,200"))
+                .hasMessage("Age must be between 0 and 150");
+        assertThatThrownBy(() -> parser.parse("John,john@example.com,abc"))
+                .hasMessage("Invalid age: abc");
+        assertThatThrownBy(() -> parser.parse("\"John,john@example.com,30"))
+                .hasMessage("Unterminated quoted field");
+    }
+
+    @Test
+    @DisplayName("Should parse flat JSON objects with escapes and nulls")
+    void shouldParseJsonLines() {
+        UserRecordParser parser = UserRecordParser.jsonLines();
+
+        User user = parser.parse("{\"id\": 7, \"name\": \"Jos\\u00e9 \\\"J\\\"\", \"email\": \"jose@example.com\", \"age\": null}");
+
+        assertThat(user.getName()).isEqualTo("José \"J\"");
+        assertThat(user.getEmail()).isEqualTo("jose@example.com");
+        assertThat(user.getAge()).isNull();
+        assertThat(parser.parse("{\"age\":30,\"email\":\"a@example.com\",\"name\":\"A\"}").getAge()).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("Should reject malformed JSON")
+    void shouldRejectMalformedJson() {
+        UserRecordParser parser = UserRecordParser.jsonLines();
+
+        assertThatThrownBy(() -> parser.parse("{\"name\": \"x\""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid JSON");
+        assertThatThrownBy(() -> parser.parse("{\"name\": [1], \"email\": \"a@example.com\"}"))
+                .hasMessageStartingWith("Invalid JSON");
+        assertThatThrownBy(() -> parser.parse("{\"name\": \"x\"} trailing"))
+                .hasMessageStartingWith("Invalid JSON");
+    }
+}
@@ -7,6 +7,8 @@ import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -186,6 +188,30 @@ class UserTest {
         assertThat(user.equals("not a user")).isFalse();
     }
 
+    @Test
+    @DisplayName("Should keep the hash code when an id is assigned")
+    void shouldKeepHashCodeWhenIdAssigned() {
+        User user = new User("John Doe", "john@example.com", 30);
+        Set<User> users = new HashSet<>();
+        users.add(user);
+        int hash = user.hashCode();
+
+        user.setId(1L);
+
+        assertThat(user.hashCode()).isEqualTo(hash);
+        assertThat(users).contains(user);
+    }
+
+    @Test
+    @DisplayName("Should treat users without id as equal only to themselves")
+    void shouldCompareTransientUsersByIdentity() {
+        User user = new User("John Doe", "john@example.com", 30);
+        User same = new User("John Doe", "john@example.com", 30);
+
+        assertThat(user).isEqualTo(user).isNotEqualTo(same);
+        assertThat(user.hashCode()).isEqualTo(user.hashCode());
+    }
+
     @Test
     @DisplayName("Should handle hashCode with null id")
     void shouldHandleHashCodeWithNullId() {
@@ -193,4 +219,4 @@ class UserTest {
 
         assertThat(user.hashCode()).isNotZero();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.example.userservice.unit;
+
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.exception.UserNotFoundException;
+import com.example.userservice.model.User;
+import com.example.userservice.service.AsyncUserService;
+import com.example.userservice.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Async User Service Unit Tests")
+class AsyncUserServiceTest {
+
+    private UserService userService;
+    private AsyncUserService asyncUserService;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        asyncUserService = new AsyncUserService(userService, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncUserService.close();
+    }
+
+    @Test
+    @DisplayName("Should complete with the blocking service result")
+    void shouldDelegateToUserService() {
+        User user = new User("John Doe", "john@example.com", 30);
+        when(userService.getUserById(1L)).thenReturn(user);
+        when(userService.findUserByEmail("john@example.com")).thenReturn(Optional.of(user));
+        when(userService.getUserCount(CountMode.CACHED)).thenReturn(7L);
+
+        assertThat(asyncUserService.getUserById(1L).join()).isSameAs(user);
+        assertThat(asyncUserService.findUserByEmail("john@example.com").join()).contains(user);
+        assertThat(asyncUserService.getUserCount(CountMode.CACHED).join()).isEqualTo(7L);
+    }
+
+    @Test
+    @DisplayName("Should complete exceptionally with the service exception")
+    void shouldPropagateExceptions() {
+        when(userService.getUserById(99L)).thenThrow(new UserNotFoundException(99L));
+
+        CompletableFuture<User> future = asyncUserService.getUserById(99L);
+
+        assertThatThrownBy(future::join).hasCauseInstanceOf(UserNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Should not run more operations at once than the concurrency cap")
+    void shouldRespectConcurrencyCap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.emailExists(anyString())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            release.await(5, TimeUnit.SECONDS);
+            running.decrementAndGet();
+            return true;
+        });
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(asyncUserService.emailExists("user" + i + "@example.com"));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(maxRunning.get()).isEqualTo(4);
+        verify(userService, times(50)).emailExists(anyString());
+    }
+
+    @Test
+    @DisplayName("Should report tasks waiting beyond the concurrency cap")
+    void shouldReportQueuedTasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.emailExists(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(asyncUserService.emailExists("user" + i + "@example.com"));
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+
+        try {
+            assertThat(asyncUserService.getQueuedTasks()).isEqualTo(6);
+        } finally {
+            release.countDown();
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(asyncUserService.getQueuedTasks()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive concurrency cap")
+    void shouldRejectInvalidConcurrency() {
+        assertThatThrownBy(() -> new AsyncUserService(userService, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.userservice.unit;
+
+import com.example.userservice.dao.BloomFilterUserDao;
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Bloom Filter User DAO Unit Tests")
+class BloomFilterUserDaoTest {
+
+    @Mock
+    private UserDao delegate;
+
+    private BloomFilterUserDao bloomDao;
+
+    @BeforeEach
+    void setUp() {
+        bloomDao = new BloomFilterUserDao(delegate, 1_000, 0.01);
+    }
+
+    private void loadEmails(String... emails) {
+        when(delegate.streamEmails(any())).thenAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            for (String email : emails) {
+                consumer.accept(email);
+            }
+            return (long) emails.length;
+        });
+        bloomDao.load();
+    }
+
+    @Test
+    @DisplayName("Should delegate existence checks until loaded")
+    void shouldDelegateUntilLoaded() {
+        when(delegate.existsByEmail("john@example.com")).thenReturn(false);
+
+        assertThat(bloomDao.existsByEmail("john@example.com")).isFalse();
+
+        assertThat(bloomDao.isLoaded()).isFalse();
+        verify(delegate).existsByEmail("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should answer definite negatives without database")
+    void shouldAnswerDefiniteNegativesWithoutDatabase() {
+        loadEmails("john@example.com", "jane@example.com");
+
+        assertThat(bloomDao.existsByEmail("nobody@example.com")).isFalse();
+
+        verify(delegate, never()).existsByEmail(anyString());
+        assertThat(bloomDao.getDefiniteNegatives()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should confirm possible positives in database")
+    void shouldConfirmPossiblePositivesInDatabase() {
+        loadEmails("john@example.com");
+        when(delegate.existsByEmail("John@Example.com")).thenReturn(true);
+
+        assertThat(bloomDao.existsByEmail("John@Example.com")).isTrue();
+
+        verify(delegate).existsByEmail("John@Example.com");
+        assertThat(bloomDao.getDatabaseChecks()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should remember emails of saved users")
+    void shouldRememberEmailsOfSavedUsers() {
+        loadEmails();
+        User user = new User("John Doe", "john@example.com", 30);
+        when(delegate.save(user)).thenReturn(user);
+        when(delegate.existsByEmail("john@example.com")).thenReturn(true);
+
+        bloomDao.save(user);
+
+        assertThat(bloomDao.existsByEmail("john@example.com")).isTrue();
+        verify(delegate).existsByEmail("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should keep emails committed while the filter was being rebuilt")
+    void shouldKeepEmailsWrittenDuringRebuild() {
+        loadEmails();
+        User user = new User("John Doe", "john@example.com", 30);
+        // Перестроение читает таблицу до того, как запись зафиксирована, и этого email не видит
+        when(delegate.save(user)).thenAnswer(invocation -> {
+            bloomDao.load();
+            return user;
+        });
+        when(delegate.existsByEmail("john@example.com")).thenReturn(true);
+
+        bloomDao.save(user);
+
+        assertThat(bloomDao.existsByEmail("john@example.com")).isTrue();
+        assertThat(bloomDao.getDefiniteNegatives()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should load the filter during warm-up")
+    void shouldLoadFilterDuringWarmUp() {
+        when(delegate.streamEmails(any())).thenReturn(0L);
+
+        bloomDao.warmUp();
+
+        verify(delegate).warmUp();
+        assertThat(bloomDao.isLoaded()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep delegating when the filter fails to load during warm-up")
+    void shouldDelegateWhenWarmUpLoadFails() {
+        when(delegate.streamEmails(any())).thenThrow(new RuntimeException("DB unavailable"));
+
+        bloomDao.warmUp();
+
+        assertThat(bloomDao.isLoaded()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should count deleted users as stale entries")
+    void shouldCountDeletedUsersAsStaleEntries() {
+        loadEmails("john@example.com");
+        when(delegate.delete(1L)).thenReturn(true);
+
+        bloomDao.delete(1L);
+
+        assertThat(bloomDao.getStaleEntries()).isEqualTo(1);
+        assertThat(bloomDao.getFilterMemoryBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should count bulk deleted users as stale entries")
+    void shouldCountBulkDeletedUsersAsStaleEntries() {
+        when(delegate.deleteAll(List.of(1L, 2L, 3L))).thenReturn(2L);
+
+        assertThat(bloomDao.deleteAll(List.of(1L, 2L, 3L))).isEqualTo(2);
+
+        assertThat(bloomDao.getStaleEntries()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.userservice.unit;
+
+import com.example.userservice.dao.CachingUserDao;
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.dao.UserPatch;
+import com.example.userservice.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Caching User DAO Unit Tests")
+class CachingUserDaoTest {
+
+    @Mock
+    private UserDao delegate;
+
+    private CachingUserDao cachingDao;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        cachingDao = new CachingUserDao(delegate);
+        testUser = new User("John Doe", "john@example.com", 30);
+        testUser.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated findById from cache")
+    void shouldServeRepeatedFindByIdFromCache() {
+        when(delegate.findById(1L)).thenReturn(Optional.of(testUser));
+
+        Optional<User> first = cachingDao.findById(1L);
+        Optional<User> second = cachingDao.findById(1L);
+
+        assertThat(first).contains(testUser);
+        assertThat(second).contains(testUser);
+        verify(delegate, times(1)).findById(1L);
+        assertThat(cachingDao.getIdCacheStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should cache negative lookups")
+    void shouldCacheNegativeLookups() {
+        when(delegate.findById(999L)).thenReturn(Optional.empty());
+        when(delegate.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+
+        cachingDao.findById(999L);
+        cachingDao.findById(999L);
+        cachingDao.findByEmail("unknown@example.com");
+        cachingDao.findByEmail("Unknown@Example.com");
+
+        verify(delegate, times(1)).findById(999L);
+        verify(delegate, times(1)).findByEmail("unknown@example.com");
+    }
+
+    @Test
+    @DisplayName("Should share cached user between email and id lookups")
+    void shouldShareCachedUserBetweenEmailAndIdLookups() {
+        when(delegate.findByEmail("john@example.com")).thenReturn(Optional.of(testUser));
+        when(delegate.findById(1L)).thenReturn(Optional.of(testUser));
+
+        assertThat(cachingDao.findByEmail("john@example.com")).contains(testUser);
+        assertThat(cachingDao.findById(1L)).contains(testUser);
+        assertThat(cachingDao.findByEmail("john@example.com")).contains(testUser);
+
+        verify(delegate, times(1)).findByEmail("john@example.com");
+        verify(delegate, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache a user read by email before a concurrent patch")
+    void shouldNotCacheStaleUserFromEmailLookupDuringPatch() throws Exception {
+        User patched = new User("John Patched", "john@example.com", 31);
+        patched.setId(1L);
+        AtomicReference<User> stored = new AtomicReference<>(testUser);
+        CountDownLatch emailRead = new CountDownLatch(1);
+        CountDownLatch patchDone = new CountDownLatch(1);
+        // Чтение по email видит строку до patch и возвращается только после его инвалидации
+        when(delegate.findByEmail("john@example.com")).thenAnswer(invocation -> {
+            Optional<User> user = Optional.of(stored.get());
+            emailRead.countDown();
+            assertThat(patchDone.await(5, TimeUnit.SECONDS)).isTrue();
+            return user;
+        });
+        when(delegate.findById(1L)).thenAnswer(invocation -> Optional.of(stored.get()));
+        when(delegate.patch(eq(1L), any(UserPatch.class))).thenAnswer(invocation -> {
+            stored.set(patched);
+            return Optional.of(patched);
+        });
+
+        CompletableFuture<Optional<User>> reader =
+                CompletableFuture.supplyAsync(() -> cachingDao.findByEmail("john@example.com"));
+        assertThat(emailRead.await(5, TimeUnit.SECONDS)).isTrue();
+        cachingDao.patch(1L, new UserPatch("John Patched", null, 31));
+        patchDone.countDown();
+
+        assertThat(reader.get(5, TimeUnit.SECONDS)).map(User::getName).contains("John Patched");
+        assertThat(cachingDao.findById(1L)).map(User::getName).contains("John Patched");
+        assertThat(cachingDao.findByEmail("john@example.com")).map(User::getName).contains("John Patched");
+    }
+
+    @Test
+    @DisplayName("Should return copies that do not corrupt the cache")
+    void shouldReturnCopiesThatDoNotCorruptCache() {
+        when(delegate.findById(1L)).thenReturn(Optional.of(testUser));
+
+        cachingDao.findById(1L).get().setName("Mutated");
+
+        assertThat(cachingDao.findById(1L).get().getName()).isEqualTo("John Doe");
+    }
+
+    @Test
+    @DisplayName("Should invalidate negative email entry on save")
+    void shouldInvalidateNegativeEmailEntryOnSave() {
+        when(delegate.findByEmail("john@example.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(testUser));
+        when(delegate.save(testUser)).thenReturn(testUser);
+        when(delegate.findById(1L)).thenReturn(Optional.of(testUser));
+
+        assertThat(cachingDao.findByEmail("john@example.com")).isEmpty();
+        cachingDao.save(testUser);
+
+        assertThat(cachingDao.findByEmail("john@example.com")).contains(testUser);
+    }
+
+    @Test
+    @DisplayName("Should not resolve old email after update")
+    void shouldNotResolveOldEmailAfterUpdate() {
+        User renamed = new User("John Doe", "john.new@example.com", 30);
+        renamed.setId(1L);
+        when(delegate.findByEmail("john@example.com"))
+                .thenReturn(Optional.of(testUser))
+                .thenReturn(Optional.empty());
+        when(delegate.update(any(User.class))).thenReturn(renamed);
+        when(delegate.findById(1L)).thenReturn(Optional.of(renamed));
+
+        cachingDao.findByEmail("john@example.com");
+        cachingDao.update(renamed);
+
+        assertThat(cachingDao.findByEmail("john@example.com")).isEmpty();
+        assertThat(cachingDao.findById(1L).get().getEmail()).isEqualTo("john.new@example.com");
+    }
+
+    @Test
+    @DisplayName("Should evict user on delete")
+    void shouldEvictUserOnDelete() {
+        when(delegate.findById(1L))
+                .thenReturn(Optional.of(testUser))
+                .thenReturn(Optional.empty());
+        when(delegate.delete(1L)).thenReturn(true);
+
+        cachingDao.findById(1L);
+        assertThat(cachingDao.delete(1L)).isTrue();
+
+        assertThat(cachingDao.findById(1L)).isEmpty();
+        verify(delegate, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should evict users on bulk delete")
+    void shouldEvictUsersOnBulkDelete() {
+        when(delegate.findById(1L))
+                .thenReturn(Optional.of(testUser))
+                .thenReturn(Optional.empty());
+        when(delegate.deleteAll(List.of(1L, 2L))).thenReturn(1L);
+
+        cachingDao.findById(1L);
+        assertThat(cachingDao.deleteAll(List.of(1L, 2L))).isEqualTo(1);
+
+        assertThat(cachingDao.findById(1L)).isEmpty();
+        verify(delegate, times(2)).findById(1L);
+    }
+}
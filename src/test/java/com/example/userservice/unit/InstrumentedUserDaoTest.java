@@ -0,0 +1,110 @@
+package com.example.userservice.unit;
+
+import com.example.userservice.dao.InstrumentedUserDao;
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.exception.EmailAlreadyExistsException;
+import com.example.userservice.model.User;
+import com.example.userservice.util.OperationStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Instrumented User DAO Unit Tests")
+class InstrumentedUserDaoTest {
+
+    @Mock
+    private UserDao delegate;
+
+    private InstrumentedUserDao instrumentedDao;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        instrumentedDao = new InstrumentedUserDao(delegate);
+        testUser = new User("John Doe", "john@example.com", 30);
+        testUser.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Should delegate calls and count them per operation")
+    void shouldCountCallsPerOperation() {
+        when(delegate.findById(1L)).thenReturn(Optional.of(testUser));
+        when(delegate.existsByEmail("john@example.com")).thenReturn(true);
+
+        assertThat(instrumentedDao.findById(1L)).contains(testUser);
+        assertThat(instrumentedDao.findById(1L)).contains(testUser);
+        assertThat(instrumentedDao.existsByEmail("john@example.com")).isTrue();
+
+        OperationStatistics findById = instrumentedDao.getStatistics("findById").orElseThrow();
+        assertThat(findById.getCalls()).isEqualTo(2);
+        assertThat(findById.getErrors()).isZero();
+        assertThat(findById.getMaxMicros()).isGreaterThan(0);
+        assertThat(instrumentedDao.getStatistics("existsByEmail").orElseThrow().getCalls()).isEqualTo(1);
+        assertThat(instrumentedDao.getStatistics("count").orElseThrow().getCalls()).isZero();
+        verify(delegate, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should count failed calls as errors and rethrow them")
+    void shouldCountErrors() {
+        when(delegate.insert(any(User.class))).thenThrow(new EmailAlreadyExistsException("john@example.com"));
+
+        assertThatThrownBy(() -> instrumentedDao.insert(testUser))
+                .isInstanceOf(EmailAlreadyExistsException.class);
+
+        OperationStatistics insert = instrumentedDao.getStatistics("insert").orElseThrow();
+        assertThat(insert.getCalls()).isEqualTo(1);
+        assertThat(insert.getErrors()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should report every UserDao operation and start a new window on reset")
+    void shouldResetWindow() {
+        when(delegate.count()).thenReturn(5L);
+        instrumentedDao.count();
+
+        instrumentedDao.reset();
+
+        assertThat(instrumentedDao.getStatistics())
+                .extracting(OperationStatistics::getOperation)
+                .contains("save", "findById", "findByEmail", "findAll", "update", "delete", "existsByEmail", "count");
+        assertThat(instrumentedDao.getStatistics()).allSatisfy(operation -> assertThat(operation.getCalls()).isZero());
+        assertThat(instrumentedDao.getStatistics("unknown")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should expose operations as MBeans and reset them over JMX")
+    void shouldExposeMBeans() throws Exception {
+        when(delegate.findByEmail("john@example.com")).thenReturn(Optional.of(testUser));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName findByEmail = new ObjectName("com.example.userservice:type=UserDao,name=test,operation=findByEmail");
+
+        instrumentedDao.registerMBeans("test");
+        try {
+            instrumentedDao.findByEmail("john@example.com");
+
+            assertThat(server.getAttribute(findByEmail, "Calls")).isEqualTo(1L);
+            assertThat((Double) server.getAttribute(findByEmail, "P99Micros")).isGreaterThan(0);
+
+            server.invoke(findByEmail, "reset", null, null);
+            assertThat(instrumentedDao.getStatistics("findByEmail").orElseThrow().getCalls()).isZero();
+        } finally {
+            instrumentedDao.unregisterMBeans();
+        }
+        assertThat(server.isRegistered(findByEmail)).isFalse();
+    }
+}
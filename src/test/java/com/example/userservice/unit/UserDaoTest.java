@@ -1,12 +1,31 @@
 package com.example.userservice.unit;
 
+import com.example.userservice.dao.BatchSaveResult;
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.UserCursor;
 import com.example.userservice.dao.UserDao;
 import com.example.userservice.dao.UserDaoImpl;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.dao.UserPatch;
+import com.example.userservice.exception.EmailAlreadyExistsException;
+import com.example.userservice.exception.UserVersionConflictException;
 import com.example.userservice.model.User;
 import com.example.userservice.util.HibernateUtil;
+import org.hibernate.Cache;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.SimpleNaturalIdLoadAccess;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.query.Query;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,8 +35,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -69,6 +96,8 @@ class UserDaoTest {
         assertThat(result).isEqualTo(testUser);
         verify(session).persist(testUser);
         verify(transaction).commit();
+        // Последующие чтения этого потока пойдут на primary
+        hibernateUtilMock.verify(HibernateUtil::markWrite);
     }
 
     @Test
@@ -87,6 +116,101 @@ class UserDaoTest {
         verify(transaction, never()).commit();
     }
 
+    @Test
+    @DisplayName("Should insert user with generated id in a single statement")
+    void shouldInsertUserInSingleStatement() throws SQLException {
+        User user = new User("Jane Doe", "jane@example.com", 25);
+        PreparedStatement insert = stubInsert(user, 1);
+
+        User result = userDao.insert(user);
+
+        assertThat(result.getId()).isEqualTo(42L);
+        assertThat(result.getCreatedAt()).isNotNull();
+        verify(insert).setLong(1, 42L);
+        verify(insert).setString(3, "jane@example.com");
+        verify(transaction).commit();
+        verify(session, never()).persist(any());
+        // Не через native-запрос Hibernate: тот очистил бы регионы кэша users
+        verify(session, never()).createNamedMutationQuery(anyString());
+        verify(session, never()).createNativeMutationQuery(anyString());
+    }
+
+    @Test
+    @DisplayName("Should throw EmailAlreadyExistsException when insert hits a conflict")
+    void shouldThrowWhenInsertConflicts() throws SQLException {
+        User user = new User("Jane Doe", "jane@example.com", 25);
+        stubInsert(user, 0);
+
+        assertThatThrownBy(() -> userDao.insert(user))
+                .isInstanceOf(EmailAlreadyExistsException.class)
+                .hasMessage("Email already exists: jane@example.com");
+
+        assertThat(user.getId()).isNull();
+    }
+
+    private PreparedStatement stubInsert(User user, int rowCount) throws SQLException {
+        SharedSessionContractImplementor implementor = mock(SharedSessionContractImplementor.class, RETURNS_DEEP_STUBS);
+        BeforeExecutionGenerator generator = mock(BeforeExecutionGenerator.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(session.unwrap(SharedSessionContractImplementor.class)).thenReturn(implementor);
+        when(implementor.getFactory().getMappingMetamodel().getEntityDescriptor(User.class).getGenerator())
+                .thenReturn(generator);
+        when(generator.generate(implementor, user, null, EventType.INSERT)).thenReturn(42L);
+        when(session.doReturningWork(any())).thenAnswer(invocation ->
+                invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        // Конфликт пропускается только по email: нарушение первичного ключа остаётся ошибкой
+        when(connection.prepareStatement(endsWith("ON CONFLICT ((lower(email))) DO NOTHING"))).thenReturn(insert);
+        when(insert.executeUpdate()).thenReturn(rowCount);
+        return insert;
+    }
+
+    @Test
+    @DisplayName("Should save users in chunks of batch size")
+    void shouldSaveUsersInChunks() {
+        UserDao batchingDao = new UserDaoImpl(2);
+        List<User> users = Arrays.asList(
+                new User("A", "a@example.com", 20),
+                new User("B", "b@example.com", 21),
+                new User("C", "c@example.com", 22));
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+
+        BatchSaveResult result = batchingDao.saveAll(users);
+
+        assertThat(result.getSaved()).containsExactlyElementsOf(users);
+        assertThat(result.hasFailures()).isFalse();
+        verify(session).setJdbcBatchSize(2);
+        verify(session, times(3)).persist(any(User.class));
+        verify(transaction, times(2)).commit();
+        verify(sessionFactory, times(1)).openSession();
+    }
+
+    @Test
+    @DisplayName("Should report failed rows without aborting the batch")
+    void shouldReportFailedRowsWithoutAbortingBatch() {
+        User first = new User("A", "a@example.com", 20);
+        User duplicate = new User("B", "a@example.com", 21);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(transaction.isActive()).thenReturn(true);
+        doThrow(new ConstraintViolationException("duplicate key", new SQLException(), "uk_email"))
+                .doNothing()
+                .doThrow(new ConstraintViolationException("duplicate key", new SQLException(), "uk_email"))
+                .when(transaction).commit();
+
+        BatchSaveResult result = userDao.saveAll(Arrays.asList(first, duplicate));
+
+        assertThat(result.getSaved()).containsExactly(first);
+        assertThat(result.getFailures()).hasSize(1);
+        assertThat(result.getFailures().get(0).getIndex()).isEqualTo(1);
+        assertThat(result.getFailures().get(0).getError()).isInstanceOf(EmailAlreadyExistsException.class);
+        assertThat(duplicate.getId()).isNull();
+        verify(transaction, times(2)).rollback();
+    }
+
     @Test
     @DisplayName("Should find user by ID")
     void shouldFindUserById() {
@@ -111,6 +235,72 @@ class UserDaoTest {
         verify(session).get(User.class, 999L);
     }
 
+    @Test
+    @DisplayName("Should route reads to the replica session factory")
+    void shouldReadFromReplica() {
+        SessionFactory replicaFactory = mock(SessionFactory.class);
+        Session replicaSession = mock(Session.class);
+        hibernateUtilMock.when(HibernateUtil::getReadSessionFactory).thenReturn(replicaFactory);
+        Cache cache = stubPrimaryCache();
+        when(replicaFactory.openSession()).thenReturn(replicaSession);
+        when(replicaSession.get(User.class, 1L)).thenReturn(testUser);
+
+        Optional<User> result = userDao.findById(1L);
+
+        assertThat(result).contains(testUser);
+        verify(cache).containsEntity(User.class, 1L);
+        verify(replicaSession).setDefaultReadOnly(true);
+        verify(session, never()).get(User.class, 1L);
+    }
+
+    @Test
+    @DisplayName("Should serve cached users from the primary second-level cache instead of the replica")
+    void shouldReadCachedUserFromPrimary() {
+        SessionFactory replicaFactory = mock(SessionFactory.class);
+        hibernateUtilMock.when(HibernateUtil::getReadSessionFactory).thenReturn(replicaFactory);
+        Cache cache = stubPrimaryCache();
+        when(cache.containsEntity(User.class, 1L)).thenReturn(true);
+        when(session.get(User.class, 1L)).thenReturn(testUser);
+
+        Optional<User> result = userDao.findById(1L);
+
+        assertThat(result).contains(testUser);
+        verify(replicaFactory, never()).openSession();
+    }
+
+    @Test
+    @DisplayName("Should resolve cached emails through the primary natural-id cache instead of the replica")
+    void shouldReadCachedEmailFromPrimary() {
+        SessionFactory replicaFactory = mock(SessionFactory.class);
+        hibernateUtilMock.when(HibernateUtil::getReadSessionFactory).thenReturn(replicaFactory);
+        Cache cache = stubPrimaryCache();
+        NaturalIdDataAccess naturalIds = stubNaturalIdCache();
+        when(naturalIds.get(any(), eq("natural-id:john@example.com"))).thenReturn(1L);
+        when(cache.containsEntity(User.class, 1L)).thenReturn(true);
+        when(session.get(User.class, 1L)).thenReturn(testUser);
+
+        Optional<User> result = userDao.findByEmail("John@Example.com");
+
+        assertThat(result).contains(testUser);
+        verify(replicaFactory, never()).openSession();
+    }
+
+    @Test
+    @DisplayName("Should fall back to primary when the replica fails")
+    void shouldFallBackToPrimaryWhenReplicaFails() {
+        SessionFactory replicaFactory = mock(SessionFactory.class);
+        RuntimeException failure = new RuntimeException("Connection refused");
+        hibernateUtilMock.when(HibernateUtil::getReadSessionFactory).thenReturn(replicaFactory);
+        stubPrimaryCache();
+        when(replicaFactory.openSession()).thenThrow(failure);
+        when(session.get(User.class, 1L)).thenReturn(testUser);
+
+        Optional<User> result = userDao.findById(1L);
+
+        assertThat(result).contains(testUser);
+        hibernateUtilMock.verify(() -> HibernateUtil.reportReplicaFailure(replicaFactory, failure));
+    }
+
     @Test
     @DisplayName("Should handle exception in findById")
     void shouldHandleExceptionInFindById() {
@@ -123,35 +313,32 @@ class UserDaoTest {
     }
 
     @Test
-    @DisplayName("Should find user by email")
+    @DisplayName("Should find user by email through natural id")
     void shouldFindUserByEmail() {
-        Query<User> userQuery = mock(Query.class);
+        SimpleNaturalIdLoadAccess<User> naturalIdAccess = mock(SimpleNaturalIdLoadAccess.class);
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(User.class))).thenReturn(userQuery);
-        when(userQuery.setParameter("email", "john@example.com")).thenReturn(userQuery);
-        when(userQuery.uniqueResult()).thenReturn(testUser);
+        when(session.bySimpleNaturalId(User.class)).thenReturn(naturalIdAccess);
+        when(naturalIdAccess.load("john@example.com")).thenReturn(testUser);
 
-        Optional<User> result = userDao.findByEmail("john@example.com");
+        Optional<User> result = userDao.findByEmail("John@Example.com");
 
         assertThat(result).contains(testUser);
-        verify(userQuery).setParameter("email", "john@example.com");
-        verify(userQuery).uniqueResult();
+        verify(naturalIdAccess).load("john@example.com");
+        verify(session, never()).createNamedQuery(anyString(), eq(User.class));
     }
 
     @Test
     @DisplayName("Should return empty when user not found by email")
     void shouldReturnEmptyWhenUserNotFoundByEmail() {
-        Query<User> userQuery = mock(Query.class);
+        SimpleNaturalIdLoadAccess<User> naturalIdAccess = mock(SimpleNaturalIdLoadAccess.class);
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(User.class))).thenReturn(userQuery);
-        when(userQuery.setParameter("email", "unknown@example.com")).thenReturn(userQuery);
-        when(userQuery.uniqueResult()).thenReturn(null);
+        when(session.bySimpleNaturalId(User.class)).thenReturn(naturalIdAccess);
+        when(naturalIdAccess.load("unknown@example.com")).thenReturn(null);
 
         Optional<User> result = userDao.findByEmail("unknown@example.com");
 
         assertThat(result).isEmpty();
-        verify(userQuery).setParameter("email", "unknown@example.com");
-        verify(userQuery).uniqueResult();
+        verify(naturalIdAccess).load("unknown@example.com");
     }
 
     @Test
@@ -160,7 +347,7 @@ class UserDaoTest {
         Query<User> userQuery = mock(Query.class);
         List<User> users = Arrays.asList(testUser);
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(User.class))).thenReturn(userQuery);
+        when(session.createNamedQuery(anyString(), eq(User.class))).thenReturn(userQuery);
         when(userQuery.list()).thenReturn(users);
 
         List<User> result = userDao.findAll();
@@ -170,6 +357,32 @@ class UserDaoTest {
         verify(userQuery).list();
     }
 
+    @Test
+    @DisplayName("Should stream all users through scrollable cursor")
+    void shouldStreamAllUsersThroughScrollableCursor() {
+        StatelessSession statelessSession = mock(StatelessSession.class);
+        Query<User> userQuery = mock(Query.class);
+        ScrollableResults<User> results = mock(ScrollableResults.class);
+        User other = new User("Jane Doe", "jane@example.com", 25);
+        when(sessionFactory.openStatelessSession()).thenReturn(statelessSession);
+        when(statelessSession.beginTransaction()).thenReturn(transaction);
+        when(statelessSession.createNamedQuery(anyString(), eq(User.class))).thenReturn(userQuery);
+        when(userQuery.setFetchSize(anyInt())).thenReturn(userQuery);
+        when(userQuery.setReadOnly(true)).thenReturn(userQuery);
+        when(userQuery.scroll(ScrollMode.FORWARD_ONLY)).thenReturn(results);
+        when(results.next()).thenReturn(true, true, false);
+        when(results.get()).thenReturn(testUser, other);
+        List<User> consumed = new ArrayList<>();
+
+        long count = userDao.streamAll(consumed::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(consumed).containsExactly(testUser, other);
+        verify(results).close();
+        verify(transaction).commit();
+        verify(sessionFactory, never()).openSession();
+    }
+
     @Test
     @DisplayName("Should update user successfully")
     void shouldUpdateUserSuccessfully() {
@@ -201,30 +414,184 @@ class UserDaoTest {
     }
 
     @Test
-    @DisplayName("Should delete user successfully")
-    void shouldDeleteUserSuccessfully() {
+    @DisplayName("Should patch only changed columns in a single UPDATE ... RETURNING")
+    void shouldPatchOnlyChangedColumns() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        Cache cache = stubWorkSession(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString("name")).thenReturn("John Doe");
+        when(resultSet.getString("email")).thenReturn("john@example.com");
+        when(resultSet.getObject("age", Integer.class)).thenReturn(31);
+        when(resultSet.getLong("id")).thenReturn(1L);
+        when(resultSet.getLong("version")).thenReturn(4L);
+
+        Optional<User> result = userDao.patch(1L, new UserPatch(null, null, 31, 3L));
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getAge()).isEqualTo(31);
+        assertThat(result.get().getVersion()).isEqualTo(4L);
+        verify(connection).prepareStatement("UPDATE users SET age = ?, version = version + 1 "
+                + "WHERE id = ? AND version = ? RETURNING id, name, email, age, created_at, version");
+        verify(statement).setObject(1, 31);
+        verify(statement).setObject(2, 1L);
+        verify(statement).setObject(3, 3L);
+        verify(transaction).commit();
+        verify(cache).evictEntityData(User.class, 1L);
+        verify(session, never()).unwrap(SharedSessionContractImplementor.class);
+    }
+
+    @Test
+    @DisplayName("Should evict only the previous email from the natural-id cache when email changes")
+    void shouldEvictPreviousEmailOnPatch() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        Cache cache = stubWorkSession(connection);
+        NaturalIdDataAccess naturalIds = stubNaturalIdCache();
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getString("name")).thenReturn("John Doe");
+        when(resultSet.getString("email")).thenReturn("johnny@example.com");
+        when(resultSet.getString("previous_email")).thenReturn("john@example.com");
+        when(resultSet.getLong("id")).thenReturn(1L);
+
+        Optional<User> result = userDao.patch(1L, new UserPatch(null, "johnny@example.com", null));
+
+        assertThat(result).map(User::getEmail).contains("johnny@example.com");
+        verify(connection).prepareStatement("WITH previous AS (SELECT email FROM users WHERE id = ? FOR UPDATE) "
+                + "UPDATE users SET email = ?, version = version + 1 WHERE id = ? "
+                + "RETURNING id, name, email, age, created_at, version, (SELECT email FROM previous) AS previous_email");
+        verify(statement).setObject(1, 1L);
+        verify(statement).setObject(2, "johnny@example.com");
+        verify(statement).setObject(3, 1L);
+        verify(cache).evictEntityData(User.class, 1L);
+        verify(naturalIds).evict("natural-id:john@example.com");
+        verify(naturalIds, times(1)).evict(any());
+        verify(cache, never()).evictNaturalIdData(User.class);
+    }
+
+    @Test
+    @DisplayName("Should report version conflict when the row was modified concurrently")
+    void shouldReportVersionConflict() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement update = mock(PreparedStatement.class);
+        PreparedStatement select = mock(PreparedStatement.class);
+        ResultSet noRows = mock(ResultSet.class);
+        ResultSet currentVersion = mock(ResultSet.class);
         when(sessionFactory.openSession()).thenReturn(session);
         when(session.beginTransaction()).thenReturn(transaction);
-        when(session.get(User.class, 1L)).thenReturn(testUser);
+        when(session.doReturningWork(any())).thenAnswer(invocation ->
+                invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        when(transaction.isActive()).thenReturn(true);
+        when(connection.prepareStatement(startsWith("UPDATE"))).thenReturn(update);
+        when(connection.prepareStatement("SELECT version FROM users WHERE id = ?")).thenReturn(select);
+        when(update.executeQuery()).thenReturn(noRows);
+        when(select.executeQuery()).thenReturn(currentVersion);
+        when(currentVersion.next()).thenReturn(true);
+        when(currentVersion.getLong(1)).thenReturn(5L);
+
+        assertThatThrownBy(() -> userDao.patch(1L, new UserPatch("New Name", null, null, 3L)))
+                .isInstanceOf(UserVersionConflictException.class)
+                .hasMessageContaining("expected version 3, actual 5");
+
+        verify(transaction).rollback();
+        verify(transaction, never()).commit();
+    }
+
+    @Test
+    @DisplayName("Should reject empty patch")
+    void shouldRejectEmptyPatch() {
+        assertThatThrownBy(() -> userDao.patch(1L, new UserPatch(null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(sessionFactory, never()).openSession();
+    }
+
+    private Cache stubWorkSession(Connection connection) {
+        Cache cache = mock(Cache.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(session.doReturningWork(any())).thenAnswer(invocation ->
+                invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        when(session.getSessionFactory()).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        return cache;
+    }
+
+    // Сессия primary для проверки second-level cache перед репликой; по умолчанию кэш пуст
+    private Cache stubPrimaryCache() {
+        Cache cache = mock(Cache.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.getSessionFactory()).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        return cache;
+    }
+
+    private NaturalIdDataAccess stubNaturalIdCache() {
+        SharedSessionContractImplementor implementor = mock(SharedSessionContractImplementor.class, RETURNS_DEEP_STUBS);
+        EntityPersister persister = mock(EntityPersister.class);
+        NaturalIdDataAccess naturalIds = mock(NaturalIdDataAccess.class);
+        when(session.unwrap(SharedSessionContractImplementor.class)).thenReturn(implementor);
+        when(implementor.getFactory().getMappingMetamodel().getEntityDescriptor(User.class)).thenReturn(persister);
+        when(persister.getNaturalIdCacheAccessStrategy()).thenReturn(naturalIds);
+        when(naturalIds.generateCacheKey(any(), eq(persister), eq(implementor)))
+                .thenAnswer(invocation -> "natural-id:" + invocation.getArgument(0));
+        return naturalIds;
+    }
+
+    // ResultSet из одной колонки email, строка за строкой
+    private static ResultSet emails(String... emails) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < emails.length);
+        if (emails.length > 0) {
+            when(resultSet.getString(1)).thenAnswer(invocation -> emails[row[0]]);
+        }
+        return resultSet;
+    }
+
+    @Test
+    @DisplayName("Should delete user with a single statement")
+    void shouldDeleteUserSuccessfully() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Cache cache = stubWorkSession(connection);
+        NaturalIdDataAccess naturalIds = stubNaturalIdCache();
+        when(connection.prepareStatement("DELETE FROM users WHERE id = ? RETURNING email")).thenReturn(statement);
+        ResultSet deletedEmails = emails("john@example.com");
+        when(statement.executeQuery()).thenReturn(deletedEmails);
 
         boolean result = userDao.delete(1L);
 
         assertThat(result).isTrue();
-        verify(session).remove(testUser);
+        verify(statement).setLong(1, 1L);
+        verify(session, never()).get(eq(User.class), any());
         verify(transaction).commit();
+        verify(cache).evictEntityData(User.class, 1L);
+        verify(naturalIds).evict("natural-id:john@example.com");
+        verify(cache, never()).evictNaturalIdData(User.class);
     }
 
     @Test
     @DisplayName("Should return false when deleting non-existent user")
-    void shouldReturnFalseWhenDeletingNonExistentUser() {
-        when(sessionFactory.openSession()).thenReturn(session);
-        when(session.beginTransaction()).thenReturn(transaction);
-        when(session.get(User.class, 999L)).thenReturn(null);
+    void shouldReturnFalseWhenDeletingNonExistentUser() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        stubWorkSession(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        ResultSet noRows = emails();
+        when(statement.executeQuery()).thenReturn(noRows);
 
         boolean result = userDao.delete(999L);
 
         assertThat(result).isFalse();
         verify(session, never()).remove(any());
+        verify(session, never()).unwrap(SharedSessionContractImplementor.class);
     }
 
     @Test
@@ -232,9 +599,8 @@ class UserDaoTest {
     void shouldHandleDeleteErrorWithRollback() {
         when(sessionFactory.openSession()).thenReturn(session);
         when(session.beginTransaction()).thenReturn(transaction);
-        when(session.get(User.class, 1L)).thenReturn(testUser);
         when(transaction.isActive()).thenReturn(true);
-        doThrow(new RuntimeException("DB error")).when(session).remove(testUser);
+        when(session.doReturningWork(any())).thenThrow(new RuntimeException("DB error"));
 
         assertThatThrownBy(() -> userDao.delete(1L))
                 .isInstanceOf(RuntimeException.class)
@@ -244,12 +610,53 @@ class UserDaoTest {
         verify(transaction, never()).commit();
     }
 
+    @Test
+    @DisplayName("Should bulk delete ids in ANY(?) chunks within one transaction")
+    void shouldBulkDeleteInChunks() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Array array = mock(Array.class);
+        stubWorkSession(connection);
+        NaturalIdDataAccess naturalIds = stubNaturalIdCache();
+        when(connection.prepareStatement("DELETE FROM users WHERE id = ANY(?) RETURNING email")).thenReturn(statement);
+        when(connection.createArrayOf(eq("bigint"), any())).thenReturn(array);
+        String[] firstChunk = new String[10_000];
+        for (int i = 0; i < firstChunk.length; i++) {
+            firstChunk[i] = "user" + i + "@example.com";
+        }
+        ResultSet firstDeleted = emails(firstChunk);
+        ResultSet secondDeleted = emails("a@example.com", "b@example.com", "c@example.com", "d@example.com");
+        when(statement.executeQuery()).thenReturn(firstDeleted, secondDeleted);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 10_005; id++) {
+            ids.add(id);
+        }
+
+        long deleted = userDao.deleteAll(ids);
+
+        assertThat(deleted).isEqualTo(10_004);
+        verify(statement, times(2)).executeQuery();
+        verify(array, times(2)).free();
+        verify(naturalIds).evict("natural-id:d@example.com");
+        verify(naturalIds, times(10_004)).evict(any());
+        verify(session).beginTransaction();
+        verify(transaction).commit();
+    }
+
+    @Test
+    @DisplayName("Should skip database when bulk deleting nothing")
+    void shouldSkipBulkDeleteOfEmptyCollection() {
+        assertThat(userDao.deleteAll(List.of())).isZero();
+
+        verify(sessionFactory, never()).openSession();
+    }
+
     @Test
     @DisplayName("Should check if email exists")
     void shouldCheckIfEmailExists() {
         Query<Long> longQuery = mock(Query.class);
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(Long.class))).thenReturn(longQuery);
+        when(session.createNamedQuery(anyString(), eq(Long.class))).thenReturn(longQuery);
         when(longQuery.setParameter("email", "john@example.com")).thenReturn(longQuery);
         when(longQuery.uniqueResult()).thenReturn(1L);
 
@@ -265,7 +672,7 @@ class UserDaoTest {
     void shouldReturnUserCount() {
         Query<Long> longQuery = mock(Query.class);
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(Long.class))).thenReturn(longQuery);
+        when(session.createNamedQuery(anyString(), eq(Long.class))).thenReturn(longQuery);
         when(longQuery.uniqueResult()).thenReturn(5L);
 
         long result = userDao.count();
@@ -274,13 +681,76 @@ class UserDaoTest {
         verify(longQuery).uniqueResult();
     }
 
+    @Test
+    @DisplayName("Should seed cached count once and maintain it on writes")
+    void shouldMaintainCachedCount() {
+        Query<Long> longQuery = mock(Query.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(session.createNamedQuery(User.COUNT_ALL, Long.class)).thenReturn(longQuery);
+        when(longQuery.uniqueResult()).thenReturn(5L);
+
+        assertThat(userDao.count(CountMode.CACHED)).isEqualTo(5L);
+        userDao.save(new User("Jane Doe", "jane@example.com", 25));
+        userDao.saveAll(Arrays.asList(new User("A", "a@example.com", 20), new User("B", "b@example.com", 21)));
+
+        assertThat(userDao.count(CountMode.CACHED)).isEqualTo(8L);
+        verify(longQuery, times(1)).uniqueResult();
+    }
+
+    @Test
+    @DisplayName("Should decrement cached count by deleted rows")
+    void shouldDecrementCachedCountOnDelete() throws SQLException {
+        Query<Long> longQuery = mock(Query.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        stubWorkSession(connection);
+        when(session.createNamedQuery(User.COUNT_ALL, Long.class)).thenReturn(longQuery);
+        when(longQuery.uniqueResult()).thenReturn(5L);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        ResultSet deletedEmails = emails("john@example.com");
+        when(statement.executeQuery()).thenReturn(deletedEmails);
+        stubNaturalIdCache();
+
+        userDao.count(CountMode.CACHED);
+        userDao.delete(1L);
+
+        assertThat(userDao.count(CountMode.CACHED)).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Should return planner estimate without scanning the table")
+    void shouldReturnEstimatedCount() {
+        Query<Long> estimateQuery = mock(Query.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.createNamedQuery(User.COUNT_ESTIMATED, Long.class)).thenReturn(estimateQuery);
+        when(estimateQuery.uniqueResult()).thenReturn(1_000_000L);
+
+        assertThat(userDao.count(CountMode.ESTIMATED)).isEqualTo(1_000_000L);
+        verify(session, never()).createNamedQuery(User.COUNT_ALL, Long.class);
+    }
+
+    @Test
+    @DisplayName("Should fall back to cached count when table was never analyzed")
+    void shouldFallBackWhenNoEstimate() {
+        Query<Long> estimateQuery = mock(Query.class);
+        Query<Long> longQuery = mock(Query.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.createNamedQuery(User.COUNT_ESTIMATED, Long.class)).thenReturn(estimateQuery);
+        when(estimateQuery.uniqueResult()).thenReturn(-1L);
+        when(session.createNamedQuery(User.COUNT_ALL, Long.class)).thenReturn(longQuery);
+        when(longQuery.uniqueResult()).thenReturn(7L);
+
+        assertThat(userDao.count(CountMode.ESTIMATED)).isEqualTo(7L);
+    }
+
     @Test
     @DisplayName("Should return users with pagination")
     void shouldReturnUsersWithPagination() {
         Query<User> userQuery = mock(Query.class);
         List<User> users = Arrays.asList(testUser);
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(User.class))).thenReturn(userQuery);
+        when(session.createNamedQuery(anyString(), eq(User.class))).thenReturn(userQuery);
         when(userQuery.setFirstResult(0)).thenReturn(userQuery);
         when(userQuery.setMaxResults(10)).thenReturn(userQuery);
         when(userQuery.list()).thenReturn(users);
@@ -293,11 +763,78 @@ class UserDaoTest {
         verify(userQuery).list();
     }
 
+    @Test
+    @DisplayName("Should return first keyset page with next cursor")
+    void shouldReturnFirstKeysetPageWithNextCursor() {
+        Query<User> userQuery = mock(Query.class);
+        User older = new User("Jane Doe", "jane@example.com", 25);
+        older.setId(2L);
+        older.setCreatedAt(LocalDateTime.of(2023, 1, 1, 10, 0));
+        testUser.setCreatedAt(LocalDateTime.of(2023, 1, 2, 10, 0));
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.createNamedQuery(anyString(), eq(User.class))).thenReturn(userQuery);
+        when(userQuery.setMaxResults(2)).thenReturn(userQuery);
+        when(userQuery.list()).thenReturn(Arrays.asList(testUser, older));
+
+        UserPage page = userDao.findPageAfter(null, 1);
+
+        assertThat(page.getUsers()).containsExactly(testUser);
+        assertThat(page.getNextCursor()).isEqualTo(UserCursor.of(testUser));
+        verify(userQuery, never()).setFirstResult(anyInt());
+        verify(userQuery, never()).setParameter(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should seek past cursor and detect last page")
+    void shouldSeekPastCursorAndDetectLastPage() {
+        Query<User> userQuery = mock(Query.class);
+        UserCursor cursor = new UserCursor(LocalDateTime.of(2023, 1, 2, 10, 0), 5L);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.createNamedQuery(anyString(), eq(User.class))).thenReturn(userQuery);
+        when(userQuery.setParameter(anyString(), any())).thenReturn(userQuery);
+        when(userQuery.setMaxResults(11)).thenReturn(userQuery);
+        when(userQuery.list()).thenReturn(Arrays.asList(testUser));
+
+        UserPage page = userDao.findPageAfter(cursor, 10);
+
+        assertThat(page.getUsers()).containsExactly(testUser);
+        assertThat(page.hasNext()).isFalse();
+        verify(userQuery).setParameter("createdAt", cursor.getCreatedAt());
+        verify(userQuery).setParameter("id", 5L);
+    }
+
+    @Test
+    @DisplayName("Should warm up queries on the configured number of connections")
+    void shouldWarmUpQueriesOnEachConnection() {
+        Session warmSession = mock(Session.class, RETURNS_DEEP_STUBS);
+        when(sessionFactory.getProperties()).thenReturn(Map.of(UserDaoImpl.WARMUP_CONNECTIONS, "3"));
+        when(sessionFactory.openSession()).thenReturn(warmSession);
+
+        userDao.warmUp();
+
+        verify(sessionFactory, times(3)).openSession();
+        verify(warmSession, times(3)).createNamedQuery(User.FIND_PAGE_AFTER, User.class);
+        verify(warmSession, times(3)).createNamedQuery(User.COUNT_BY_EMAIL, Long.class);
+        verify(warmSession, never()).createNamedQuery(User.COUNT_ALL, Long.class);
+        verify(warmSession, times(3)).close();
+    }
+
+    @Test
+    @DisplayName("Should not propagate warm-up failures")
+    void shouldNotPropagateWarmUpFailures() {
+        when(sessionFactory.getProperties()).thenReturn(Map.of());
+        when(sessionFactory.openSession()).thenThrow(new RuntimeException("DB down"));
+
+        userDao.warmUp();
+
+        verify(sessionFactory).openSession();
+    }
+
     @Test
     @DisplayName("Should handle exception in existsByEmail")
     void shouldHandleExceptionInExistsByEmail() {
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(Long.class))).thenThrow(new RuntimeException("DB error"));
+        when(session.createNamedQuery(anyString(), eq(Long.class))).thenThrow(new RuntimeException("DB error"));
 
         assertThatThrownBy(() -> userDao.existsByEmail("test@example.com"))
                 .isInstanceOf(RuntimeException.class)
@@ -308,7 +845,7 @@ class UserDaoTest {
     @DisplayName("Should handle exception in count")
     void shouldHandleExceptionInCount() {
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(Long.class))).thenThrow(new RuntimeException("DB error"));
+        when(session.createNamedQuery(anyString(), eq(Long.class))).thenThrow(new RuntimeException("DB error"));
 
         assertThatThrownBy(() -> userDao.count())
                 .isInstanceOf(RuntimeException.class)
@@ -319,7 +856,7 @@ class UserDaoTest {
     @DisplayName("Should handle exception in findAll")
     void shouldHandleExceptionInFindAll() {
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(User.class))).thenThrow(new RuntimeException("DB error"));
+        when(session.createNamedQuery(anyString(), eq(User.class))).thenThrow(new RuntimeException("DB error"));
 
         assertThatThrownBy(() -> userDao.findAll())
                 .isInstanceOf(RuntimeException.class)
@@ -330,10 +867,10 @@ class UserDaoTest {
     @DisplayName("Should handle exception in findByEmail")
     void shouldHandleExceptionInFindByEmail() {
         when(sessionFactory.openSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(User.class))).thenThrow(new RuntimeException("DB error"));
+        when(session.bySimpleNaturalId(User.class)).thenThrow(new RuntimeException("DB error"));
 
         assertThatThrownBy(() -> userDao.findByEmail("test@example.com"))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Failed to find user by email");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.example.userservice.unit;
+
+import com.example.userservice.io.ExportResult;
+import com.example.userservice.io.UserExporter;
+import com.example.userservice.util.HibernateUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("User Exporter Unit Tests")
+class UserExporterTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    @TempDir
+    Path dir;
+
+    private SessionFactory sessionFactory;
+    private StatelessSession session;
+    private Connection connection;
+    private PreparedStatement rangeStatement;
+    private MockedStatic<HibernateUtil> hibernateUtilMock;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        sessionFactory = mock(SessionFactory.class);
+        session = mock(StatelessSession.class);
+        connection = mock(Connection.class);
+        rangeStatement = mock(PreparedStatement.class);
+
+        hibernateUtilMock = mockStatic(HibernateUtil.class);
+        hibernateUtilMock.when(HibernateUtil::getSessionFactory).thenReturn(sessionFactory);
+        when(sessionFactory.openStatelessSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(mock(Transaction.class));
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+        when(session.doReturningWork(any())).thenAnswer(invocation ->
+                invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        when(connection.prepareStatement(startsWith("SELECT id, name"), anyInt(), anyInt())).thenReturn(rangeStatement);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hibernateUtilMock.close();
+    }
+
+    @Test
+    @DisplayName("Should stream rows into a CSV file")
+    void shouldExportCsv() throws Exception {
+        ResultSet rows = rows();
+        when(rangeStatement.executeQuery()).thenReturn(rows);
+        Path target = dir.resolve("users.csv");
+
+        ExportResult result = new UserExporter(100).export(target);
+
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(result.getFiles()).containsExactly(target);
+        assertThat(result.getBytes()).isEqualTo(Files.size(target));
+        assertThat(Files.readAllLines(target)).containsExactly(
+                "id,name,email,age,created_at",
+                "1,\"Doe, John\",john@example.com,30,2024-01-02T03:04:05.000000",
+                "2,Jane,jane@example.com,,");
+        verify(rangeStatement).setFetchSize(100);
+        verify(rows).close();
+    }
+
+    @Test
+    @DisplayName("Should gzip JSON Lines output when the file name ends with .gz")
+    void shouldExportGzipJsonLines() throws Exception {
+        ResultSet rows = rows();
+        when(rangeStatement.executeQuery()).thenReturn(rows);
+        Path target = dir.resolve("users.jsonl.gz");
+
+        ExportResult result = new UserExporter().export(target);
+
+        assertThat(result.getRows()).isEqualTo(2);
+        assertThat(gunzip(target)).isEqualTo(
+                "{\"id\":1,\"name\":\"Doe, John\",\"email\":\"john@example.com\",\"age\":30,"
+                        + "\"createdAt\":\"2024-01-02T03:04:05.000000\"}\n"
+                        + "{\"id\":2,\"name\":\"Jane\",\"email\":\"jane@example.com\",\"age\":null,\"createdAt\":null}\n");
+    }
+
+    @Test
+    @DisplayName("Should split the id range by quantiles into part files")
+    void shouldExportPartsInParallel() throws Exception {
+        PreparedStatement quantileStatement = mock(PreparedStatement.class);
+        ResultSet quantileResult = mock(ResultSet.class);
+        Array quantiles = mock(Array.class);
+        when(connection.prepareStatement(contains("percentile_disc"))).thenReturn(quantileStatement);
+        when(quantileStatement.executeQuery()).thenReturn(quantileResult);
+        when(quantileResult.next()).thenReturn(true);
+        when(quantileResult.getArray(1)).thenReturn(quantiles);
+        when(quantiles.getArray()).thenReturn(new Long[]{100L, 200L});
+        when(rangeStatement.executeQuery()).thenAnswer(invocation -> rows());
+        Path target = dir.resolve("users.csv");
+
+        ExportResult result = new UserExporter().export(target, 3);
+
+        assertThat(result.getRows()).isEqualTo(6);
+        assertThat(result.getFiles()).containsExactly(
+                dir.resolve("users.part-0001.csv"),
+                dir.resolve("users.part-0002.csv"),
+                dir.resolve("users.part-0003.csv"));
+        assertThat(Files.readAllLines(result.getFiles().get(1))).hasSize(3).first()
+                .isEqualTo("id,name,email,age,created_at");
+        verify(rangeStatement).setLong(1, Long.MIN_VALUE);
+        verify(rangeStatement).setLong(2, 99L);
+        verify(rangeStatement).setLong(1, 100L);
+        verify(rangeStatement).setLong(2, 199L);
+        verify(rangeStatement).setLong(1, 200L);
+        verify(rangeStatement).setLong(2, Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Should wrap query failures")
+    void shouldWrapQueryFailures() throws Exception {
+        when(rangeStatement.executeQuery()).thenThrow(new SQLException("connection reset"));
+
+        assertThatThrownBy(() -> new UserExporter().export(dir.resolve("users.csv")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Failed to export users");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid arguments")
+    void shouldRejectInvalidArguments() {
+        UserExporter exporter = new UserExporter();
+
+        assertThatThrownBy(() -> exporter.export(dir.resolve("users.txt")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> exporter.export(dir.resolve("users.csv"), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new UserExporter(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Две строки: обычная и с NULL в age и created_at
+    private static ResultSet rows() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        AtomicInteger row = new AtomicInteger();
+        when(rs.next()).thenAnswer(invocation -> row.incrementAndGet() <= 2);
+        when(rs.getLong(1)).thenAnswer(invocation -> (long) row.get());
+        when(rs.getString(2)).thenAnswer(invocation -> row.get() == 1 ? "Doe, John" : "Jane");
+        when(rs.getString(3)).thenAnswer(invocation -> row.get() == 1 ? "john@example.com" : "jane@example.com");
+        when(rs.getInt(4)).thenAnswer(invocation -> row.get() == 1 ? 30 : 0);
+        when(rs.wasNull()).thenAnswer(invocation -> row.get() != 1);
+        when(rs.getObject(5, LocalDateTime.class)).thenAnswer(invocation -> row.get() == 1 ? CREATED_AT : null);
+        return rs;
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
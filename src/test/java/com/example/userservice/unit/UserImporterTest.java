@@ -0,0 +1,195 @@
+package com.example.userservice.unit;
+
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.UserDao;
+import com.example.userservice.io.ImportResult;
+import com.example.userservice.io.UserImporter;
+import com.example.userservice.model.User;
+import com.example.userservice.util.HibernateUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("User Importer Unit Tests")
+class UserImporterTest {
+
+    @TempDir
+    Path dir;
+
+    private SessionFactory sessionFactory;
+    private StatelessSession session;
+    private Transaction transaction;
+    private Query<String> existingEmails;
+    private final List<String> inserted = new ArrayList<>();
+    private MockedStatic<HibernateUtil> hibernateUtilMock;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        sessionFactory = mock(SessionFactory.class);
+        session = mock(StatelessSession.class);
+        transaction = mock(Transaction.class);
+        existingEmails = mock(Query.class);
+
+        hibernateUtilMock = mockStatic(HibernateUtil.class);
+        hibernateUtilMock.when(HibernateUtil::getSessionFactory).thenReturn(sessionFactory);
+        when(sessionFactory.openStatelessSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+        when(session.createNamedQuery(User.FIND_EXISTING_EMAILS, String.class)).thenReturn(existingEmails);
+        when(existingEmails.setParameter(eq("emails"), any())).thenReturn(existingEmails);
+        when(existingEmails.getResultList()).thenReturn(List.of());
+        doAnswer(invocation -> {
+            inserted.add(((User) invocation.getArgument(0)).getEmail());
+            return 1L;
+        }).when(session).insert(any(User.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hibernateUtilMock.close();
+    }
+
+    @Test
+    @DisplayName("Should import valid rows and write invalid ones to the reject file")
+    void shouldImportValidRowsAndRejectInvalid() throws IOException {
+        Path source = Files.writeString(dir.resolve("users.csv"), String.join("\n",
+                "name,email,age",
+                "Alice,alice@example.com,30",
+                "Bob,not-an-email,40",
+                "",
+                "Carol,carol@example.com,",
+                "Dave,dave@example.com,200",
+                "Erin,erin@example.com,25"));
+        Path rejects = dir.resolve("users.csv.rejects");
+
+        ImportResult result = new UserImporter(2, 2, 1).importFile(source, rejects);
+
+        assertThat(result.getRowsRead()).isEqualTo(5);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(inserted).containsExactlyInAnyOrder("alice@example.com", "carol@example.com", "erin@example.com");
+        assertThat(Files.readAllLines(rejects)).containsExactlyInAnyOrder(
+                "3\tInvalid email format: not-an-email\tBob,not-an-email,40",
+                "6\tAge must be between 0 and 150\tDave,dave@example.com,200");
+        verify(session).close();
+    }
+
+    @Test
+    @DisplayName("Should reject emails that already exist or repeat within a batch")
+    void shouldRejectExistingAndRepeatedEmails() throws IOException {
+        when(existingEmails.getResultList()).thenReturn(List.of("taken@example.com"));
+        Path source = Files.writeString(dir.resolve("users.jsonl"), String.join("\n",
+                "{\"name\": \"A\", \"email\": \"taken@example.com\"}",
+                "{\"name\": \"B\", \"email\": \"new@example.com\"}",
+                "{\"name\": \"C\", \"email\": \"NEW@example.com\"}"));
+        Path rejects = dir.resolve("users.jsonl.rejects");
+
+        ImportResult result = new UserImporter(10, 1, 1).importFile(source, rejects);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(inserted).containsExactly("new@example.com");
+        assertThat(Files.readAllLines(rejects))
+                .extracting(line -> line.split("\t")[0])
+                .containsExactlyInAnyOrder("1", "3");
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch row by row and reject only the conflicting row")
+    void shouldRetryFailedBatchRowByRow() throws IOException {
+        ConstraintViolationException conflict =
+                new ConstraintViolationException("duplicate key", new SQLException(), "uk_email");
+        doThrow(conflict)
+                .doNothing()
+                .doThrow(conflict)
+                .doNothing()
+                .when(transaction).commit();
+        when(transaction.isActive()).thenReturn(true);
+        Path source = Files.writeString(dir.resolve("users.csv"),
+                "A,a@example.com,1\nB,b@example.com,2\nC,c@example.com,3\n");
+        Path rejects = dir.resolve("users.csv.rejects");
+
+        ImportResult result = new UserImporter(10, 1, 1).importFile(source, rejects);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(Files.readString(rejects)).startsWith("2\tEmail already exists: b@example.com\t");
+        verify(transaction, times(2)).rollback();
+    }
+
+    @Test
+    @DisplayName("Should abort import on non-constraint database errors")
+    void shouldAbortOnDatabaseError() throws IOException {
+        doThrow(new RuntimeException("connection lost")).when(transaction).commit();
+        when(transaction.isActive()).thenReturn(true);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("User").append(i).append(",user").append(i).append("@example.com,30\n");
+        }
+        Path source = Files.writeString(dir.resolve("users.csv"), content);
+
+        assertThatThrownBy(() -> new UserImporter(10, 2, 1).importFile(source, dir.resolve("rejects")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Failed to write import batch");
+
+        verify(transaction).rollback();
+    }
+
+    @Test
+    @DisplayName("Should roll back and abort when a row-by-row retry hits a non-constraint error")
+    void shouldRollBackRowByRowOnDatabaseError() throws IOException {
+        ConstraintViolationException conflict =
+                new ConstraintViolationException("duplicate key", new SQLException(), "uk_email");
+        doThrow(conflict)
+                .doThrow(new RuntimeException("connection lost"))
+                .when(transaction).commit();
+        when(transaction.isActive()).thenReturn(true);
+        Path source = Files.writeString(dir.resolve("users.csv"), "A,a@example.com,1\nB,b@example.com,2\n");
+
+        assertThatThrownBy(() -> new UserImporter(10, 1, 1).importFile(source, dir.resolve("rejects")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Failed to write import row 1");
+
+        verify(transaction, times(2)).rollback();
+        verify(session).close();
+    }
+
+    @Test
+    @DisplayName("Should recount users exactly after import so the cached count does not drift")
+    void shouldReseedCachedCountAfterImport() throws IOException {
+        UserDao userDao = mock(UserDao.class);
+        Path source = Files.writeString(dir.resolve("users.csv"), "A,a@example.com,1\nB,b@example.com,2\n");
+
+        new UserImporter(10, 1, 1, userDao).importFile(source, dir.resolve("rejects"));
+
+        verify(userDao).count(CountMode.EXACT);
+    }
+
+    @Test
+    @DisplayName("Should reject unsupported file extensions")
+    void shouldRejectUnsupportedExtension() {
+        assertThatThrownBy(() -> new UserImporter().importFile(dir.resolve("users.xml"), dir.resolve("rejects")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported file format: users.xml");
+    }
+}
@@ -1,18 +1,29 @@
 package com.example.userservice.unit;
 
+import com.example.userservice.dao.BatchSaveResult;
+import com.example.userservice.dao.CountMode;
+import com.example.userservice.dao.UserCursor;
 import com.example.userservice.dao.UserDao;
+import com.example.userservice.dao.UserPage;
+import com.example.userservice.dao.UserPatch;
+import com.example.userservice.exception.EmailAlreadyExistsException;
+import com.example.userservice.exception.UserVersionConflictException;
 import com.example.userservice.model.User;
 import com.example.userservice.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -39,30 +50,62 @@ class UserServiceTest {
     @Test
     @DisplayName("Should create user successfully")
     void shouldCreateUserSuccessfully() {
-        when(userDao.existsByEmail("john@example.com")).thenReturn(false);
-        when(userDao.save(any(User.class))).thenReturn(testUser);
+        when(userDao.insert(any(User.class))).thenReturn(testUser);
 
         User createdUser = userService.createUser("John Doe", "john@example.com", 30);
 
         assertThat(createdUser).isNotNull();
         assertThat(createdUser.getId()).isEqualTo(1L);
-        verify(userDao).existsByEmail("john@example.com");
-        verify(userDao).save(any(User.class));
+        verify(userDao).insert(any(User.class));
+        verify(userDao, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("Should normalise email before creating user")
+    void shouldNormaliseEmailOnCreate() {
+        when(userDao.insert(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        User createdUser = userService.createUser("John Doe", "John@Example.COM", 30);
+
+        assertThat(createdUser.getEmail()).isEqualTo("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid email on create without touching the database")
+    void shouldRejectInvalidEmailOnCreate() {
+        assertThatThrownBy(() -> userService.createUser("John Doe", "not-an-email", 30))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid email format");
+
+        verifyNoInteractions(userDao);
     }
 
     @Test
     @DisplayName("Should throw exception when creating user with existing email")
     void shouldThrowExceptionWhenEmailExists() {
-        when(userDao.existsByEmail("john@example.com")).thenReturn(true);
+        when(userDao.insert(any(User.class))).thenThrow(new EmailAlreadyExistsException("john@example.com"));
 
         assertThatThrownBy(() -> userService.createUser("John Doe", "john@example.com", 30))
-                .isInstanceOf(RuntimeException.class)
+                .isInstanceOf(EmailAlreadyExistsException.class)
                 .hasMessage("Email already exists: john@example.com");
 
-        verify(userDao).existsByEmail("john@example.com");
+        verify(userDao, never()).existsByEmail(anyString());
         verify(userDao, never()).save(any(User.class));
     }
 
+    @Test
+    @DisplayName("Should create users in batch")
+    void shouldCreateUsersInBatch() {
+        List<User> users = Arrays.asList(testUser, new User("Jane Doe", "jane@example.com", 25));
+        BatchSaveResult batchResult = mock(BatchSaveResult.class);
+        when(userDao.saveAll(users)).thenReturn(batchResult);
+
+        BatchSaveResult result = userService.createUsers(users);
+
+        assertThat(result).isSameAs(batchResult);
+        verify(userDao).saveAll(users);
+    }
+
     @Test
     @DisplayName("Should find user by ID successfully")
     void shouldFindUserByIdSuccessfully() {
@@ -124,38 +167,81 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("Should update user successfully")
+    @DisplayName("Should stream all users to consumer")
+    void shouldStreamAllUsersToConsumer() {
+        when(userDao.streamAll(any())).thenAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(0);
+            consumer.accept(testUser);
+            return 1L;
+        });
+        List<User> consumed = new ArrayList<>();
+
+        long count = userService.streamAllUsers(consumed::add);
+
+        assertThat(count).isEqualTo(1L);
+        assertThat(consumed).containsExactly(testUser);
+        verify(userDao, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should update user with a single patch")
     void shouldUpdateUserSuccessfully() {
         User updatedUser = new User("John Updated", "john.updated@example.com", 35);
         updatedUser.setId(1L);
+        when(userDao.patch(eq(1L), any(UserPatch.class))).thenReturn(Optional.of(updatedUser));
 
-        when(userDao.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userDao.existsByEmail("john.updated@example.com")).thenReturn(false);
-        when(userDao.update(any(User.class))).thenReturn(updatedUser);
-
-        User result = userService.updateUser(1L, "John Updated", "john.updated@example.com", 35);
+        User result = userService.updateUser(1L, "John Updated", "John.Updated@example.com", 35);
 
         assertThat(result.getName()).isEqualTo("John Updated");
         assertThat(result.getEmail()).isEqualTo("john.updated@example.com");
         assertThat(result.getAge()).isEqualTo(35);
-        verify(userDao).findById(1L);
-        verify(userDao).existsByEmail("john.updated@example.com");
-        verify(userDao).update(any(User.class));
+        ArgumentCaptor<UserPatch> patch = ArgumentCaptor.forClass(UserPatch.class);
+        verify(userDao).patch(eq(1L), patch.capture());
+        assertThat(patch.getValue().getEmail()).isEqualTo("john.updated@example.com");
+        assertThat(patch.getValue().getExpectedVersion()).isNull();
+        verify(userDao, never()).findById(anyLong());
+        verify(userDao, never()).existsByEmail(anyString());
+        verify(userDao, never()).update(any(User.class));
     }
 
     @Test
     @DisplayName("Should throw exception when updating non-existent user")
     void shouldThrowExceptionWhenUpdatingNonExistentUser() {
-        when(userDao.findById(999L)).thenReturn(Optional.empty());
+        when(userDao.patch(eq(999L), any(UserPatch.class))).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.updateUser(999L, "New Name", "new@example.com", 40))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessage("User not found with id: 999");
 
-        verify(userDao).findById(999L);
         verify(userDao, never()).update(any(User.class));
     }
 
+    @Test
+    @DisplayName("Should pass expected version to the patch")
+    void shouldPassExpectedVersionToPatch() {
+        when(userDao.patch(eq(1L), any(UserPatch.class)))
+                .thenThrow(new UserVersionConflictException(1L, 3L, 4L));
+
+        assertThatThrownBy(() -> userService.updateUser(1L, null, null, 41, 3L))
+                .isInstanceOf(UserVersionConflictException.class)
+                .hasMessageContaining("expected version 3, actual 4");
+
+        ArgumentCaptor<UserPatch> patch = ArgumentCaptor.forClass(UserPatch.class);
+        verify(userDao).patch(eq(1L), patch.capture());
+        assertThat(patch.getValue().getName()).isNull();
+        assertThat(patch.getValue().getAge()).isEqualTo(41);
+        assertThat(patch.getValue().getExpectedVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid values before touching the database")
+    void shouldRejectInvalidUpdateValues() {
+        assertThatThrownBy(() -> userService.updateUser(1L, null, "not-an-email", null))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(userDao, never()).patch(anyLong(), any(UserPatch.class));
+    }
+
     @Test
     @DisplayName("Should delete user successfully")
     void shouldDeleteUserSuccessfully() {
@@ -167,6 +253,18 @@ class UserServiceTest {
         verify(userDao).delete(1L);
     }
 
+    @Test
+    @DisplayName("Should bulk delete users")
+    void shouldBulkDeleteUsers() {
+        when(userDao.deleteAll(List.of(1L, 2L, 3L))).thenReturn(3L);
+
+        long deleted = userService.deleteUsers(List.of(1L, 2L, 3L));
+
+        assertThat(deleted).isEqualTo(3);
+        verify(userDao).deleteAll(List.of(1L, 2L, 3L));
+        verify(userDao, never()).delete(anyLong());
+    }
+
     @Test
     @DisplayName("Should return false when deleting non-existent user")
     void shouldReturnFalseWhenDeletingNonExistentUser() {
@@ -211,6 +309,17 @@ class UserServiceTest {
         verify(userDao).count();
     }
 
+    @Test
+    @DisplayName("Should return user count in requested mode")
+    void shouldReturnUserCountInRequestedMode() {
+        when(userDao.count(CountMode.ESTIMATED)).thenReturn(1000L);
+
+        long count = userService.getUserCount(CountMode.ESTIMATED);
+
+        assertThat(count).isEqualTo(1000L);
+        verify(userDao, never()).count();
+    }
+
     @Test
     @DisplayName("Should return users with pagination")
     void shouldReturnUsersWithPagination() {
@@ -239,29 +348,57 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("Should update user with partial data")
+    @DisplayName("Should return keyset page after cursor")
+    void shouldReturnKeysetPageAfterCursor() {
+        UserCursor cursor = new UserCursor(LocalDateTime.of(2023, 1, 1, 10, 0), 7L);
+        UserPage page = new UserPage(List.of(testUser), null);
+        when(userDao.findPageAfter(cursor, 10)).thenReturn(page);
+
+        UserPage result = userService.getUsersWithPagination(cursor, 10);
+
+        assertThat(result.getUsers()).containsExactly(testUser);
+        verify(userDao).findPageAfter(cursor, 10);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid keyset page size")
+    void shouldRejectInvalidKeysetPageSize() {
+        assertThatThrownBy(() -> userService.getUsersWithPagination((UserCursor) null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Size must be a positive integer");
+
+        verify(userDao, never()).findPageAfter(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should return current user when nothing changes")
     void shouldUpdateUserWithPartialData() {
         when(userDao.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userDao.update(any(User.class))).thenReturn(testUser);
 
         User result = userService.updateUser(1L, null, null, null);
 
         assertThat(result).isEqualTo(testUser);
         verify(userDao).findById(1L);
-        verify(userDao).update(any(User.class));
+        verify(userDao, never()).patch(anyLong(), any(UserPatch.class));
     }
 
     @Test
     @DisplayName("Should update user with same email")
     void shouldUpdateUserWithSameEmail() {
-        when(userDao.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userDao.update(any(User.class))).thenReturn(testUser);
+        when(userDao.patch(eq(1L), any(UserPatch.class))).thenReturn(Optional.of(testUser));
 
         User result = userService.updateUser(1L, "New Name", "john@example.com", null);
 
         assertThat(result).isEqualTo(testUser);
-        verify(userDao).findById(1L);
         verify(userDao, never()).existsByEmail(anyString());
-        verify(userDao).update(any(User.class));
+        verify(userDao).patch(eq(1L), any(UserPatch.class));
+    }
+
+    @Test
+    @DisplayName("Should delegate query warm-up to DAO")
+    void shouldDelegateWarmUpToDao() {
+        userService.warmUp();
+
+        verify(userDao).warmUp();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package com.example.userservice.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Email Validator Tests")
+class EmailValidatorTest {
+
+    // Прежняя проверка из User.isValidEmail — эталон для сравнения
+    private static final Pattern REGEX = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"john@example.com", "John.Doe@Example.COM", "a+b_c-d.e@sub-domain.example.co",
+            "x@y.zz", "-@-.ab", "..@..ab", "a@b..cd", "1@2.3.ab"})
+    @DisplayName("Should accept addresses the regex accepts")
+    void shouldAcceptValidAddresses(String email) {
+        assertThat(REGEX.matcher(email).matches()).isTrue();
+        assertThat(EmailValidator.isValid(email)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "invalid-email", "missing@", "@domain.com", "a@b.c", "a@.com", "a@b.c1",
+            "a@@b.com", "a@b.com ", " a@b.com", "a@b.com\n", "jö@example.com", "a@exämple.com", "a@b.co-m",
+            "a b@c.com", "a@b_c.com", "a@b.com.", "a@bcom"})
+    @DisplayName("Should reject addresses the regex rejects")
+    void shouldRejectInvalidAddresses(String email) {
+        assertThat(REGEX.matcher(email).matches()).isFalse();
+        assertThat(EmailValidator.isValid(email)).isFalse();
+        assertThat(EmailValidator.normalize(email)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should agree with the regex on every short string over the significant alphabet")
+    void shouldAgreeWithRegexExhaustively() {
+        char[] alphabet = {'a', 'Z', '1', '.', '-', '@', '+', '\n'};
+        char[] buffer = new char[6];
+        for (int length = 0; length <= buffer.length; length++) {
+            int combinations = (int) Math.pow(alphabet.length, length);
+            for (int n = 0; n < combinations; n++) {
+                int rest = n;
+                for (int i = 0; i < length; i++) {
+                    buffer[i] = alphabet[rest % alphabet.length];
+                    rest /= alphabet.length;
+                }
+                assertAgrees(new String(buffer, 0, length));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should agree with the regex on random address-like strings")
+    void shouldAgreeWithRegexOnRandomInput() {
+        String alphabet = "abcXYZ019._-+@ \täİK";
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < 200_000; n++) {
+            builder.setLength(0);
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                // Чаще буквы: иначе корректных адресов почти не получается
+                builder.append(random.nextInt(3) == 0
+                        ? alphabet.charAt(random.nextInt(alphabet.length()))
+                        : alphabet.charAt(random.nextInt(6)));
+            }
+            if (random.nextBoolean() && length > 3) {
+                builder.setCharAt(random.nextInt(length - 3) + 1, '@');
+            }
+            assertAgrees(builder.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the same instance for an already normalised address")
+    void shouldNotAllocateForNormalisedAddress() {
+        String email = "john.doe@example.com";
+
+        assertThat(EmailValidator.normalize(email)).isSameAs(email);
+        assertThat(EmailValidator.lookupKey(email)).isSameAs(email);
+    }
+
+    @Test
+    @DisplayName("Should lower-case ASCII letters regardless of the default locale")
+    void shouldLowerCaseIndependentlyOfLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            // В турецкой локали String.toLowerCase() превращает 'I' в 'ı'
+            assertThat(EmailValidator.normalize("IVAN@EXAMPLE.COM")).isEqualTo("ivan@example.com");
+            assertThat(EmailValidator.lookupKey("IVAN@EXAMPLE.COM")).isEqualTo("ivan@example.com");
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("Should build lookup keys for addresses that fail validation")
+    void shouldBuildLookupKeysForInvalidAddresses() {
+        assertThat(EmailValidator.lookupKey("Not An Email")).isEqualTo("not an email");
+        assertThat(EmailValidator.lookupKey("JÖRG@EXAMPLE.COM")).isEqualTo("jörg@example.com");
+    }
+
+    private static void assertAgrees(String email) {
+        boolean expected = REGEX.matcher(email).matches();
+        assertThat(EmailValidator.isValid(email)).as("isValid(%s)", email).isEqualTo(expected);
+        assertThat(EmailValidator.normalize(email)).as("normalize(%s)", email)
+                .isEqualTo(expected ? email.toLowerCase(Locale.ROOT) : null);
+    }
+}
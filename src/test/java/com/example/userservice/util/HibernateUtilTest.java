@@ -1,11 +1,18 @@
 package com.example.userservice.util;
 
+import com.example.userservice.model.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.named.NamedObjectRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DisplayName("Hibernate Util Tests")
 class HibernateUtilTest {
@@ -20,6 +27,55 @@ class HibernateUtilTest {
         HibernateUtil.shutdown();
     }
 
+    @Test
+    @DisplayName("Should register DAO named queries when the session factory is built")
+    void shouldRegisterNamedQueries() {
+        NamedObjectRepository repository = HibernateUtil.getSessionFactory()
+                .unwrap(SessionFactoryImplementor.class).getQueryEngine().getNamedObjectRepository();
+
+        for (String name : List.of(User.FIND_ALL, User.FIND_ALL_KEYSET, User.FIND_PAGE_AFTER, User.FIND_ALL_EMAILS,
+                User.FIND_EXISTING_EMAILS, User.COUNT_BY_EMAIL, User.COUNT_ALL)) {
+            assertThat(repository.getSqmQueryMemento(name)).as(name).isNotNull();
+        }
+        assertThat(repository.getNativeQueryMemento(User.COUNT_ESTIMATED)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should report bootstrap phase timings")
+    void shouldReportBootstrapPhaseTimings() {
+        BootstrapTimings timings = HibernateUtil.getBootstrapTimings();
+
+        assertThat(timings).isNotNull();
+        assertThat(timings.getAttempts()).isEqualTo(1);
+        assertThat(timings.getPhaseMillis()).containsKeys("configuration", "connection pool", "metadata",
+                "session factory");
+        assertThat(timings.getTotalMillis()).isGreaterThanOrEqualTo(timings.getPhaseMillis().get("metadata"));
+    }
+
+    @Test
+    @DisplayName("Should retry bootstrap after the database becomes reachable")
+    void shouldRecoverAfterFailedBootstrap() {
+        HibernateUtil.shutdown();
+        System.setProperty("hibernate.connection.url", "jdbc:postgresql://localhost:1/userservice_db");
+        System.setProperty(HibernateUtil.BOOTSTRAP_ATTEMPTS, "2");
+        System.setProperty(HibernateUtil.BOOTSTRAP_BACKOFF_MS, "10");
+        try {
+            assertThatThrownBy(HibernateUtil::bootstrap)
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("Failed to build SessionFactory");
+            assertThatThrownBy(() -> HibernateUtil.bootstrapAsync().join())
+                    .isInstanceOf(CompletionException.class)
+                    .hasMessageContaining("Failed to build SessionFactory");
+        } finally {
+            System.clearProperty("hibernate.connection.url");
+            System.clearProperty(HibernateUtil.BOOTSTRAP_ATTEMPTS);
+            System.clearProperty(HibernateUtil.BOOTSTRAP_BACKOFF_MS);
+        }
+
+        assertThat(HibernateUtil.bootstrapAsync().join().isOpen()).isTrue();
+        assertThat(HibernateUtil.isSessionFactoryOpen()).isTrue();
+    }
+
     @Test
     @DisplayName("Should get session factory")
     void shouldGetSessionFactory() {
@@ -48,4 +104,33 @@ class HibernateUtilTest {
         HibernateUtil.recreateSessionFactory();
         assertThat(HibernateUtil.isSessionFactoryOpen()).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should expose connection pool statistics")
+    void shouldExposeConnectionPoolStatistics() {
+        HibernateUtil.getSessionFactory().openSession().close();
+
+        PoolStatistics statistics = HibernateUtil.getPoolStatistics();
+
+        assertThat(statistics).isNotNull();
+        assertThat(statistics.getMaximumPoolSize()).isPositive();
+        assertThat(statistics.getAcquireCount()).isPositive();
+        assertThat(statistics.getActiveConnections()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not report pool statistics after shutdown")
+    void shouldNotReportPoolStatisticsAfterShutdown() {
+        HibernateUtil.shutdown();
+
+        assertThat(HibernateUtil.getPoolStatistics()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should expose second-level cache statistics for user regions")
+    void shouldExposeSecondLevelCacheStatistics() {
+        assertThat(HibernateUtil.getCacheStatistics())
+                .extracting(CacheRegionStatistics::getRegion)
+                .contains("users", "users-by-email");
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.userservice.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("Latency Histogram Tests")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Should place every value into the bucket whose upper bound covers it")
+    void shouldMapValuesToCoveringBuckets() {
+        for (long value = 0; value < 1 << 20; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.highestValueOf(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.highestValueOf(bucket - 1)).isLessThan(value);
+            }
+        }
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(LatencyHistogram.MAX_TRACKABLE_NANOS)))
+                .isEqualTo(LatencyHistogram.MAX_TRACKABLE_NANOS);
+    }
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision")
+    void shouldReportPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        long[] values = histogram.valuesAtPercentiles(50, 90, 99, 99.9, 100);
+
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat((double) values[0]).isCloseTo(50_000_000, within(50_000_000 / 32.0));
+        assertThat((double) values[1]).isCloseTo(90_000_000, within(90_000_000 / 32.0));
+        assertThat((double) values[2]).isCloseTo(99_000_000, within(99_000_000 / 32.0));
+        assertThat((double) values[3]).isCloseTo(99_900_000, within(99_900_000 / 32.0));
+        assertThat(values[4]).isEqualTo(100_000_000);
+        assertThat(histogram.getMaxNanos()).isEqualTo(100_000_000);
+        assertThat(histogram.getMeanNanos()).isCloseTo(50_000_500, within(1.0));
+    }
+
+    @Test
+    @DisplayName("Should clamp huge and negative values and keep the exact maximum")
+    void shouldClampOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertThat(histogram.getCount()).isEqualTo(2);
+        assertThat(histogram.valueAtPercentile(0)).isZero();
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(LatencyHistogram.MAX_TRACKABLE_NANOS);
+        assertThat(histogram.getMaxNanos()).isEqualTo(Long.MAX_VALUE / 2);
+        assertThatThrownBy(() -> histogram.valueAtPercentile(101)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should start a new window on reset")
+    void shouldStartNewWindowOnReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+
+        histogram.reset();
+        histogram.record(2_000);
+
+        assertThat(histogram.getCount()).isEqualTo(1);
+        assertThat(histogram.getMaxNanos()).isEqualTo(2_000);
+        assertThat(histogram.valueAtPercentile(99)).isBetween(2_000L, 2_000L + 2_000 / 32);
+    }
+
+    @Test
+    @DisplayName("Should not lose records from concurrent threads")
+    void shouldNotLoseConcurrentRecords() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        AtomicLong expectedTotal = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                long total = 0;
+                for (int i = 0; i < 50_000; i++) {
+                    long value = (seed * 50_000L + i) % 5_000;
+                    histogram.record(value);
+                    total += value;
+                }
+                expectedTotal.addAndGet(total);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(400_000);
+        assertThat(histogram.getTotalNanos()).isEqualTo(expectedTotal.get());
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(4_999);
+    }
+}
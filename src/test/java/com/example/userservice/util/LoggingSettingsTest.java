@@ -0,0 +1,30 @@
+package com.example.userservice.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Logging Settings Tests")
+class LoggingSettingsTest {
+
+    @Test
+    @DisplayName("Should switch Hibernate SQL logging on and off at runtime")
+    void shouldToggleSqlLogging() {
+        boolean original = LoggingSettings.isSqlLoggingEnabled();
+        try {
+            LoggingSettings.setSqlLoggingEnabled(true);
+
+            assertThat(LoggingSettings.isSqlLoggingEnabled()).isTrue();
+            assertThat(LogManager.getLogger(LoggingSettings.SQL_LOGGER).isDebugEnabled()).isTrue();
+
+            LoggingSettings.setSqlLoggingEnabled(false);
+
+            assertThat(LoggingSettings.isSqlLoggingEnabled()).isFalse();
+            assertThat(LogManager.getLogger(LoggingSettings.SQL_LOGGER).isInfoEnabled()).isTrue();
+        } finally {
+            LoggingSettings.setSqlLoggingEnabled(original);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.userservice.util;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("ReplicaRouter Tests")
+class ReplicaRouterTest {
+
+    private static final long STICKY_WINDOW = 1_000;
+    private static final long RETRY_AFTER = 10_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final AtomicInteger firstLoad = new AtomicInteger();
+    private final AtomicInteger secondLoad = new AtomicInteger();
+    private SessionFactory first;
+    private SessionFactory second;
+    private ReplicaRouter router;
+
+    @BeforeEach
+    void setUp() {
+        first = mock(SessionFactory.class);
+        second = mock(SessionFactory.class);
+        router = new ReplicaRouter(List.of(
+                new ReplicaRouter.Replica("replica-1", first, firstLoad::get),
+                new ReplicaRouter.Replica("replica-2", second, secondLoad::get)),
+                STICKY_WINDOW, RETRY_AFTER, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should alternate between equally loaded replicas")
+    void shouldRoundRobinOnTies() {
+        Set<SessionFactory> routed = new HashSet<>();
+        routed.add(router.route());
+        routed.add(router.route());
+
+        assertThat(routed).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    @DisplayName("Should prefer the least loaded replica")
+    void shouldPreferLeastLoaded() {
+        firstLoad.set(5);
+        secondLoad.set(1);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(router.route()).isSameAs(second);
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip a failed replica until the retry interval passes")
+    void shouldSkipFailedReplica() {
+        router.markFailed(first);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(router.route()).isSameAs(second);
+        }
+
+        router.markFailed(second);
+        assertThat(router.route()).isNull();
+
+        clock.addAndGet(RETRY_AFTER);
+        assertThat(router.route()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should route to primary right after a write from the same thread")
+    void shouldStickToPrimaryAfterWrite() throws InterruptedException {
+        router.markWrite();
+
+        assertThat(router.route()).isNull();
+        // Другие потоки продолжают читать с реплик
+        SessionFactory[] otherThread = new SessionFactory[1];
+        Thread reader = new Thread(() -> otherThread[0] = router.route());
+        reader.start();
+        reader.join();
+        assertThat(otherThread[0]).isNotNull();
+
+        clock.addAndGet(STICKY_WINDOW);
+        assertThat(router.route()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should stick to primary in another thread that carries the write mark")
+    void shouldCarryWriteMarkToAnotherThread() throws InterruptedException {
+        router.markWrite();
+        Long writtenAt = router.getLastWrite();
+
+        SessionFactory[] otherThread = new SessionFactory[1];
+        Thread reader = new Thread(() -> {
+            router.setLastWrite(writtenAt);
+            otherThread[0] = router.route();
+        });
+        reader.start();
+        reader.join();
+
+        assertThat(otherThread[0]).isNull();
+        router.setLastWrite(null);
+        assertThat(router.route()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should route to primary when no replicas are configured")
+    void shouldRouteToPrimaryWithoutReplicas() {
+        ReplicaRouter empty = new ReplicaRouter(List.of(), STICKY_WINDOW, RETRY_AFTER, clock::get);
+
+        empty.markWrite();
+
+        assertThat(empty.route()).isNull();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.userservice.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Schema Migrator Tests")
+class SchemaMigratorTest {
+
+    @Test
+    @DisplayName("Should load bundled migrations in version order")
+    void shouldLoadBundledMigrationsInOrder() {
+        List<SchemaMigrator.Migration> migrations =
+                SchemaMigrator.load(getClass().getClassLoader(), SchemaMigrator.DEFAULT_LOCATION);
+
+        assertThat(migrations).extracting(SchemaMigrator.Migration::getVersion).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(migrations.get(0).isTransactional()).isTrue();
+        // CREATE INDEX CONCURRENTLY не выполняется в транзакции
+        assertThat(migrations.get(1).isTransactional()).isFalse();
+        assertThat(migrations.get(2).isTransactional()).isFalse();
+        assertThat(migrations.get(4).isTransactional()).isFalse();
+        assertThat(migrations.get(5).isTransactional()).isTrue();
+        assertThat(migrations.get(1).getStatements()).last().asString().contains("CONCURRENTLY");
+    }
+
+    @Test
+    @DisplayName("Should split statements outside quotes, dollar-quoted bodies and comments")
+    void shouldSplitStatements() {
+        String script = "-- комментарий; не команда\n"
+                + "INSERT INTO t VALUES ('a;b', \"c;d\");\n"
+                + "DO $$ BEGIN PERFORM 1; END $$;\n"
+                + "/* ; */ SELECT $tag$ ; $tag$, $1\n";
+
+        assertThat(SchemaMigrator.split(script)).containsExactly(
+                "INSERT INTO t VALUES ('a;b', \"c;d\")",
+                "DO $$ BEGIN PERFORM 1; END $$",
+                "SELECT $tag$ ; $tag$, $1");
+    }
+
+    @Test
+    @DisplayName("Should compute the same checksum regardless of line endings")
+    void shouldIgnoreLineEndingsInChecksum() {
+        SchemaMigrator.Migration unix = SchemaMigrator.Migration.parse("V7__add_column.sql", "SELECT 1;\nSELECT 2;\n");
+        SchemaMigrator.Migration windows =
+                SchemaMigrator.Migration.parse("V7__add_column.sql", "SELECT 1;\r\nSELECT 2;\r\n");
+
+        assertThat(windows.getChecksum()).isEqualTo(unix.getChecksum());
+        assertThat(unix.getDescription()).isEqualTo("add column");
+        assertThat(unix.getVersion()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should reject migration files without a version prefix")
+    void shouldRejectInvalidFileName() {
+        assertThatThrownBy(() -> SchemaMigrator.Migration.parse("add_column.sql", "SELECT 1;"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Invalid migration file name");
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.userservice.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Slow Query Log Tests")
+class SlowQueryLogTest {
+
+    private static final String SQL = "select * from users where email = ? and age > ?";
+
+    @Test
+    @DisplayName("Should mask strings but keep numbers, dates and nulls readable")
+    void shouldRedactOnlyPersonalData() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+        assertThat(SlowQueryLog.formatBind("john@example.com", true)).isEqualTo("'***'(16 chars)");
+        assertThat(SlowQueryLog.formatBind("john@example.com", false)).isEqualTo("'john@example.com'");
+        assertThat(SlowQueryLog.formatBind(42L, true)).isEqualTo("42");
+        assertThat(SlowQueryLog.formatBind(createdAt, true)).isEqualTo("2024-01-02T03:04:05");
+        assertThat(SlowQueryLog.formatBind(null, true)).isEqualTo("NULL");
+        assertThat(SlowQueryLog.formatBind(new byte[]{1}, false)).isEqualTo("<byte[]>");
+        assertThat(SlowQueryLog.formatBinds(new Object[]{"a", 1, null}, 2, true)).isEqualTo("['***'(1 chars), 1]");
+    }
+
+    @Test
+    @DisplayName("Should record statements slower than the threshold together with their binds")
+    void shouldRecordSlowStatements() throws SQLException {
+        SlowQueryLog log = new SlowQueryLog();
+        log.setThresholdMillis(1);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return mock(ResultSet.class);
+        });
+
+        Connection wrapped = log.wrap(connection, null);
+        PreparedStatement prepared = wrapped.prepareStatement(SQL);
+        prepared.setString(1, "john@example.com");
+        prepared.setInt(2, 18);
+        prepared.executeQuery();
+
+        assertThat(log.getSlowQueryCount()).isEqualTo(1);
+        assertThat(log.getRecent()).singleElement().satisfies(query -> {
+            assertThat(query.getSql()).isEqualTo(SQL);
+            assertThat(query.getBinds()).isEqualTo("['***'(16 chars), 18]");
+            assertThat(query.getDurationMillis()).isGreaterThanOrEqualTo(1.0);
+            assertThat(query.getPlan()).isNull();
+        });
+        assertThat(prepared.getConnection()).isSameAs(wrapped);
+        verify(statement).setString(1, "john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should skip fast statements and propagate driver errors")
+    void shouldSkipFastStatements() throws SQLException {
+        SlowQueryLog log = new SlowQueryLog();
+        log.setThresholdMillis(10_000);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SQL)).thenReturn(statement);
+        when(statement.executeUpdate()).thenThrow(new SQLException("boom"));
+
+        PreparedStatement prepared = log.wrap(connection, null).prepareStatement(SQL);
+        prepared.executeQuery();
+
+        assertThatThrownBy(prepared::executeUpdate).isInstanceOf(SQLException.class).hasMessage("boom");
+        assertThat(log.getSlowQueryCount()).isZero();
+        assertThat(log.getRecent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should read settings and treat a zero threshold as disabled")
+    void shouldConfigureFromProperties() {
+        SlowQueryLog log = new SlowQueryLog();
+        Properties settings = new Properties();
+        settings.setProperty(SlowQueryLog.THRESHOLD_MS, "0");
+        settings.setProperty(SlowQueryLog.EXPLAIN, "Analyze");
+        settings.setProperty(SlowQueryLog.REDACT_BINDS, "false");
+
+        log.configure(settings);
+
+        assertThat(log.isEnabled()).isFalse();
+        assertThat(log.getExplainMode()).isEqualTo(ExplainMode.ANALYZE);
+        assertThat(log.isRedactBinds()).isFalse();
+
+        log.configure(new Properties());
+
+        assertThat(log.getThresholdMillis()).isEqualTo(SlowQueryLog.DEFAULT_THRESHOLD_MS);
+        assertThat(log.getExplainMode()).isEqualTo(ExplainMode.NONE);
+        assertThat(log.isRedactBinds()).isTrue();
+        assertThatThrownBy(() -> ExplainMode.parse("verbose")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.userservice.util;
+
+import com.example.userservice.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("User Index Tests")
+class UserIndexTest {
+
+    @Test
+    @DisplayName("Should find users by id and by normalised email")
+    void shouldFindUsersByIdAndEmail() {
+        UserIndex index = new UserIndex();
+        User john = user(1L, "john@example.com");
+        User jane = user(2L, "jane@example.com");
+
+        index.put(john);
+        index.put(jane);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get(1L)).isSameAs(john);
+        assertThat(index.getByEmail("JANE@Example.com")).isSameAs(jane);
+        assertThat(index.get(3L)).isNull();
+        assertThat(index.getByEmail("nobody@example.com")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should replace the entry and re-index the email when a user is put again")
+    void shouldReplaceEntryWithSameId() {
+        UserIndex index = new UserIndex();
+        index.put(user(1L, "old@example.com"));
+        User renamed = user(1L, "new@example.com");
+
+        index.put(renamed);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.get(1L)).isSameAs(renamed);
+        assertThat(index.getByEmail("old@example.com")).isNull();
+        assertThat(index.getByEmail("new@example.com")).isSameAs(renamed);
+    }
+
+    @Test
+    @DisplayName("Should reject users without id and duplicate emails")
+    void shouldRejectInvalidEntries() {
+        UserIndex index = new UserIndex();
+        index.put(user(1L, "john@example.com"));
+
+        assertThatThrownBy(() -> index.put(new User("New", "new@example.com", 20)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("without an id");
+        assertThatThrownBy(() -> index.put(user(2L, "John@Example.com")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("already indexed for user 1");
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should remove users and keep the remaining ones reachable")
+    void shouldRemoveUsers() {
+        UserIndex index = new UserIndex(4);
+        for (long id = 1; id <= 10; id++) {
+            index.put(user(id, "user" + id + "@example.com"));
+        }
+
+        assertThat(index.remove(3L).getId()).isEqualTo(3L);
+        assertThat(index.remove(3L)).isNull();
+        assertThat(index.remove(10L).getId()).isEqualTo(10L);
+
+        assertThat(index.size()).isEqualTo(8);
+        assertThat(index.contains(3L)).isFalse();
+        assertThat(index.getByEmail("user10@example.com")).isNull();
+        List<Long> ids = new ArrayList<>();
+        index.forEach(user -> ids.add(user.getId()));
+        assertThat(ids).containsExactlyInAnyOrder(1L, 2L, 4L, 5L, 6L, 7L, 8L, 9L);
+        for (long id : ids) {
+            assertThat(index.getByEmail("user" + id + "@example.com").getId()).isEqualTo(id);
+        }
+    }
+
+    @Test
+    @DisplayName("Should behave like a HashMap under random puts and removes")
+    void shouldMatchHashMapUnderRandomOperations() {
+        UserIndex index = new UserIndex(0);
+        Map<Long, User> byId = new HashMap<>();
+        Map<String, User> byEmail = new HashMap<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 200_000; step++) {
+            // Id шардов отличаются в старших битах и совпадают в младших — худший случай для маски
+            long id = (long) random.nextInt(5_000) << 10 | 17;
+            if (random.nextInt(3) == 0) {
+                User removed = byId.remove(id);
+                if (removed != null) {
+                    byEmail.remove(removed.getEmail());
+                }
+                assertThat(index.remove(id)).isSameAs(removed);
+            } else {
+                String email = "user" + random.nextInt(5_000) + "@example.com";
+                User owner = byEmail.get(email);
+                if (owner != null && owner.getId() != id) {
+                    continue;
+                }
+                User user = user(id, email);
+                User previous = byId.put(id, user);
+                if (previous != null) {
+                    byEmail.remove(previous.getEmail());
+                }
+                byEmail.put(email, user);
+                index.put(user);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(byId.size());
+        byId.forEach((id, user) -> assertThat(index.get(id)).isSameAs(user));
+        byEmail.forEach((email, user) -> assertThat(index.getByEmail(email)).isSameAs(user));
+    }
+
+    @Test
+    @DisplayName("Should stay within the memory-per-entry target")
+    void shouldStayWithinMemoryTarget() {
+        int users = 100_000;
+        UserIndex presized = new UserIndex(users);
+        UserIndex grown = new UserIndex();
+        for (long id = 1; id <= users; id++) {
+            User user = user(id, "user" + id + "@example.com");
+            presized.put(user);
+            grown.put(user);
+        }
+
+        // Без учёта самих User: ~34 байта при заранее известном размере, не больше 48 после роста
+        assertThat(presized.getMemoryBytes() / users).isLessThanOrEqualTo(36);
+        assertThat(grown.getMemoryBytes() / users).isLessThanOrEqualTo(48);
+    }
+
+    private static User user(long id, String email) {
+        User user = new User("User " + id, email, 30);
+        user.setId(id);
+        return user;
+    }
+}